@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all the benchmarks within this package, reporting the throughput
+ * and (via JMH's gc profiler) the allocation rate of each benchmark.
+ *
+ * An optional program argument, is a regular expression selecting
+ * the benchmarks to run (for e.g, "CalendarTypesBenchmark.dateTime.*").
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String benchmarkRegex = (args.length > 0) ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*";
+
+        Options options = new OptionsBuilder().include(benchmarkRegex)
+                                              .addProfiler(GCProfiler.class)
+                                              .build();
+
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types.benchmarks;
+
+import org.apache.xpath.objects.ResultSequence;
+import org.apache.xpath.objects.XObject;
+
+/**
+ * Utility methods shared by the benchmarks within this package.
+ */
+final class BenchmarkUtil {
+
+    private BenchmarkUtil() {
+       // no op
+    }
+
+    /**
+     * Get a ResultSequence object containing only the supplied
+     * item, suitable as an argument to the constructor functions
+     * of the XML Schema built-in types.
+     */
+    static ResultSequence singleton(XObject item) {
+       ResultSequence resultSeq = new ResultSequence();
+
+       resultSeq.add(item);
+
+       return resultSeq;
+    }
+
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.TransformerException;
+
+import org.apache.xml.utils.FastStringBuffer;
+import org.apache.xpath.objects.ResultSequence;
+import org.apache.xpath.objects.XObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import xml.xpath31.processor.types.XSDate;
+import xml.xpath31.processor.types.XSDateTime;
+import xml.xpath31.processor.types.XSDayTimeDuration;
+import xml.xpath31.processor.types.XSString;
+import xml.xpath31.processor.types.XSTime;
+import xml.xpath31.processor.types.XSYearMonthDuration;
+
+/**
+ * JMH benchmarks for the XML Schema calendar types xs:dateTime,
+ * xs:date and xs:time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CalendarTypesBenchmark {
+
+    private static final String DATE_TIME_STR = "2024-03-15T10:20:30.5+05:30";
+
+    private static final String DATE_STR = "2024-03-15+05:30";
+
+    private static final String TIME_STR = "10:20:30.5Z";
+
+    private XSDateTime fDateTime1;
+    private XSDateTime fDateTime2;
+    private ResultSequence fDateTimeCastArg;
+
+    private XSDate fDate1;
+    private XSDate fDate2;
+    private ResultSequence fDateCastArg;
+
+    private XSTime fTime1;
+    private XSTime fTime2;
+    private ResultSequence fTimeCastArg;
+
+    private XSDayTimeDuration fDayTimeDuration;
+
+    private XSYearMonthDuration fYearMonthDuration;
+
+    private FastStringBuffer fFsb;
+
+    @Setup
+    public void setup() throws TransformerException {
+        fDateTime1 = XSDateTime.parseDateTime(DATE_TIME_STR);
+        fDateTime2 = XSDateTime.parseDateTime("2024-03-15T10:20:31Z");
+        fDateTimeCastArg = BenchmarkUtil.singleton(new XSString(DATE_TIME_STR));
+
+        fDate1 = XSDate.parseDate(DATE_STR);
+        fDate2 = XSDate.parseDate("2024-03-16Z");
+        fDateCastArg = BenchmarkUtil.singleton(new XSString(DATE_STR));
+
+        fTime1 = XSTime.parseTime(TIME_STR);
+        fTime2 = XSTime.parseTime("23:59:59+01:00");
+        fTimeCastArg = BenchmarkUtil.singleton(new XSString(TIME_STR));
+
+        fDayTimeDuration = new XSDayTimeDuration(1, 2, 3, 4.5, false);
+        fYearMonthDuration = new XSYearMonthDuration(1, 2, false);
+
+        fFsb = new FastStringBuffer();
+    }
+
+    @Benchmark
+    public XSDateTime dateTimeParse() throws TransformerException {
+        return XSDateTime.parseDateTime(DATE_TIME_STR);
+    }
+
+    @Benchmark
+    public ResultSequence dateTimeCast() throws TransformerException {
+        return fDateTime1.constructor(fDateTimeCastArg);
+    }
+
+    @Benchmark
+    public String dateTimeStringValue() {
+        return fDateTime1.stringValue();
+    }
+
+    @Benchmark
+    public int dateTimeAppendToFsb() {
+        fFsb.reset();
+        fDateTime1.appendToFsb(fFsb);
+        return fFsb.length();
+    }
+
+    @Benchmark
+    public void dateTimeCompare(Blackhole bh) {
+        bh.consume(fDateTime1.equals(fDateTime2));
+        bh.consume(fDateTime1.lt(fDateTime2));
+        bh.consume(fDateTime1.gt(fDateTime2));
+    }
+
+    @Benchmark
+    public XObject dateTimeAddDuration() throws TransformerException {
+        return fDateTime1.add(fDayTimeDuration);
+    }
+
+    @Benchmark
+    public XSDate dateParse() throws TransformerException {
+        return XSDate.parseDate(DATE_STR);
+    }
+
+    @Benchmark
+    public ResultSequence dateCast() throws TransformerException {
+        return fDate1.constructor(fDateCastArg);
+    }
+
+    @Benchmark
+    public String dateStringValue() {
+        return fDate1.stringValue();
+    }
+
+    @Benchmark
+    public void dateCompare(Blackhole bh) {
+        bh.consume(fDate1.equals(fDate2));
+        bh.consume(fDate1.lt(fDate2));
+        bh.consume(fDate1.gt(fDate2));
+    }
+
+    @Benchmark
+    public XObject dateAddDuration() throws TransformerException {
+        return fDate1.add(fYearMonthDuration);
+    }
+
+    @Benchmark
+    public XSTime timeParse() throws TransformerException {
+        return XSTime.parseTime(TIME_STR);
+    }
+
+    @Benchmark
+    public ResultSequence timeCast() throws TransformerException {
+        return fTime1.constructor(fTimeCastArg);
+    }
+
+    @Benchmark
+    public String timeStringValue() {
+        return fTime1.stringValue();
+    }
+
+    @Benchmark
+    public void timeCompare(Blackhole bh) {
+        bh.consume(fTime1.equals(fTime2));
+        bh.consume(fTime1.lt(fTime2));
+        bh.consume(fTime1.gt(fTime2));
+    }
+
+    @Benchmark
+    public XObject timeAddDuration() throws TransformerException {
+        return fTime1.add(fDayTimeDuration);
+    }
+
+}
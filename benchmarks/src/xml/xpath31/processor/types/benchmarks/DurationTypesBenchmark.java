@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.TransformerException;
+
+import org.apache.xpath.objects.ResultSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import xml.xpath31.processor.types.XSDayTimeDuration;
+import xml.xpath31.processor.types.XSDouble;
+import xml.xpath31.processor.types.XSDuration;
+import xml.xpath31.processor.types.XSString;
+import xml.xpath31.processor.types.XSYearMonthDuration;
+
+/**
+ * JMH benchmarks for the XML Schema duration types xs:duration,
+ * xs:dayTimeDuration and xs:yearMonthDuration.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DurationTypesBenchmark {
+
+    private static final String DURATION_STR = "P1Y2M3DT4H5M6.5S";
+
+    private static final String DAY_TIME_DURATION_STR = "P3DT4H5M6.5S";
+
+    private static final String YEAR_MONTH_DURATION_STR = "P1Y2M";
+
+    private XSDuration fDuration1;
+    private XSDuration fDuration2;
+    private ResultSequence fDurationCastArg;
+
+    private XSDayTimeDuration fDayTimeDuration1;
+    private XSDayTimeDuration fDayTimeDuration2;
+    private ResultSequence fDayTimeDurationCastArg;
+
+    private XSYearMonthDuration fYearMonthDuration1;
+    private XSYearMonthDuration fYearMonthDuration2;
+    private ResultSequence fYearMonthDurationCastArg;
+
+    private XSDouble fMultiplier;
+
+    @Setup
+    public void setup() throws TransformerException {
+        fDuration1 = XSDuration.parseDuration(DURATION_STR);
+        fDuration2 = XSDuration.parseDuration("P1Y2M3DT4H5M7S");
+        fDurationCastArg = BenchmarkUtil.singleton(new XSString(DURATION_STR));
+
+        fDayTimeDuration1 = new XSDayTimeDuration(3, 4, 5, 6.5, false);
+        fDayTimeDuration2 = new XSDayTimeDuration(0, 30, 0, 0, false);
+        fDayTimeDurationCastArg = BenchmarkUtil.singleton(new XSString(DAY_TIME_DURATION_STR));
+
+        fYearMonthDuration1 = new XSYearMonthDuration(1, 2, false);
+        fYearMonthDuration2 = new XSYearMonthDuration(0, 15, false);
+        fYearMonthDurationCastArg = BenchmarkUtil.singleton(new XSString(YEAR_MONTH_DURATION_STR));
+
+        fMultiplier = new XSDouble(2.5);
+    }
+
+    @Benchmark
+    public XSDuration durationParse() throws TransformerException {
+        return XSDuration.parseDuration(DURATION_STR);
+    }
+
+    @Benchmark
+    public ResultSequence durationCast() throws TransformerException {
+        return fDuration1.constructor(fDurationCastArg);
+    }
+
+    @Benchmark
+    public String durationStringValue() {
+        return fDuration1.stringValue();
+    }
+
+    @Benchmark
+    public void durationCompare(Blackhole bh) {
+        bh.consume(fDuration1.equals(fDuration2));
+        bh.consume(fDuration1.lt(fDuration2));
+        bh.consume(fDuration1.gt(fDuration2));
+    }
+
+    @Benchmark
+    public XSDuration dayTimeDurationParse() throws TransformerException {
+        return XSDayTimeDuration.parseDayTimeDuration(DAY_TIME_DURATION_STR);
+    }
+
+    @Benchmark
+    public ResultSequence dayTimeDurationCast() throws TransformerException {
+        return fDayTimeDuration1.constructor(fDayTimeDurationCastArg);
+    }
+
+    @Benchmark
+    public String dayTimeDurationStringValue() {
+        return fDayTimeDuration1.stringValue();
+    }
+
+    @Benchmark
+    public void dayTimeDurationCompare(Blackhole bh) {
+        bh.consume(fDayTimeDuration1.equals(fDayTimeDuration2));
+        bh.consume(fDayTimeDuration1.lt(fDayTimeDuration2));
+        bh.consume(fDayTimeDuration1.gt(fDayTimeDuration2));
+    }
+
+    @Benchmark
+    public void dayTimeDurationArithmetic(Blackhole bh) throws TransformerException {
+        bh.consume(fDayTimeDuration1.add(fDayTimeDuration2));
+        bh.consume(fDayTimeDuration1.subtract(fDayTimeDuration2));
+        bh.consume(fDayTimeDuration1.mult(fMultiplier));
+        bh.consume(fDayTimeDuration1.div(fMultiplier));
+    }
+
+    @Benchmark
+    public XSDuration yearMonthDurationParse() throws TransformerException {
+        return XSYearMonthDuration.parseYearMonthDuration(YEAR_MONTH_DURATION_STR);
+    }
+
+    @Benchmark
+    public ResultSequence yearMonthDurationCast() throws TransformerException {
+        return fYearMonthDuration1.constructor(fYearMonthDurationCastArg);
+    }
+
+    @Benchmark
+    public String yearMonthDurationStringValue() {
+        return fYearMonthDuration1.stringValue();
+    }
+
+    @Benchmark
+    public void yearMonthDurationCompare(Blackhole bh) {
+        bh.consume(fYearMonthDuration1.equals(fYearMonthDuration2));
+        bh.consume(fYearMonthDuration1.lt(fYearMonthDuration2));
+        bh.consume(fYearMonthDuration1.gt(fYearMonthDuration2));
+    }
+
+    @Benchmark
+    public void yearMonthDurationArithmetic(Blackhole bh) throws TransformerException {
+        bh.consume(fYearMonthDuration1.add(fYearMonthDuration2));
+        bh.consume(fYearMonthDuration1.subtract(fYearMonthDuration2));
+        bh.consume(fYearMonthDuration1.mult(fMultiplier));
+        bh.consume(fYearMonthDuration1.div(fMultiplier));
+    }
+
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.TransformerException;
+
+import org.apache.xpath.objects.ResultSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import xml.xpath31.processor.types.XSDecimal;
+import xml.xpath31.processor.types.XSDouble;
+import xml.xpath31.processor.types.XSFloat;
+import xml.xpath31.processor.types.XSInteger;
+import xml.xpath31.processor.types.XSString;
+
+/**
+ * JMH benchmarks for the XML Schema numeric types xs:integer,
+ * xs:decimal, xs:double and xs:float.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumericTypesBenchmark {
+
+    private XSInteger fInteger1;
+    private XSInteger fInteger2;
+    private ResultSequence fIntegerCastArg;
+    private XSString fIntegerCastValue;
+
+    private XSDecimal fDecimal1;
+    private XSDecimal fDecimal2;
+    private ResultSequence fDecimalCastArg;
+
+    private XSDouble fDouble1;
+    private XSDouble fDouble2;
+    private ResultSequence fDoubleCastArg;
+    private XSString fDoubleCastValue;
+
+    private XSFloat fFloat1;
+    private XSFloat fFloat2;
+    private ResultSequence fFloatCastArg;
+
+    @Setup
+    public void setup() throws TransformerException {
+        fInteger1 = new XSInteger("1234567");
+        fInteger2 = new XSInteger("7654321");
+        fIntegerCastValue = new XSString("98765");
+        fIntegerCastArg = BenchmarkUtil.singleton(fIntegerCastValue);
+
+        fDecimal1 = new XSDecimal("12345.6789");
+        fDecimal2 = new XSDecimal("98765.4321");
+        fDecimalCastArg = BenchmarkUtil.singleton(new XSString("1049.95"));
+
+        fDouble1 = new XSDouble(12345.6789);
+        fDouble2 = new XSDouble(1.25E8);
+        fDoubleCastValue = new XSString("3.14159");
+        fDoubleCastArg = BenchmarkUtil.singleton(fDoubleCastValue);
+
+        fFloat1 = new XSFloat(12.5f);
+        fFloat2 = new XSFloat(3.75E7f);
+        fFloatCastArg = BenchmarkUtil.singleton(new XSString("2.71828"));
+    }
+
+    @Benchmark
+    public XSInteger integerConstruct() {
+        return new XSInteger("1234567");
+    }
+
+    @Benchmark
+    public ResultSequence integerCast() throws TransformerException {
+        return fInteger1.constructor(fIntegerCastArg);
+    }
+
+    @Benchmark
+    public XSInteger integerSingleItemCast() throws TransformerException {
+        return fInteger1.cast(fIntegerCastValue);
+    }
+
+    @Benchmark
+    public String integerStringValue() {
+        return fInteger1.stringValue();
+    }
+
+    @Benchmark
+    public void integerCompare(Blackhole bh) {
+        bh.consume(fInteger1.equals(fInteger2));
+        bh.consume(fInteger1.lt(fInteger2));
+        bh.consume(fInteger1.gt(fInteger2));
+    }
+
+    @Benchmark
+    public XSInteger integerMultiply() {
+        return fInteger1.multiply(fInteger2);
+    }
+
+    @Benchmark
+    public XSDecimal decimalConstruct() {
+        return new XSDecimal("12345.6789");
+    }
+
+    @Benchmark
+    public ResultSequence decimalCast() throws TransformerException {
+        return fDecimal1.constructor(fDecimalCastArg);
+    }
+
+    @Benchmark
+    public String decimalStringValue() {
+        return fDecimal1.stringValue();
+    }
+
+    @Benchmark
+    public void decimalCompare(Blackhole bh) {
+        bh.consume(fDecimal1.equals(fDecimal2));
+        bh.consume(fDecimal1.lt(fDecimal2));
+        bh.consume(fDecimal1.gt(fDecimal2));
+    }
+
+    @Benchmark
+    public XSDouble doubleConstruct() throws TransformerException {
+        return new XSDouble("12345.6789");
+    }
+
+    @Benchmark
+    public ResultSequence doubleCast() throws TransformerException {
+        return fDouble1.constructor(fDoubleCastArg);
+    }
+
+    @Benchmark
+    public XSDouble doubleSingleItemCast() throws TransformerException {
+        return fDouble1.cast(fDoubleCastValue);
+    }
+
+    @Benchmark
+    public void doubleStringValue(Blackhole bh) {
+        bh.consume(fDouble1.stringValue());
+        bh.consume(fDouble2.stringValue());
+    }
+
+    @Benchmark
+    public void doubleCompare(Blackhole bh) {
+        bh.consume(fDouble1.equals(fDouble2));
+        bh.consume(fDouble1.lt(fDouble2));
+        bh.consume(fDouble1.gt(fDouble2));
+    }
+
+    @Benchmark
+    public XSFloat floatConstruct() {
+        return new XSFloat("12.5");
+    }
+
+    @Benchmark
+    public ResultSequence floatCast() throws TransformerException {
+        return fFloat1.constructor(fFloatCastArg);
+    }
+
+    @Benchmark
+    public void floatStringValue(Blackhole bh) {
+        bh.consume(fFloat1.stringValue());
+        bh.consume(fFloat2.stringValue());
+    }
+
+    @Benchmark
+    public void floatCompare(Blackhole bh) {
+        bh.consume(fFloat1.equals(fFloat2));
+        bh.consume(fFloat1.lt(fFloat2));
+        bh.consume(fFloat1.gt(fFloat2));
+    }
+
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.TransformerException;
+
+import org.apache.xpath.objects.ResultSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import xml.xpath31.processor.types.XSInteger;
+import xml.xpath31.processor.types.XSQName;
+import xml.xpath31.processor.types.XSString;
+
+/**
+ * JMH benchmarks for the XML Schema types xs:string and xs:QName.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StringTypesBenchmark {
+
+    private XSString fString1;
+    private XSString fString2;
+    private ResultSequence fStringCastArg;
+
+    private XSQName fQName1;
+    private XSQName fQName2;
+    private ResultSequence fQNameCastArg;
+
+    @Setup
+    public void setup() {
+        fString1 = new XSString("https://www.example.com/catalogue/products/item-000123");
+        fString2 = new XSString("https://www.example.com/catalogue/products/item-000124");
+        fStringCastArg = BenchmarkUtil.singleton(new XSInteger("1234567"));
+
+        fQName1 = new XSQName("xsl", "template", "http://www.w3.org/1999/XSL/Transform");
+        fQName2 = new XSQName("xsl", "template", "http://www.w3.org/1999/XSL/Transform");
+        fQNameCastArg = BenchmarkUtil.singleton(new XSString("xsl:template"));
+    }
+
+    @Benchmark
+    public XSString stringConstruct() {
+        return new XSString("https://www.example.com/catalogue/products/item-000123");
+    }
+
+    @Benchmark
+    public ResultSequence stringCast() throws TransformerException {
+        return fString1.constructor(fStringCastArg);
+    }
+
+    @Benchmark
+    public String stringStringValue() {
+        return fString1.stringValue();
+    }
+
+    @Benchmark
+    public void stringCompare(Blackhole bh) throws TransformerException {
+        bh.consume(fString1.equals(fString2));
+        bh.consume(fString1.lt(fString2));
+        bh.consume(fString1.gt(fString2));
+    }
+
+    @Benchmark
+    public XSQName qnameConstruct() {
+        return XSQName.parseQName("xsl:template");
+    }
+
+    @Benchmark
+    public ResultSequence qnameCast() throws TransformerException {
+        return fQName1.constructor(fQNameCastArg);
+    }
+
+    @Benchmark
+    public String qnameStringValue() {
+        return fQName1.stringValue();
+    }
+
+    @Benchmark
+    public void qnameCompare(Blackhole bh) {
+        bh.consume(fQName1.equals(fQName2));
+        bh.consume(fQName1.hashCode());
+    }
+
+}
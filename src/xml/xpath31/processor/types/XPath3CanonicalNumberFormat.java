@@ -0,0 +1,438 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types;
+
+import java.math.BigDecimal;
+
+import org.apache.xml.utils.FastStringBuffer;
+
+/**
+ * This class implements the XPath 3.1 rules, for casting the numeric
+ * values of types xs:decimal, xs:double and xs:float to xs:string.
+ *
+ * Ref : https://www.w3.org/TR/xpath-functions-31/#casting-to-string
+ *
+ * The methods of this class are stateless, and may be used concurrently
+ * by many threads. The append methods, write the canonical string
+ * representation of a numeric value into a caller supplied buffer. The
+ * digits of the xs:decimal values are written directly to the buffer,
+ * whereas the significant digits of the xs:double and xs:float values are
+ * obtained from the methods Double.toString and Float.toString (which
+ * produce the shortest sequence of digits, that uniquely distinguishes a
+ * value).
+ *
+ * @xsl.usage advanced
+ */
+public final class XPath3CanonicalNumberFormat {
+
+    private static final String NAN = "NaN";
+
+    private static final String POS_INFINITY = "INF";
+
+    private static final String NEG_INFINITY = "-INF";
+
+    // xs:double and xs:float values, whose absolute value is within this range
+    // are cast to xs:string via xs:decimal. Other values use the exponential
+    // notation, as specified by XPath 3.1 F&O spec.
+    private static final double DECIMAL_FORM_LOWER_BOUND = 1.0E-6;
+
+    private static final double DECIMAL_FORM_UPPER_BOUND = 1.0E6;
+
+    // the powers of 10, that are within the range of Java long type
+    private static final long[] LONG_TEN_POWERS = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L,
+                                                     10000000L, 100000000L, 1000000000L, 10000000000L,
+                                                     100000000000L, 1000000000000L, 10000000000000L,
+                                                     100000000000000L, 1000000000000000L,
+                                                     10000000000000000L, 100000000000000000L,
+                                                     1000000000000000000L };
+
+    private XPath3CanonicalNumberFormat() {
+       // no op
+    }
+
+    /**
+     * Get the XPath 3.1 string representation, of an xs:double value.
+     *
+     * @param value    the xs:double value
+     *
+     * @return         the string representation of the supplied value
+     */
+    public static String formatDouble(double value) {
+       String strVal = getSpecialValueString(value);
+
+       if (strVal == null) {
+          double absValue = Math.abs(value);
+          if ((absValue < DECIMAL_FORM_UPPER_BOUND) && (value == (long)value)) {
+             strVal = Long.toString((long)value);
+          }
+          else {
+             FastStringBuffer fsb = new FastStringBuffer(XSCtrType.STRING_VALUE_CHUNK_BITS);
+             appendDigits(Double.toString(value), isDecimalForm(absValue), fsb);
+             strVal = fsb.toString();
+          }
+       }
+
+       return strVal;
+    }
+
+    /**
+     * Append the XPath 3.1 string representation of an xs:double value,
+     * to the supplied buffer.
+     *
+     * @param value     the xs:double value
+     * @param fsb       the buffer, to which the string representation
+     *                  is appended
+     */
+    public static void appendDouble(double value, FastStringBuffer fsb) {
+       String strVal = getSpecialValueString(value);
+
+       if (strVal != null) {
+          fsb.append(strVal);
+       }
+       else {
+          double absValue = Math.abs(value);
+          if ((absValue < DECIMAL_FORM_UPPER_BOUND) && (value == (long)value)) {
+             XSCtrType.appendDigits(fsb, (long)value, 1);
+          }
+          else {
+             appendDigits(Double.toString(value), isDecimalForm(absValue), fsb);
+          }
+       }
+    }
+
+    /**
+     * Get the XPath 3.1 string representation, of an xs:float value.
+     *
+     * @param value    the xs:float value
+     *
+     * @return         the string representation of the supplied value
+     */
+    public static String formatFloat(float value) {
+       String strVal = getSpecialValueString(value);
+
+       if (strVal == null) {
+          double absValue = Math.abs((double)value);
+          if ((absValue < DECIMAL_FORM_UPPER_BOUND) && (value == (long)value)) {
+             strVal = Long.toString((long)value);
+          }
+          else {
+             FastStringBuffer fsb = new FastStringBuffer(XSCtrType.STRING_VALUE_CHUNK_BITS);
+             appendDigits(Float.toString(value), isDecimalForm(absValue), fsb);
+             strVal = fsb.toString();
+          }
+       }
+
+       return strVal;
+    }
+
+    /**
+     * Append the XPath 3.1 string representation of an xs:float value,
+     * to the supplied buffer.
+     *
+     * @param value     the xs:float value
+     * @param fsb       the buffer, to which the string representation
+     *                  is appended
+     */
+    public static void appendFloat(float value, FastStringBuffer fsb) {
+       String strVal = getSpecialValueString(value);
+
+       if (strVal != null) {
+          fsb.append(strVal);
+       }
+       else {
+          double absValue = Math.abs((double)value);
+          if ((absValue < DECIMAL_FORM_UPPER_BOUND) && (value == (long)value)) {
+             XSCtrType.appendDigits(fsb, (long)value, 1);
+          }
+          else {
+             appendDigits(Float.toString(value), isDecimalForm(absValue), fsb);
+          }
+       }
+    }
+
+    /**
+     * Get the XPath 3.1 string representation, of an xs:decimal value.
+     *
+     * @param value    the xs:decimal value
+     *
+     * @return         the string representation of the supplied value
+     */
+    public static String formatDecimal(BigDecimal value) {
+       if ((value.signum() == 0) || (value.scale() == 0)) {
+          return (value.signum() == 0) ? "0" : (value.unscaledValue()).toString();
+       }
+
+       FastStringBuffer fsb = new FastStringBuffer(XSCtrType.STRING_VALUE_CHUNK_BITS);
+       appendDecimal(value, fsb);
+
+       return fsb.toString();
+    }
+
+    /**
+     * Append the XPath 3.1 string representation of an xs:decimal value,
+     * to the supplied buffer.
+     *
+     * @param value     the xs:decimal value
+     * @param fsb       the buffer, to which the string representation
+     *                  is appended
+     */
+    public static void appendDecimal(BigDecimal value, FastStringBuffer fsb) {
+       if (value.signum() == 0) {
+          fsb.append('0');
+          return;
+       }
+
+       if (((value.unscaledValue()).bitLength() < 63) && (value.scale() >= 0)) {
+          appendDecimal((value.unscaledValue()).longValue(), value.scale(), fsb);
+          return;
+       }
+
+       String unscaledStr = (value.unscaledValue()).toString();
+
+       int start = 0;
+       if (value.signum() < 0) {
+          fsb.append('-');
+          start = 1;
+       }
+
+       // position of the decimal point, relative to the first digit
+       int pointPos = (unscaledStr.length() - start) - value.scale();
+
+       appendDecimalLayout(unscaledStr, start, unscaledStr.length(), pointPos, fsb);
+    }
+
+    /**
+     * Get the XPath 3.1 string representation, of an xs:decimal value
+     * having the value unscaledValue * 10^-scale.
+     *
+     * @param unscaledValue    the unscaled value of the xs:decimal value
+     * @param scale            the scale of the xs:decimal value
+     *
+     * @return                 the string representation of the supplied value
+     */
+    public static String formatDecimal(long unscaledValue, int scale) {
+       if ((unscaledValue == 0) || (scale == 0)) {
+          return Long.toString(unscaledValue);
+       }
+
+       FastStringBuffer fsb = new FastStringBuffer(XSCtrType.STRING_VALUE_CHUNK_BITS);
+       appendDecimal(unscaledValue, scale, fsb);
+
+       return fsb.toString();
+    }
+
+    /**
+     * Append the XPath 3.1 string representation of an xs:decimal value
+     * having the value unscaledValue * 10^-scale, to the supplied buffer.
+     *
+     * @param unscaledValue    the unscaled value of the xs:decimal value
+     * @param scale            the scale of the xs:decimal value
+     * @param fsb              the buffer, to which the string representation
+     *                         is appended
+     */
+    public static void appendDecimal(long unscaledValue, int scale, FastStringBuffer fsb) {
+       if ((unscaledValue == Long.MIN_VALUE) || (scale < 0)) {
+          // the absolute value, or the scaled up value may not fit within a Java long
+          appendDecimal(BigDecimal.valueOf(unscaledValue, scale), fsb);
+          return;
+       }
+
+       if (unscaledValue < 0) {
+          fsb.append('-');
+       }
+       long absValue = Math.abs(unscaledValue);
+
+       // the trailing zeros after the decimal point are not significant
+       while ((scale > 0) && ((absValue % 10) == 0)) {
+          absValue /= 10;
+          scale--;
+       }
+
+       if (scale == 0) {
+          XSCtrType.appendDigits(fsb, absValue, 1);
+       }
+       else if (scale < LONG_TEN_POWERS.length) {
+          XSCtrType.appendDigits(fsb, absValue / LONG_TEN_POWERS[scale], 1);
+          fsb.append('.');
+          XSCtrType.appendDigits(fsb, absValue % LONG_TEN_POWERS[scale], scale);
+       }
+       else {
+          // the value is less than 1, since a Java long value has at most 19 digits
+          fsb.append('0');
+          fsb.append('.');
+          XSCtrType.appendDigits(fsb, absValue, scale);
+       }
+    }
+
+    /*
+     * Get the string representation of the values NaN, INF, -INF, 0 and -0.
+     * For all other values, this method returns null.
+     */
+    private static String getSpecialValueString(double value) {
+       String strVal = null;
+
+       if (Double.isNaN(value)) {
+          strVal = NAN;
+       }
+       else if (value == Double.POSITIVE_INFINITY) {
+          strVal = POS_INFINITY;
+       }
+       else if (value == Double.NEGATIVE_INFINITY) {
+          strVal = NEG_INFINITY;
+       }
+       else if (value == 0) {
+          strVal = ((Double.doubleToRawLongBits(value) < 0) ? "-0" : "0");
+       }
+
+       return strVal;
+    }
+
+    /*
+     * Check whether, an xs:double or xs:float value having the supplied absolute
+     * value is cast to xs:string via xs:decimal.
+     */
+    private static boolean isDecimalForm(double absValue) {
+       return (absValue >= DECIMAL_FORM_LOWER_BOUND) && (absValue < DECIMAL_FORM_UPPER_BOUND);
+    }
+
+    /*
+     * Given the string produced by Double.toString or Float.toString (that has the
+     * shortest sequence of decimal digits, that uniquely distinguishes the value),
+     * append the significant digits of the number to the supplied buffer, either in
+     * decimal form or in the exponential form as per XPath 3.1.
+     */
+    private static void appendDigits(String javaStr, boolean isDecimalForm, FastStringBuffer fsb) {
+       int start = 0;
+       if (javaStr.charAt(0) == '-') {
+          fsb.append('-');
+          start = 1;
+       }
+
+       int end = javaStr.indexOf('E');
+       int exponent = 0;
+       if (end == -1) {
+          end = javaStr.length();
+       }
+       else {
+          exponent = parseExponent(javaStr, end + 1);
+       }
+
+       int dotIdx = javaStr.indexOf('.', start);
+       if (dotIdx == -1) {
+          dotIdx = end;
+       }
+
+       // skip the leading zeros
+       int first = start;
+       while ((first < end) && ((javaStr.charAt(first) == '0') || (javaStr.charAt(first) == '.'))) {
+          first++;
+       }
+
+       // skip the trailing zeros
+       int last = end;
+       while ((last > first) && ((javaStr.charAt(last - 1) == '0') || (javaStr.charAt(last - 1) == '.'))) {
+          last--;
+       }
+
+       // position of the decimal point, relative to the first significant digit
+       int pointPos = (first < dotIdx) ? (dotIdx - first) : (dotIdx - first + 1);
+       pointPos += exponent;
+
+       if (isDecimalForm) {
+          appendDecimalLayout(javaStr, first, last, pointPos, fsb);
+       }
+       else {
+          int digitIdx = first;
+          fsb.append(javaStr.charAt(digitIdx++));
+          fsb.append('.');
+          if (digitIdx == last) {
+             fsb.append('0');
+          }
+          else {
+             for (; digitIdx < last; digitIdx++) {
+                char chr = javaStr.charAt(digitIdx);
+                if (chr != '.') {
+                   fsb.append(chr);
+                }
+             }
+          }
+          fsb.append('E');
+          XSCtrType.appendDigits(fsb, pointPos - 1, 1);
+       }
+    }
+
+    /*
+     * Append the significant digits within chars [first, last) of the supplied
+     * string (skipping any '.' character within them), with a decimal point placed
+     * after 'pointPos' digits. No trailing zeros after the decimal point, and no
+     * decimal point for an integral value, are written.
+     */
+    private static void appendDecimalLayout(String digitStr, int first, int last, int pointPos,
+                                                                               FastStringBuffer fsb) {
+       // trailing zeros are not significant, after the decimal point
+       int digitCount = 0;
+       int lastNonZero = first;
+       for (int idx = first; idx < last; idx++) {
+          char chr = digitStr.charAt(idx);
+          if (chr != '.') {
+             digitCount++;
+             if ((chr != '0') || (digitCount <= pointPos)) {
+                lastNonZero = idx + 1;
+             }
+          }
+       }
+
+       if (pointPos <= 0) {
+          fsb.append("0.");
+          for (int idx = pointPos; idx < 0; idx++) {
+             fsb.append('0');
+          }
+          pointPos = -1;
+       }
+
+       int digitIdx = 0;
+       for (int idx = first; idx < lastNonZero; idx++) {
+          char chr = digitStr.charAt(idx);
+          if (chr != '.') {
+             if (digitIdx == pointPos) {
+                fsb.append('.');
+             }
+             fsb.append(chr);
+             digitIdx++;
+          }
+       }
+
+       for (; digitIdx < pointPos; digitIdx++) {
+          fsb.append('0');
+       }
+    }
+
+    /*
+     * Parse the decimal exponent, that starts at the specified position
+     * within the supplied string.
+     */
+    private static int parseExponent(String javaStr, int idx) {
+       boolean isNegative = false;
+       if (javaStr.charAt(idx) == '-') {
+          isNegative = true;
+          idx++;
+       }
+
+       int exponent = 0;
+       for (; idx < javaStr.length(); idx++) {
+          exponent = (exponent * 10) + (javaStr.charAt(idx) - '0');
+       }
+
+       return isNegative ? -exponent : exponent;
+    }
+
+}
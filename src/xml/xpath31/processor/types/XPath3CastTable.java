@@ -0,0 +1,519 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types;
+
+import java.math.BigDecimal;
+
+import javax.xml.transform.TransformerException;
+
+import org.apache.xpath.objects.XObject;
+
+/**
+ * The cast table of the XML Schema atomic types, as specified by the
+ * section "Casting" of XPath 3.1 F&O spec.
+ *
+ * There's a method of this class for each target type. Each of these
+ * methods dispatches on the class code (i.e, the value returned by the
+ * method getType()) of the source value. When the source type has a direct
+ * value conversion to the target type, the value is converted without
+ * constructing its string representation. The source value is converted
+ * to a string and parsed only when the source type is xs:string,
+ * xs:untypedAtomic or another type, for which the spec defines the cast
+ * in terms of the lexical representation.
+ *
+ * Since the XML Schema atomic type objects are immutable, a source value
+ * whose type is same as the target type is returned as it is.
+ *
+ * @xsl.usage advanced
+ */
+final class XPath3CastTable {
+
+    // the value 2^63 as a double value. The double values within the open
+    // interval (-2^63, 2^63), are converted to a long value without an
+    // overflow.
+    private static final double TWO_POWER_63 = 9.223372036854775808E18;
+
+    /*
+     * Class constructor.
+     */
+    private XPath3CastTable() {
+       // there are no objects of this class
+    }
+
+    /**
+     * Cast a value to the type xs:decimal.
+     *
+     * @throws NumberFormatException    if the supplied value cannot be cast
+     *                                  to a xs:decimal value.
+     */
+    static XSDecimal castToDecimal(XSAnyType xsAnyType) {
+       XSDecimal xsDecimal = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_DECIMAL :
+             xsDecimal = (XSDecimal)xsAnyType;
+             break;
+          case XObject.CLASS_XS_INTEGER :
+          case XObject.CLASS_XS_LONG :
+          case XObject.CLASS_XS_INT :
+             XSDecimal srcDecimal = (XSDecimal)xsAnyType;
+             xsDecimal = srcDecimal.isCompactValue() ? new XSDecimal(srcDecimal.getUnscaledValue(),
+                                                                       srcDecimal.getCompactScale()) :
+                                                                       new XSDecimal(srcDecimal.getValue());
+             break;
+          case XObject.CLASS_XS_DOUBLE :
+             double doubleValue = ((XSDouble)xsAnyType).doubleValue();
+             if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+                throw new NumberFormatException("The xs:double value " + xsAnyType.stringValue() + " cannot be "
+                                                                                               + "cast to xs:decimal.");
+             }
+             // java.math.BigDecimal.valueOf returns the shortest decimal value,
+             // that uniquely distinguishes the double value.
+             xsDecimal = new XSDecimal(BigDecimal.valueOf(doubleValue));
+             break;
+          case XObject.CLASS_XS_FLOAT :
+             float floatValue = ((XSFloat)xsAnyType).floatValue();
+             if (Float.isNaN(floatValue) || Float.isInfinite(floatValue)) {
+                throw new NumberFormatException("The xs:float value " + xsAnyType.stringValue() + " cannot be "
+                                                                                              + "cast to xs:decimal.");
+             }
+             xsDecimal = new XSDecimal(new BigDecimal(Float.toString(floatValue)));
+             break;
+          case XObject.CLASS_BOOLEAN :
+             xsDecimal = ((XSBoolean)xsAnyType).value() ? XSDecimal.DECIMAL_ONE : 
+                                                                  XSDecimal.DECIMAL_ZERO;
+             break;
+          default :
+             xsDecimal = XSDecimal.tryParseDecimal(xsAnyType.stringValue());
+             if (xsDecimal == null) {
+                throw new NumberFormatException("The value " + xsAnyType.stringValue() + " cannot be cast "
+                                                                                            + "to xs:decimal.");
+             }
+       }
+
+       return xsDecimal;
+    }
+
+    /**
+     * Cast a value to the type xs:integer.
+     *
+     * @throws NumberFormatException    if the supplied value cannot be cast
+     *                                  to a xs:integer value.
+     */
+    static XSInteger castToInteger(XSAnyType xsAnyType) {
+       XSInteger xsInteger = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_INTEGER :
+             xsInteger = (XSInteger)xsAnyType;
+             break;
+          case XObject.CLASS_XS_LONG :
+          case XObject.CLASS_XS_INT :
+          case XObject.CLASS_XS_DECIMAL :
+          case XObject.CLASS_XS_DOUBLE :
+          case XObject.CLASS_XS_FLOAT :
+          case XObject.CLASS_BOOLEAN :
+             xsInteger = numericToInteger(xsAnyType);
+             if (xsInteger == null) {
+                throw new NumberFormatException("The value " + xsAnyType.stringValue() + " cannot be cast "
+                                                                                            + "to xs:integer.");
+             }
+             break;
+          default :
+             xsInteger = XSInteger.tryParseInteger(xsAnyType.stringValue());
+             if (xsInteger == null) {
+                throw new NumberFormatException("The value " + xsAnyType.stringValue() + " cannot be cast "
+                                                                                            + "to xs:integer.");
+             }
+       }
+
+       return xsInteger;
+    }
+
+    /**
+     * Cast a value to the type xs:long.
+     *
+     * @return    the xs:long value, or null if the supplied value cannot be
+     *            cast to a xs:long value.
+     */
+    static XSLong castToLong(XSAnyType xsAnyType) {
+       XSLong xsLong = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_LONG :
+             xsLong = (XSLong)xsAnyType;
+             break;
+          case XObject.CLASS_XS_INT :
+          case XObject.CLASS_XS_INTEGER :
+          case XObject.CLASS_XS_DECIMAL :
+          case XObject.CLASS_XS_DOUBLE :
+          case XObject.CLASS_XS_FLOAT :
+          case XObject.CLASS_BOOLEAN :
+             XSInteger xsInteger = numericToInteger(xsAnyType);
+             if ((xsInteger != null) && xsInteger.isLongValue()) {
+                xsLong = new XSLong(xsInteger.longValue());
+             }
+             break;
+          default :
+             xsLong = XSLong.tryParseLong(xsAnyType.stringValue());
+       }
+
+       return xsLong;
+    }
+
+    /**
+     * Cast a value to the type xs:int.
+     *
+     * @return    the xs:int value, or null if the supplied value cannot be
+     *            cast to a xs:int value.
+     */
+    static XSInt castToInt(XSAnyType xsAnyType) {
+       XSInt xsInt = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_INT :
+             xsInt = (XSInt)xsAnyType;
+             break;
+          case XObject.CLASS_XS_LONG :
+          case XObject.CLASS_XS_INTEGER :
+          case XObject.CLASS_XS_DECIMAL :
+          case XObject.CLASS_XS_DOUBLE :
+          case XObject.CLASS_XS_FLOAT :
+          case XObject.CLASS_BOOLEAN :
+             XSInteger xsInteger = numericToInteger(xsAnyType);
+             if ((xsInteger != null) && xsInteger.isLongValue() &&
+                                                  (xsInteger.longValue() >= Integer.MIN_VALUE) &&
+                                                  (xsInteger.longValue() <= Integer.MAX_VALUE)) {
+                xsInt = new XSInt((int)xsInteger.longValue());
+             }
+             break;
+          default :
+             xsInt = XSInt.tryParseInt(xsAnyType.stringValue());
+       }
+
+       return xsInt;
+    }
+
+    /**
+     * Cast a value to the type xs:double.
+     *
+     * @throws TransformerException
+     */
+    static XSDouble castToDouble(XSAnyType xsAnyType) throws TransformerException {
+       XSDouble xsDouble = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_DOUBLE :
+             xsDouble = (XSDouble)xsAnyType;
+             break;
+          case XObject.CLASS_XS_FLOAT :
+             xsDouble = new XSDouble((double)((XSFloat)xsAnyType).floatValue());
+             break;
+          case XObject.CLASS_XS_DECIMAL :
+          case XObject.CLASS_XS_INTEGER :
+          case XObject.CLASS_XS_LONG :
+          case XObject.CLASS_XS_INT :
+             // the method doubleValue returns the double value, that is
+             // nearest to the decimal value.
+             xsDouble = new XSDouble(((XSDecimal)xsAnyType).doubleValue());
+             break;
+          case XObject.CLASS_BOOLEAN :
+             xsDouble = new XSDouble(((XSBoolean)xsAnyType).value() ? 1.0E0 : 0.0E0);
+             break;
+          default :
+             xsDouble = XSDouble.parseDouble(xsAnyType.stringValue());
+       }
+
+       return xsDouble;
+    }
+
+    /**
+     * Cast a value to the type xs:float.
+     *
+     * @return    the xs:float value, or null if the supplied value cannot be
+     *            cast to a xs:float value.
+     */
+    static XSFloat castToFloat(XSAnyType xsAnyType) {
+       XSFloat xsFloat = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_FLOAT :
+             xsFloat = (XSFloat)xsAnyType;
+             break;
+          case XObject.CLASS_XS_DOUBLE :
+             xsFloat = new XSFloat((float)((XSDouble)xsAnyType).doubleValue());
+             break;
+          case XObject.CLASS_XS_DECIMAL :
+          case XObject.CLASS_XS_INTEGER :
+          case XObject.CLASS_XS_LONG :
+          case XObject.CLASS_XS_INT :
+             XSDecimal xsDecimal = (XSDecimal)xsAnyType;
+             // a long value is rounded to the nearest float value. The value is
+             // not converted via a double value, since that could round twice.
+             xsFloat = (xsDecimal.isCompactValue() && (xsDecimal.getCompactScale() == 0)) ?
+                                                          new XSFloat((float)xsDecimal.getUnscaledValue()) :
+                                                          new XSFloat((xsDecimal.getValue()).floatValue());
+             break;
+          case XObject.CLASS_BOOLEAN :
+             xsFloat = new XSFloat(((XSBoolean)xsAnyType).value() ? 1.0E0f : 0.0E0f);
+             break;
+          default :
+             xsFloat = XSFloat.tryParseFloat(xsAnyType.stringValue());
+       }
+
+       return xsFloat;
+    }
+
+    /**
+     * Cast a value to the type xs:boolean.
+     *
+     * @throws TransformerException
+     */
+    static XSBoolean castToBoolean(XSAnyType xsAnyType) throws TransformerException {
+       XSBoolean xsBoolean = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_BOOLEAN :
+             xsBoolean = (XSBoolean)xsAnyType;
+             break;
+          case XObject.CLASS_XS_DOUBLE :
+             double doubleValue = ((XSDouble)xsAnyType).doubleValue();
+             xsBoolean = XSBoolean.valueOf(!((doubleValue == 0) || Double.isNaN(doubleValue)));
+             break;
+          case XObject.CLASS_XS_FLOAT :
+             float floatValue = ((XSFloat)xsAnyType).floatValue();
+             xsBoolean = XSBoolean.valueOf(!((floatValue == 0) || Float.isNaN(floatValue)));
+             break;
+          case XObject.CLASS_XS_DECIMAL :
+          case XObject.CLASS_XS_INTEGER :
+          case XObject.CLASS_XS_LONG :
+          case XObject.CLASS_XS_INT :
+             xsBoolean = XSBoolean.valueOf(!((XSDecimal)xsAnyType).zero());
+             break;
+          default :
+             xsBoolean = XSBoolean.parseBoolean(xsAnyType.stringValue());
+       }
+
+       return xsBoolean;
+    }
+
+    /**
+     * Cast a value to the type xs:dateTime.
+     *
+     * @throws TransformerException
+     */
+    static XSDateTime castToDateTime(XSAnyType xsAnyType) throws TransformerException {
+       XSDateTime xsDateTime = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_DATETIME :
+             xsDateTime = (XSDateTime)xsAnyType;
+             break;
+          case XObject.CLASS_XS_DATE :
+             XSDate xsDate = (XSDate)xsAnyType;
+             xsDateTime = new XSDateTime(xsDate.year(), xsDate.month(), xsDate.day(), 0,
+                                                              xsDate.isDateTimezoned(), xsDate.timezoneOffset());
+             break;
+          default :
+             xsDateTime = XSDateTime.parseDateTime(xsAnyType.stringValue());
+       }
+
+       return xsDateTime;
+    }
+
+    /**
+     * Cast a value to the type xs:date.
+     *
+     * @throws TransformerException
+     */
+    static XSDate castToDate(XSAnyType xsAnyType) throws TransformerException {
+       XSDate xsDate = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_DATE :
+             xsDate = (XSDate)xsAnyType;
+             break;
+          case XObject.CLASS_XS_DATETIME :
+             XSDateTime xsDateTime = (XSDateTime)xsAnyType;
+             xsDate = new XSDate(xsDateTime.year(), xsDateTime.month(), xsDateTime.day(),
+                                                     xsDateTime.isDateTimeTimezoned(), xsDateTime.timezoneOffset());
+             break;
+          default :
+             xsDate = XSDate.parseDate(xsAnyType.stringValue());
+       }
+
+       return xsDate;
+    }
+
+    /**
+     * Cast a value to the type xs:time.
+     *
+     * @throws TransformerException
+     */
+    static XSTime castToTime(XSAnyType xsAnyType) throws TransformerException {
+       XSTime xsTime = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_TIME :
+             xsTime = (XSTime)xsAnyType;
+             break;
+          case XObject.CLASS_XS_DATETIME :
+             XSDateTime xsDateTime = (XSDateTime)xsAnyType;
+             xsTime = new XSTime(xsDateTime.nanoOfDay(), xsDateTime.isDateTimeTimezoned(),
+                                                                          xsDateTime.timezoneOffset());
+             break;
+          default :
+             xsTime = XSTime.parseTime(xsAnyType.stringValue());
+       }
+
+       return xsTime;
+    }
+
+    /**
+     * Cast a value to the type xs:duration.
+     *
+     * @throws TransformerException
+     */
+    static XSDuration castToDuration(XSAnyType xsAnyType) throws TransformerException {
+       XSDuration xsDuration = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_DURATION :
+             xsDuration = (XSDuration)xsAnyType;
+             break;
+          case XObject.CLASS_XS_DAYTIME_DURATION :
+          case XObject.CLASS_XS_YEARMONTH_DURATION :
+             XSDuration srcDuration = (XSDuration)xsAnyType;
+             xsDuration = new XSDuration(Math.abs((long)srcDuration.totalMonths()), Math.abs(srcDuration.totalSeconds()),
+                                         Math.abs((long)srcDuration.nanoOfSecond()), srcDuration.negative());
+             break;
+          default :
+             xsDuration = XSDuration.parseDuration(xsAnyType.stringValue());
+       }
+
+       return xsDuration;
+    }
+
+    /**
+     * Cast a value to the type xs:dayTimeDuration.
+     *
+     * @throws TransformerException
+     */
+    static XSDuration castToDayTimeDuration(XSAnyType xsAnyType) throws TransformerException {
+       XSDuration xsDuration = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_DAYTIME_DURATION :
+             xsDuration = (XSDuration)xsAnyType;
+             break;
+          case XObject.CLASS_XS_DURATION :
+          case XObject.CLASS_XS_YEARMONTH_DURATION :
+             XSDuration srcDuration = (XSDuration)xsAnyType;
+             xsDuration = new XSDayTimeDuration(Math.abs(srcDuration.totalSeconds()), 
+                                                Math.abs((long)srcDuration.nanoOfSecond()), srcDuration.negative());
+             break;
+          default :
+             xsDuration = XSDayTimeDuration.parseDayTimeDuration(xsAnyType.stringValue());
+       }
+
+       return xsDuration;
+    }
+
+    /**
+     * Cast a value to the type xs:yearMonthDuration.
+     *
+     * @throws TransformerException
+     */
+    static XSDuration castToYearMonthDuration(XSAnyType xsAnyType) throws TransformerException {
+       XSDuration xsDuration = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_YEARMONTH_DURATION :
+             xsDuration = (XSDuration)xsAnyType;
+             break;
+          case XObject.CLASS_XS_DURATION :
+          case XObject.CLASS_XS_DAYTIME_DURATION :
+             XSDuration srcDuration = (XSDuration)xsAnyType;
+             xsDuration = new XSYearMonthDuration(srcDuration.totalMonths());
+             break;
+          default :
+             xsDuration = XSYearMonthDuration.parseYearMonthDuration(xsAnyType.stringValue());
+       }
+
+       return xsDuration;
+    }
+
+    /*
+     * Convert a numeric or a xs:boolean value to an xs:integer value, by
+     * truncating the fractional part of the numeric value. This method
+     * returns null, if the numeric value is NaN or an infinity.
+     */
+    private static XSInteger numericToInteger(XSAnyType xsAnyType) {
+       XSInteger xsInteger = null;
+
+       switch (xsAnyType.getType()) {
+          case XObject.CLASS_XS_INTEGER :
+          case XObject.CLASS_XS_LONG :
+          case XObject.CLASS_XS_INT :
+             XSInteger srcInteger = (XSInteger)xsAnyType;
+             xsInteger = srcInteger.isLongValue() ? XSInteger.valueOf(srcInteger.longValue()) :
+                                                                  XSInteger.valueOf(srcInteger.intValue());
+             break;
+          case XObject.CLASS_XS_DECIMAL :
+             XSDecimal xsDecimal = (XSDecimal)xsAnyType;
+             if (xsDecimal.isCompactValue()) {
+                int scale = xsDecimal.getCompactScale();
+                // the unscaled value of the compact form has less than 19
+                // digits, and therefore the integer part is 0 for larger scales.
+                xsInteger = XSInteger.valueOf((scale < XSDecimal.LONG_TEN_POWERS.length) ?
+                                                     (xsDecimal.getUnscaledValue() / XSDecimal.LONG_TEN_POWERS[scale]) : 0L);
+             }
+             else {
+                xsInteger = XSInteger.valueOf((xsDecimal.getValue()).toBigInteger());
+             }
+             break;
+          case XObject.CLASS_XS_DOUBLE :
+             xsInteger = doubleToInteger(((XSDouble)xsAnyType).doubleValue());
+             break;
+          case XObject.CLASS_XS_FLOAT :
+             xsInteger = doubleToInteger(((XSFloat)xsAnyType).floatValue());
+             break;
+          case XObject.CLASS_BOOLEAN :
+             xsInteger = XSInteger.valueOf(((XSBoolean)xsAnyType).value() ? 1L : 0L);
+             break;
+          default :
+             // no other type is numeric
+       }
+
+       return xsInteger;
+    }
+
+    /*
+     * Convert a double value to an xs:integer value, by truncating its
+     * fractional part. This method returns null, if the double value is
+     * NaN or an infinity.
+     */
+    private static XSInteger doubleToInteger(double doubleValue) {
+       XSInteger xsInteger = null;
+
+       if ((doubleValue > -TWO_POWER_63) && (doubleValue < TWO_POWER_63)) {
+          // the Java narrowing conversion rounds towards zero
+          xsInteger = XSInteger.valueOf((long)doubleValue);
+       }
+       else if (!(Double.isNaN(doubleValue) || Double.isInfinite(doubleValue))) {
+          xsInteger = XSInteger.valueOf((new BigDecimal(doubleValue)).toBigInteger());
+       }
+
+       return xsInteger;
+    }
+
+}
@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types;
+
+/**
+ * This class parses the XML Schema lexical representations of xs:dateTime,
+ * xs:date and xs:time values (which are ISO 8601 formats),
+ *
+ * dateTimeLexicalRep ::= yearFrag '-' monthFrag '-' dayFrag 'T' ((hourFrag ':'
+ *                        minuteFrag ':' secondFrag) | endOfDayFrag) timezoneFrag?
+ * dateLexicalRep     ::= yearFrag '-' monthFrag '-' dayFrag timezoneFrag?
+ * timeLexicalRep     ::= ((hourFrag ':' minuteFrag ':' secondFrag) | endOfDayFrag)
+ *                        timezoneFrag?
+ *
+ * Ref : https://www.w3.org/TR/xmlschema11-2/#dateTime
+ *
+ * The supplied character sequence is scanned once, without constructing any
+ * intermediate strings, and each field value is validated arithmetically.
+ * After a successful parse, the field values may be read via the get methods
+ * of this class. An object of this class is meant to be used for one parse
+ * only.
+ *
+ * @xsl.usage internal
+ */
+final class XPath3DateTimeParser {
+
+    // the maximum number of digits, of an year value
+    private static final int MAX_YEAR_DIGITS = 9;
+
+    private static final int MAX_TIMEZONE_HOURS = 14;
+
+    private final CharSequence fCharSeq;
+
+    private final int fLength;
+
+    // the position of next character to be scanned
+    private int fPos = 0;
+
+    private int fYear;
+
+    private int fMonth;
+
+    private int fDay;
+
+    // the time of day, as number of nanoseconds
+    private long fNanoOfDay;
+
+    // the time value 24:00:00 was scanned
+    private boolean fIsEndOfDay = false;
+
+    private boolean fTimezoned = false;
+
+    // the timezone offset as number of minutes
+    private int fTzOffsetMinutes;
+
+    /**
+     * Class constructor.
+     *
+     * @param charSeq    the character sequence to be parsed
+     */
+    XPath3DateTimeParser(CharSequence charSeq) {
+        fCharSeq = charSeq;
+        fLength = charSeq.length();
+    }
+
+    /**
+     * Parse the character sequence, as an xs:dateTime lexical value.
+     *
+     * @return   true if the character sequence is a valid xs:dateTime
+     *           lexical value. false otherwise.
+     */
+    boolean parseDateTime() {
+        boolean isValid = scanDate() && scanChar('T') && scanTime() && scanTimezone() &&
+                                                                                   (fPos == fLength);
+        if (isValid && fIsEndOfDay) {
+           // the time value 24:00:00, is the first instant of the next day
+           long packedDate = XSCalendarType.toPackedDate(XSCalendarType.toEpochDay(fYear, fMonth,
+                                                                                           fDay) + 1);
+           fYear = XSCalendarType.getPackedYear(packedDate);
+           fMonth = XSCalendarType.getPackedMonth(packedDate);
+           fDay = XSCalendarType.getPackedDay(packedDate);
+        }
+
+        return isValid;
+    }
+
+    /**
+     * Parse the character sequence, as an xs:date lexical value.
+     *
+     * @return   true if the character sequence is a valid xs:date
+     *           lexical value. false otherwise.
+     */
+    boolean parseDate() {
+        return scanDate() && scanTimezone() && (fPos == fLength);
+    }
+
+    /**
+     * Parse the character sequence, as an xs:time lexical value.
+     *
+     * @return   true if the character sequence is a valid xs:time
+     *           lexical value. false otherwise.
+     */
+    boolean parseTime() {
+        return scanTime() && scanTimezone() && (fPos == fLength);
+    }
+
+    int getYear() {
+        return fYear;
+    }
+
+    int getMonth() {
+        return fMonth;
+    }
+
+    int getDay() {
+        return fDay;
+    }
+
+    long getNanoOfDay() {
+        return fNanoOfDay;
+    }
+
+    boolean isTimezoned() {
+        return fTimezoned;
+    }
+
+    int getTimezoneOffsetMinutes() {
+        return fTzOffsetMinutes;
+    }
+
+    /*
+     * Scan the fragments yearFrag '-' monthFrag '-' dayFrag.
+     */
+    private boolean scanDate() {
+        boolean isNegative = false;
+        if ((fPos < fLength) && (fCharSeq.charAt(fPos) == '-')) {
+           isNegative = true;
+           fPos++;
+        }
+
+        int digitStart = fPos;
+        int year = 0;
+        while ((fPos < fLength) && isDigit(fCharSeq.charAt(fPos))) {
+           if ((fPos - digitStart) == MAX_YEAR_DIGITS) {
+              return false;
+           }
+           year = (year * 10) + (fCharSeq.charAt(fPos) - '0');
+           fPos++;
+        }
+
+        int digitCount = fPos - digitStart;
+        if ((digitCount < 4) || ((digitCount > 4) && (fCharSeq.charAt(digitStart) == '0')) ||
+                                                                                       (year == 0)) {
+           return false;
+        }
+
+        fYear = (isNegative ? -year : year);
+
+        if (!scanChar('-')) {
+           return false;
+        }
+
+        fMonth = scanTwoDigits();
+        if ((fMonth < 1) || (fMonth > 12) || !scanChar('-')) {
+           return false;
+        }
+
+        fDay = scanTwoDigits();
+
+        return (fDay >= 1) && (fDay <= XSCalendarType.getDaysInMonth(fYear, fMonth));
+    }
+
+    /*
+     * Scan the fragments hourFrag ':' minuteFrag ':' secondFrag.
+     */
+    private boolean scanTime() {
+        int hour = scanTwoDigits();
+        if ((hour < 0) || (hour > 24) || !scanChar(':')) {
+           return false;
+        }
+
+        int minute = scanTwoDigits();
+        if ((minute < 0) || (minute > 59) || !scanChar(':')) {
+           return false;
+        }
+
+        int second = scanTwoDigits();
+        if ((second < 0) || (second > 59)) {
+           return false;
+        }
+
+        long nanos = 0;
+        if ((fPos < fLength) && (fCharSeq.charAt(fPos) == '.')) {
+           fPos++;
+           int digitStart = fPos;
+           // the fractional second digits after the nanoseconds position,
+           // are ignored.
+           long digitWeight = XSCalendarType.NANOS_PER_SECOND / 10;
+           while ((fPos < fLength) && isDigit(fCharSeq.charAt(fPos))) {
+              nanos += (fCharSeq.charAt(fPos) - '0') * digitWeight;
+              digitWeight /= 10;
+              fPos++;
+           }
+
+           if (fPos == digitStart) {
+              return false;
+           }
+        }
+
+        if (hour == 24) {
+           if ((minute != 0) || (second != 0) || (nanos != 0)) {
+              return false;
+           }
+           fIsEndOfDay = true;
+           hour = 0;
+        }
+
+        fNanoOfDay = (hour * XSCalendarType.NANOS_PER_HOUR) + (minute * XSCalendarType.NANOS_PER_MINUTE) +
+                                                        (second * XSCalendarType.NANOS_PER_SECOND) + nanos;
+
+        return true;
+    }
+
+    /*
+     * Scan an optional timezoneFrag, i.e 'Z' | ('+' | '-') hh ':' mm.
+     */
+    private boolean scanTimezone() {
+        if (fPos == fLength) {
+           return true;
+        }
+
+        char chr = fCharSeq.charAt(fPos);
+        if (chr == 'Z') {
+           fPos++;
+           fTimezoned = true;
+           fTzOffsetMinutes = 0;
+
+           return true;
+        }
+        else if ((chr != '+') && (chr != '-')) {
+           return false;
+        }
+
+        fPos++;
+
+        int hours = scanTwoDigits();
+        if ((hours < 0) || (hours > MAX_TIMEZONE_HOURS) || !scanChar(':')) {
+           return false;
+        }
+
+        int minutes = scanTwoDigits();
+        if ((minutes < 0) || (minutes > 59) || ((hours == MAX_TIMEZONE_HOURS) && (minutes != 0))) {
+           return false;
+        }
+
+        fTimezoned = true;
+        fTzOffsetMinutes = (hours * 60) + minutes;
+        if (chr == '-') {
+           fTzOffsetMinutes *= -1;
+        }
+
+        return true;
+    }
+
+    /*
+     * Scan exactly two digits, and return their numeric value. This method
+     * returns -1, if the next two characters are not digits.
+     */
+    private int scanTwoDigits() {
+        if ((fPos + 2) > fLength) {
+           return -1;
+        }
+
+        char chr1 = fCharSeq.charAt(fPos);
+        char chr2 = fCharSeq.charAt(fPos + 1);
+        if (!isDigit(chr1) || !isDigit(chr2)) {
+           return -1;
+        }
+
+        fPos += 2;
+
+        return ((chr1 - '0') * 10) + (chr2 - '0');
+    }
+
+    /*
+     * Scan the supplied character.
+     */
+    private boolean scanChar(char chr) {
+        boolean isScanned = false;
+
+        if ((fPos < fLength) && (fCharSeq.charAt(fPos) == chr)) {
+           fPos++;
+           isScanned = true;
+        }
+
+        return isScanned;
+    }
+
+    private static boolean isDigit(char chr) {
+        return (chr >= '0') && (chr <= '9');
+    }
+
+}
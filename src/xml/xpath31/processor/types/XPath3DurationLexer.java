@@ -0,0 +1,315 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types;
+
+import java.util.Arrays;
+
+/**
+ * A lexer for the lexical space of the XML Schema types xs:duration,
+ * xs:dayTimeDuration and xs:yearMonthDuration.
+ *
+ * The lexer reads the supplied characters in a single pass. The digits of
+ * each duration component are accumulated numerically, and the designator
+ * character that follows them is looked up in a table, that gives the
+ * component the digits belong to. The components are then combined into
+ * the total number of months, seconds and nanoseconds which XSDuration
+ * objects are made of. The lexer also reports, the duration types for
+ * which the lexical value is valid.
+ *
+ * @xsl.usage advanced
+ */
+final class XPath3DurationLexer {
+
+    /**
+     * The flag, denoting that a lexical value is a valid xs:duration value.
+     */
+    static final int DURATION = 1;
+
+    /**
+     * The flag, denoting that a lexical value is a valid xs:dayTimeDuration
+     * value.
+     */
+    static final int DAY_TIME_DURATION = 2;
+
+    /**
+     * The flag, denoting that a lexical value is a valid xs:yearMonthDuration
+     * value.
+     */
+    static final int YEAR_MONTH_DURATION = 4;
+
+    // the duration components, in the order in which they may occur
+    private static final int YEARS = 0;
+    private static final int MONTHS = 1;
+    private static final int DAYS = 2;
+    private static final int HOURS = 3;
+    private static final int MINUTES = 4;
+    private static final int SECONDS = 5;
+
+    private static final int NO_COMPONENT = -1;
+
+    // the maximum number of digits of a duration component (other than seconds),
+    // for which the component value fits within a Java int.
+    private static final int MAX_COMPONENT_DIGITS = 9;
+
+    // the maximum number of digits, of the integer part of seconds component
+    private static final int MAX_SECONDS_DIGITS = 18;
+
+    // the number of fraction of second digits, that are stored
+    private static final int NANOS_DIGITS = 9;
+
+    // the tables from a designator character, to the duration component
+    // that the designator ends. There's one table for the date part, and
+    // another one for the time part (i.e, the part after 'T') of a duration
+    // value.
+    private static final byte[] DATE_DESIGNATORS = new byte[128];
+    private static final byte[] TIME_DESIGNATORS = new byte[128];
+
+    static {
+        Arrays.fill(DATE_DESIGNATORS, (byte)NO_COMPONENT);
+        Arrays.fill(TIME_DESIGNATORS, (byte)NO_COMPONENT);
+
+        DATE_DESIGNATORS['Y'] = YEARS;
+        DATE_DESIGNATORS['M'] = MONTHS;
+        DATE_DESIGNATORS['D'] = DAYS;
+        TIME_DESIGNATORS['H'] = HOURS;
+        TIME_DESIGNATORS['M'] = MINUTES;
+        TIME_DESIGNATORS['S'] = SECONDS;
+    }
+
+    // the values of the duration components, that are read
+    private final long[] fComponents = new long[SECONDS + 1];
+
+    // the fraction of second, as a number of nanoseconds
+    private long fNanos;
+
+    private boolean fNegative;
+
+    // the duration types, for which the lexical value is valid
+    private int fValidTypes;
+
+    /**
+     * Parse the supplied characters, as a lexical value of the specified
+     * duration type.
+     *
+     * @param charSeq        the characters to be parsed. The leading and
+     *                       trailing whitespace characters are ignored.
+     * @param durationType   one of the constants DURATION, DAY_TIME_DURATION,
+     *                       or YEAR_MONTH_DURATION
+     *
+     * @return               an object of the class XSDuration,
+     *                       XSDayTimeDuration or XSYearMonthDuration as per
+     *                       the specified duration type, or null if the
+     *                       characters are not a valid lexical value of that
+     *                       type, or the duration is too long to be
+     *                       represented.
+     */
+    static XSDuration parse(CharSequence charSeq, int durationType) {
+        XSDuration xsDuration = null;
+
+        XPath3DurationLexer lexer = new XPath3DurationLexer();
+        if ((lexer.lex(charSeq) & durationType) != 0) {
+           xsDuration = lexer.newDuration(durationType);
+        }
+
+        return xsDuration;
+    }
+
+    /**
+     * Read the supplied characters, as a duration lexical value.
+     *
+     * @param charSeq   the characters to be read. The leading and trailing
+     *                  whitespace characters are ignored.
+     *
+     * @return          a combination of the flags DURATION, DAY_TIME_DURATION
+     *                  and YEAR_MONTH_DURATION, for the duration types of
+     *                  which the characters are a valid lexical value. This
+     *                  is 0, if the characters are not a valid duration
+     *                  lexical value.
+     */
+    int lex(CharSequence charSeq) {
+        Arrays.fill(fComponents, 0);
+        fNanos = 0;
+        fNegative = false;
+        fValidTypes = 0;
+
+        if (charSeq == null) {
+           return fValidTypes;
+        }
+
+        int idx = 0;
+        int end = charSeq.length();
+        while ((idx < end) && XSCtrType.isXmlWhitespace(charSeq.charAt(idx))) {
+           idx++;
+        }
+        while ((end > idx) && XSCtrType.isXmlWhitespace(charSeq.charAt(end - 1))) {
+           end--;
+        }
+
+        if ((idx < end) && (charSeq.charAt(idx) == '-')) {
+           fNegative = true;
+           idx++;
+        }
+
+        if ((idx == end) || (charSeq.charAt(idx) != 'P')) {
+           return fValidTypes;
+        }
+        idx++;
+
+        int firstComponent = NO_COMPONENT;
+        int lastComponent = NO_COMPONENT;
+        boolean isTimePart = false;
+
+        while (idx < end) {
+           char chr = charSeq.charAt(idx);
+           if (chr == 'T') {
+              if (isTimePart) {
+                 return fValidTypes;
+              }
+              isTimePart = true;
+              idx++;
+              continue;
+           }
+
+           // read the number, preceding a designator
+           long value = 0;
+           int digitCount = 0;
+           for (; (idx < end) && isDigit(chr = charSeq.charAt(idx)); idx++) {
+              value = (value * 10) + (chr - '0');
+              if (++digitCount > MAX_SECONDS_DIGITS) {
+                 return fValidTypes;
+              }
+           }
+
+           boolean hasFraction = false;
+           int fractionDigitCount = 0;
+           long nanos = 0;
+           if ((idx < end) && (chr == '.')) {
+              hasFraction = true;
+              for (idx++; (idx < end) && isDigit(chr = charSeq.charAt(idx)); idx++) {
+                 if (fractionDigitCount < NANOS_DIGITS) {
+                    // the fraction digits beyond nanoseconds are ignored
+                    nanos = (nanos * 10) + (chr - '0');
+                 }
+                 fractionDigitCount++;
+              }
+           }
+
+           if (((digitCount + fractionDigitCount) == 0) || (idx == end) || (chr >= 128)) {
+              return fValidTypes;
+           }
+
+           int component = (isTimePart ? TIME_DESIGNATORS : DATE_DESIGNATORS)[chr];
+           if ((component <= lastComponent) || (hasFraction && (component != SECONDS)) ||
+                                 ((component != SECONDS) && (digitCount > MAX_COMPONENT_DIGITS))) {
+              // an unknown or out of order designator, a fraction in a component
+              // other than seconds, or a component value that doesn't fit within
+              // a Java int.
+              return fValidTypes;
+           }
+           idx++;
+
+           fComponents[component] = value;
+           if (hasFraction) {
+              for (int count = fractionDigitCount; count < NANOS_DIGITS; count++) {
+                 nanos *= 10;
+              }
+              fNanos = nanos;
+           }
+
+           if (firstComponent == NO_COMPONENT) {
+              firstComponent = component;
+           }
+           lastComponent = component;
+        }
+
+        if ((lastComponent == NO_COMPONENT) || (isTimePart && (lastComponent < HOURS))) {
+           // a duration value must have at least one component, and the
+           // designator 'T' must be followed by at least one time component.
+           return fValidTypes;
+        }
+
+        fValidTypes = DURATION;
+        if (firstComponent >= DAYS) {
+           fValidTypes |= DAY_TIME_DURATION;
+        }
+        if (lastComponent <= MONTHS) {
+           fValidTypes |= YEAR_MONTH_DURATION;
+        }
+
+        return fValidTypes;
+    }
+
+    /**
+     * Get the total number of months, of the duration value read.
+     */
+    long getMonths() {
+        return (fComponents[YEARS] * 12) + fComponents[MONTHS];
+    }
+
+    /**
+     * Get the total number of whole seconds, of the duration value read.
+     */
+    long getSeconds() {
+        return (((((fComponents[DAYS] * 24) + fComponents[HOURS]) * 60) + fComponents[MINUTES]) * 60) +
+                                                                                         fComponents[SECONDS];
+    }
+
+    /**
+     * Get the fraction of second of the duration value read, as a number
+     * of nanoseconds.
+     */
+    long getNanos() {
+        return fNanos;
+    }
+
+    /**
+     * Check whether, the duration value read has a leading minus sign.
+     */
+    boolean isNegative() {
+        return fNegative;
+    }
+
+    /*
+     * Construct a duration object of the specified type, from the duration
+     * value read. This method returns null, if the duration is too long to
+     * be represented.
+     */
+    private XSDuration newDuration(int durationType) {
+        XSDuration xsDuration = null;
+
+        try {
+           switch (durationType) {
+              case DAY_TIME_DURATION :
+                 xsDuration = new XSDayTimeDuration(getSeconds(), fNanos, fNegative);
+                 break;
+              case YEAR_MONTH_DURATION :
+                 long months = getMonths();
+                 if (months <= Integer.MAX_VALUE) {
+                    xsDuration = new XSYearMonthDuration(fNegative ? -(int)months : (int)months);
+                 }
+                 break;
+              default :
+                 xsDuration = new XSDuration(getMonths(), getSeconds(), fNanos, fNegative);
+           }
+        }
+        catch (ArithmeticException ex) {
+           // the duration is too long, to be represented by the XSDuration classes
+        }
+
+        return xsDuration;
+    }
+
+    private static boolean isDigit(char chr) {
+        return (chr >= '0') && (chr <= '9');
+    }
+
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types;
+
+import java.text.Collator;
+import java.util.Arrays;
+
+/**
+ * A resolved XPath 3.1 collation. An object of this class is obtained once
+ * from a collation uri (via the method XPathCollationSupport.getCollation),
+ * for e.g once for an XPath expression or a sort specification, and is then
+ * used for all the string comparisons with that collation. Therefore, the
+ * collation uri is not examined for each string comparison.
+ *
+ * The objects of this class are immutable, and may be used concurrently by
+ * many threads.
+ *
+ * @xsl.usage advanced
+ */
+public abstract class XPathCollation {
+
+    private static final XPathCollation fCodepointCollation = new CodepointCollation();
+
+    private static final XPathCollation fHtmlAsciiCaseInsensitiveCollation = new
+                                                                         HtmlAsciiCaseInsensitiveCollation();
+
+    private final String fCollationUri;
+
+    /*
+     * Class constructor.
+     */
+    XPathCollation(String collationUri) {
+       fCollationUri = collationUri;
+    }
+
+    /**
+     * Get the collation uri, from which this collation was resolved.
+     */
+    public String getCollationUri() {
+       return fCollationUri;
+    }
+
+    /**
+     * Compare two string values, using this collation.
+     *
+     * @param str1    the first string
+     * @param str2    the second string
+     *
+     * @return        the value -1, 0 or 1 when the first string collates before,
+     *                is equal to, or collates after the second string.
+     */
+    public abstract int compare(String str1, String str2);
+
+    /**
+     * Check whether, two string values are equal using this collation.
+     */
+    public boolean isEqual(String str1, String str2) {
+       return (compare(str1, str2) == 0);
+    }
+
+    /**
+     * Get a hash code for a string value, that is consistent with the equality
+     * of strings using this collation.
+     */
+    public abstract int getHashCode(String str);
+
+    /**
+     * Get the sort key of a string value, for this collation. Two sort keys
+     * compared with the method XPathCollationSupport.compareSortKeys, give the
+     * same result as comparing the strings with the method compare.
+     */
+    public abstract byte[] getSortKey(String str);
+
+    /*
+     * Get the 'Unicode Codepoint Collation'.
+     */
+    static XPathCollation getCodepointCollation() {
+       return fCodepointCollation;
+    }
+
+    /*
+     * Get the 'HTML ASCII Case-Insensitive Collation'.
+     */
+    static XPathCollation getHtmlAsciiCaseInsensitiveCollation() {
+       return fHtmlAsciiCaseInsensitiveCollation;
+    }
+
+    /*
+     * Get a 'Unicode Collation Algorithm' collation, that uses the Collator
+     * object of the supplied collator cache entry.
+     */
+    static XPathCollation getUCACollation(String collationUri, XPathCollatorCache.CollatorEntry
+                                                                                         collatorEntry) {
+       return new UCACollation(collationUri, collatorEntry);
+    }
+
+    /*
+     * XPath 3.1 'Unicode Codepoint Collation'.
+     */
+    private static final class CodepointCollation extends XPathCollation {
+
+       CodepointCollation() {
+          super(XPathCollationSupport.UNICODE_CODEPOINT_COLLATION_URI);
+       }
+
+       @Override
+       public int compare(String str1, String str2) {
+          return XPathCollationSupport.compareStringsUsingUnicodeCodepointCollation(str1, str2);
+       }
+
+       @Override
+       public boolean isEqual(String str1, String str2) {
+          return str1.equals(str2);
+       }
+
+       @Override
+       public int getHashCode(String str) {
+          return str.hashCode();
+       }
+
+       @Override
+       public byte[] getSortKey(String str) {
+          return XPathCollationSupport.getCodepointSortKey(str);
+       }
+
+    }
+
+    /*
+     * XPath 3.1 'HTML ASCII Case-Insensitive Collation'.
+     */
+    private static final class HtmlAsciiCaseInsensitiveCollation extends XPathCollation {
+
+       private final XPathHtmlAsciiCaseInsensitiveComparator fComparator = XPathHtmlAsciiCaseInsensitiveComparator.
+                                                                                                   getInstance();
+
+       HtmlAsciiCaseInsensitiveCollation() {
+          super(XPathCollationSupport.HTML_ASCII_CASE_INSENSITIVE_COLLATION_URI);
+       }
+
+       @Override
+       public int compare(String str1, String str2) {
+          return fComparator.compare(str1, str2);
+       }
+
+       @Override
+       public boolean isEqual(String str1, String str2) {
+          return fComparator.isEqual(str1, str2);
+       }
+
+       @Override
+       public int getHashCode(String str) {
+          return fComparator.getHashCode(str);
+       }
+
+       @Override
+       public byte[] getSortKey(String str) {
+          return fComparator.getSortKey(str);
+       }
+
+    }
+
+    /*
+     * XPath 3.1 'Unicode Collation Algorithm' collation, implemented with
+     * a java.text.Collator object.
+     */
+    private static final class UCACollation extends XPathCollation {
+
+       private final XPathCollatorCache.CollatorEntry fCollatorEntry;
+
+       UCACollation(String collationUri, XPathCollatorCache.CollatorEntry collatorEntry) {
+          super(collationUri);
+          fCollatorEntry = collatorEntry;
+       }
+
+       @Override
+       public int compare(String str1, String str2) {
+          int comparisonResult = (fCollatorEntry.getCollator()).compare(str1, str2);
+
+          return (comparisonResult < 0) ? -1 : ((comparisonResult > 0) ? 1 : 0);
+       }
+
+       @Override
+       public int getHashCode(String str) {
+          // strings that are equal with this collation, have the same sort key
+          // (for e.g, at primary strength the sort key only has the primary
+          // weights of characters).
+          return Arrays.hashCode(getSortKey(str));
+       }
+
+       @Override
+       public byte[] getSortKey(String str) {
+          Collator collator = fCollatorEntry.getCollator();
+
+          return (collator.getCollationKey(str)).toByteArray();
+       }
+
+    }
+
+}
@@ -14,10 +14,10 @@ package xml.xpath31.processor.types;
 import java.text.Collator;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
 
 import javax.xml.transform.TransformerException;
 
@@ -67,10 +67,38 @@ public class XPathCollationSupport {
     
     private List<UCAParameter> fUcaSupportedParameters = new ArrayList<UCAParameter>();
     
-    private String fQueryStrFallbackValue = null;
-    
     private String fDefaultCollationUri = null;
     
+    // the resolved default collation, that is set when it is first needed
+    private volatile XPathCollation fDefaultCollation = null;
+    
+    // A cache of configured java.text.Collator objects, that is shared by all
+    // XPathCollationSupport objects. A java.text.Collator object only depends
+    // on the collation uri from which it is built.
+    private static final XPathCollatorCache fCollatorCache = new XPathCollatorCache();
+    
+    // normalizes the collation uris, and builds the collator cache entries 
+    // for this XPathCollationSupport object.
+    private final XPathCollatorCache.CollatorEntryBuilder fCollatorEntryBuilder = 
+                                                              new XPathCollatorCache.CollatorEntryBuilder() {
+       @Override
+       public String getNormalizedCollationUri(String collationUri) throws TransformerException {
+          return getNormalizedUCACollationUri(collationUri);
+       }
+       
+       @Override
+       public XPathCollatorCache.CollatorEntry buildCollatorEntry(String normalizedCollationUri) 
+                                                                                   throws TransformerException {
+          return buildUCACollatorEntry(normalizedCollationUri);
+       }
+    };
+    
+    // A shared XPathCollationSupport object, having 'Unicode Codepoint Collation'
+    // as its default collation. This is used by XDM string values that are compared 
+    // without an XPath evaluation context being available.
+    private static final XPathCollationSupport fDefaultCollationSupport = new XPathCollationSupport(
+                                                                                    UNICODE_CODEPOINT_COLLATION_URI);
+    
     /**
      * Class constructor.
      */
@@ -79,6 +107,88 @@ public class XPathCollationSupport {
        buildSupportedUCAParamList();  
     }
     
+    /**
+     * Get a shared XPathCollationSupport object, whose default collation is
+     * XPath 3.1 'Unicode Codepoint Collation'.
+     */
+    public static XPathCollationSupport getDefaultCollationSupport() {
+       return fDefaultCollationSupport; 
+    }
+    
+    /**
+     * Get the cache of configured java.text.Collator objects, that are built from 
+     * the 'Unicode Collation Algorithm' (UCA) collation uris. 
+     */
+    public static XPathCollatorCache getCollatorCache() {
+       return fCollatorCache; 
+    }
+    
+    /**
+     * Get the default collation uri, of this XPathCollationSupport object.
+     */
+    public String getDefaultCollationUri() {
+       return fDefaultCollationUri; 
+    }
+    
+    /**
+     * Resolve a collation uri, to an XPathCollation object. The returned object
+     * may be used for all the string comparisons with this collation, without
+     * the collation uri being examined again.
+     * 
+     * @param collationUri       collation uri
+     * 
+     * @return                   the resolved collation
+     * 
+     * @throws javax.xml.transform.TransformerException
+     */
+    public XPathCollation getCollation(String collationUri) throws javax.xml.transform.TransformerException {
+       XPathCollation collation = null;
+       
+       if (UNICODE_CODEPOINT_COLLATION_URI.equals(collationUri)) {
+          collation = XPathCollation.getCodepointCollation();
+       }
+       else if (HTML_ASCII_CASE_INSENSITIVE_COLLATION_URI.equals(collationUri)) {
+          collation = XPathCollation.getHtmlAsciiCaseInsensitiveCollation();
+       }
+       else if (collationUri.startsWith(UNICODE_COLLATION_ALGORITHM_URI)) {
+          XPathCollatorCache.CollatorEntry collatorEntry = getUCACollatorEntry(collationUri);
+          
+          if (collatorEntry.hasCollator()) {
+             collation = XPathCollation.getUCACollation(collationUri, collatorEntry);                
+          }
+          else if (collatorEntry.isFallbackAllowed()) {                    
+             collation = getCollation(fDefaultCollationUri);
+          }
+          else {
+             throw new javax.xml.transform.TransformerException("FOCH0002 : The requested collation '" + collationUri + 
+                                                                                                                "' is not supported.");  
+          }
+       }
+       else {
+          throw new javax.xml.transform.TransformerException("FOCH0002 : The requested collation '" + collationUri + "' "
+                                                                                                           + "is not supported."); 
+       }
+       
+       return collation;
+    }
+    
+    /**
+     * Get the default collation of this XPathCollationSupport object, as a resolved
+     * XPathCollation object.
+     * 
+     * @throws javax.xml.transform.TransformerException
+     */
+    public XPathCollation getDefaultCollation() throws javax.xml.transform.TransformerException {
+       XPathCollation defaultCollation = fDefaultCollation;
+       
+       if (defaultCollation == null) {
+          defaultCollation = getCollation(fDefaultCollationUri);
+          fDefaultCollation = defaultCollation;
+       }
+       
+       return defaultCollation;
+    }
+    
     /**
      * This method, compares two string values, using a specified collation.
      * 
@@ -95,89 +205,92 @@ public class XPathCollationSupport {
      */
     public int compareStringsUsingCollation(String str1, String str2, String collationUri) 
                                                                                   throws javax.xml.transform.TransformerException {
+       return (getCollation(collationUri)).compare(str1, str2);
+    }
+    
+    /**
+     * This method, gets a sort key for a string value using a specified collation. 
+     * The sort keys of two strings, when compared with the method compareSortKeys, 
+     * give the same result as comparing the strings with the method 
+     * compareStringsUsingCollation using the same collation. 
+     * 
+     * A sort key may be computed once for each string within a sequence of strings 
+     * to be sorted, so that the string comparisons during the sort are plain byte 
+     * array comparisons. For the 'Unicode Collation Algorithm' collations, the sort 
+     * key is the byte array form of the java.text.CollationKey object of the string.
+     * 
+     * @param str                the string
+     * @param collationUri       collation uri
+     * 
+     * @return                   the sort key of the string
+     * 
+     * @throws javax.xml.transform.TransformerException
+     */
+    public byte[] getSortKey(String str, String collationUri) throws javax.xml.transform.TransformerException {
+       return (getCollation(collationUri)).getSortKey(str);
+    }
+    
+    /**
+     * This method checks whether, two string values are equal using a specified 
+     * collation.
+     * 
+     * @param str1               the first string
+     * @param str2               the second string
+     * @param collationUri       collation uri
+     * 
+     * @return                   true, if the strings are equal using the specified 
+     *                           collation. false otherwise.
+     *                           
+     * @throws javax.xml.transform.TransformerException
+     */
+    public boolean isEqualUsingCollation(String str1, String str2, String collationUri) 
+                                                                                  throws javax.xml.transform.TransformerException {
+       return (getCollation(collationUri)).isEqual(str1, str2);
+    }
+    
+    /**
+     * This method gets a hash code for a string value, that is consistent with the 
+     * equality of strings using a specified collation. i.e, two strings that are equal 
+     * using the specified collation have the same hash code. This allows grouping of 
+     * strings, and finding the distinct strings, with a hash table.
+     * 
+     * @param str                the string
+     * @param collationUri       collation uri
+     * 
+     * @return                   the hash code of the string
+     * 
+     * @throws javax.xml.transform.TransformerException
+     */
+    public int getHashCodeUsingCollation(String str, String collationUri) throws javax.xml.transform.TransformerException {
+       return (getCollation(collationUri)).getHashCode(str);
+    }
+    
+    /**
+     * This method compares two sort keys, that were produced by the method getSortKey
+     * using the same collation. The sort keys are compared as sequences of unsigned 
+     * bytes, and a sort key that is a prefix of the other one collates first.
+     * 
+     * @param sortKey1    the first sort key
+     * @param sortKey2    the second sort key
+     * 
+     * @return            the value -1, 0 or 1 when the first sort key collates before, 
+     *                    is equal to, or collates after the second sort key.
+     */
+    public static int compareSortKeys(byte[] sortKey1, byte[] sortKey2) {
        int comparisonResult = 0;
        
-       if (UNICODE_CODEPOINT_COLLATION_URI.equals(collationUri)) {
-          comparisonResult = compareStringsUsingUnicodeCodepointCollation(str1, str2);
-       }
-       else if (collationUri.startsWith(UNICODE_COLLATION_ALGORITHM_URI)) {
-          try {
-             Collator strComparisonCollator = getUCACollatorFromCollationUri(collationUri);
-             
-             if (strComparisonCollator != null) {
-                comparisonResult = strComparisonCollator.compare(str1, str2);                
-             }
-             else if (UCA_FALLBACK_YES.equals(fQueryStrFallbackValue)) {                    
-                comparisonResult = compareStringsUsingCollation(str1, str2, fDefaultCollationUri);
-             }
-             else {
-                throw new javax.xml.transform.TransformerException("FOCH0002 : The requested collation '" + collationUri + 
-                                                                                                                   "' is not supported.");  
-             }
-          }
-          catch (javax.xml.transform.TransformerException ex) {
-             throw new javax.xml.transform.TransformerException(ex.getMessage());    
-          }
-            
-          if (comparisonResult < 0) {
-             comparisonResult = -1;  
-          }
-          else if (comparisonResult > 0) {
-             comparisonResult = 1; 
-          }    
+       int minLen = Math.min(sortKey1.length, sortKey2.length);
+       
+       int idx = 0;
+       while ((idx < minLen) && (sortKey1[idx] == sortKey2[idx])) {
+          idx++; 
        }
-       else if (HTML_ASCII_CASE_INSENSITIVE_COLLATION_URI.equals(collationUri)) {
-          int str1Len = str1.length();
-          int str2Len = str2.length();
-           
-          int idx1 = 0;
-          int idx2 = 0;
-           
-          while (true) {
-             if (idx1 == str1Len) {
-                if (idx2 == str2Len) {
-                   comparisonResult = 0;
-                   break;
-                } else {
-                   comparisonResult = -1;
-                   break;
-                }
-             }
-             
-             if (idx2 == str2Len) {
-                comparisonResult = 1;
-                break;
-             }
-             
-             int codepoint1 = str1.codePointAt(idx1);
-             idx1 += 1;
-             
-             int codepoint2 = str2.codePointAt(idx2);
-             idx2 += 1;
-             
-             if ((codepoint1 >= 'a') && (codepoint1 <= 'z')) {
-                codepoint1 += 'A' - 'a';
-             }
-             
-             if ((codepoint2 >= 'a') && (codepoint2 <= 'z')) {
-                codepoint2 += 'A' - 'a';
-             }
-             
-             int codepointDiff = codepoint1 - codepoint2;             
-             if (codepointDiff != 0) {
-                if (codepointDiff < 0) {
-                   comparisonResult = -1;
-                }
-                else {
-                   comparisonResult = 1; 
-                }                
-                break;
-             }
-          }          
+       
+       if (idx < minLen) {
+          comparisonResult = ((sortKey1[idx] & 0xFF) < (sortKey2[idx] & 0xFF)) ? -1 : 1;
        }
-       else {
-          throw new javax.xml.transform.TransformerException("FOCH0002 : The requested collation '" + collationUri + "' "
-                                                                                                           + "is not supported."); 
+       else if (sortKey1.length != sortKey2.length) {
+          comparisonResult = (sortKey1.length < sortKey2.length) ? -1 : 1; 
        }
        
        return comparisonResult;
@@ -204,97 +317,125 @@ public class XPathCollationSupport {
      * 
      * @return        an integer value denoting, the result of comparison
      */
-    private int compareStringsUsingUnicodeCodepointCollation(String str1, String str2) {
+    static int compareStringsUsingUnicodeCodepointCollation(String str1, String str2) {
        int comparisonResult = 0;
        
-       int[] codePointsArr1 = getCodepointsFromString(str1);       
-       int[] codePointsArr2 = getCodepointsFromString(str2);
+       int str1Len = str1.length();
+       int str2Len = str2.length();
+       int minLen = Math.min(str1Len, str2Len);
+       
+       // the strings are compared in a single pass over their UTF-16 code units. 
+       // The UTF-16 code unit order is same as the codepoint order, except when
+       // a surrogate code unit is compared with a code unit within the range 
+       // U+E000 to U+FFFF, which is handled when the first different code units 
+       // are found.
+       int idx = 0;
+       while ((idx < minLen) && (str1.charAt(idx) == str2.charAt(idx))) {
+          idx++; 
+       }
        
-       comparisonResult = compareCodepointArrays(codePointsArr1, codePointsArr2); 
+       if (idx < minLen) {
+          int char1 = getCodepointOrderedCodeUnit(str1.charAt(idx));
+          int char2 = getCodepointOrderedCodeUnit(str2.charAt(idx));
+          comparisonResult = (char1 < char2) ? -1 : 1;
+       }
+       else if (str1Len != str2Len) {
+          // one string is a prefix of the other one. The shorter string 
+          // collates first.
+          comparisonResult = (str1Len < str2Len) ? -1 : 1; 
+       }
        
        return comparisonResult; 
     }
     
     /**
-     * This method compares two int[] arrays comprising unicode codepoints 
-     * (corresponding to the strings to be compared), according to 'Unicode 
-     * Codepoint Collation' as defined by XPath 3.1 F&O spec.
+     * Given an UTF-16 code unit, get an integer value such that, the order of
+     * these integer values for the first different code units of two strings, 
+     * is same as the Unicode codepoint order of those strings. The surrogate 
+     * code units (U+D800 to U+DFFF), are moved after the code units within the 
+     * range U+E000 to U+FFFF.
      */
-    private int compareCodepointArrays(int[] codePointsArr1, int[] codePointsArr2) {
-       
-       int comparisonResult = 0;
+    static int getCodepointOrderedCodeUnit(char codeUnit) {
+       int orderedCodeUnit = codeUnit;
        
-       if (((codePointsArr1 == null) || (codePointsArr1.length == 0)) && 
-           ((codePointsArr2 == null) || (codePointsArr2.length == 0))) {
-          // both strings are equal
-          comparisonResult = 0; 
-       }
-       else if (((codePointsArr1 == null) || (codePointsArr1.length == 0)) &&
-                ((codePointsArr2 != null) && (codePointsArr2.length > 0))) {
-          // the first string collates before the second one
-          comparisonResult = -1; 
-       }
-       else if (((codePointsArr1 != null) && (codePointsArr1.length > 0)) &&
-                ((codePointsArr2 == null) || (codePointsArr2.length == 0))) {
-          // the first string collates after the second one
-          comparisonResult = 1; 
-       }
-       else {
-          // both the strings to be compared, have non empty code point 
-          // arrays.
-          int arr1FirstCodepoint = codePointsArr1[0];
-          int arr2FirstCodepoint = codePointsArr2[0];
-          if (arr1FirstCodepoint < arr2FirstCodepoint) {
-             comparisonResult = -1;  
-          }
-          else if (arr1FirstCodepoint > arr2FirstCodepoint) {
-             comparisonResult = 1; 
-          }
-          else {             
-             List<Integer> list1 = getIntegerListFromIntArray(codePointsArr1);
-             List<Integer> list2 = getIntegerListFromIntArray(codePointsArr2);
-                 
-             // get all, except the first item in the list 'list1'
-             list1 = list1.subList(1, list1.size());
-             
-             // get all, except the first item in the list 'list2'
-             list2 = list2.subList(1, list2.size());
-             
-             // recursive call to this function
-             comparisonResult = compareCodepointArrays(getIntArrayFromIntegerList(list1), 
-                                                                       getIntArrayFromIntegerList(list2));     
-          }
+       if (codeUnit >= Character.MIN_SURROGATE) {
+          orderedCodeUnit += ((codeUnit <= Character.MAX_SURROGATE) ? 0x2000 : -0x800); 
        }
        
-       return comparisonResult;
+       return orderedCodeUnit;
     }
     
     /**
-     * Given an array of primitive integers, get the corresponding
-     * list of type List<Integer>.
+     * Get the sort key of a string for 'Unicode Codepoint Collation'. Each UTF-16 
+     * code unit of the string is written as two bytes (most significant byte first), 
+     * after being mapped with the method getCodepointOrderedCodeUnit. 
      */
-    private List<Integer> getIntegerListFromIntArray(int[] intArr) {
-       List<Integer> integerList = new ArrayList<Integer>();
+    static byte[] getCodepointSortKey(String str) {
+       int strLen = str.length();
+       byte[] sortKey = new byte[strLen * 2];
        
-       for (int idx = 0; idx < intArr.length; idx++) {
-          integerList.add(Integer.valueOf(intArr[idx])); 
+       for (int idx = 0; idx < strLen; idx++) {
+          int orderedCodeUnit = getCodepointOrderedCodeUnit(str.charAt(idx));
+          sortKey[2 * idx] = (byte)(orderedCodeUnit >> 8);
+          sortKey[(2 * idx) + 1] = (byte)orderedCodeUnit;
        }
        
-       return integerList;
+       return sortKey;
     }
     
     /**
-     * Given a list of type List<Integer>, get the corresponding array
-     * of primitive integers.  
+     * Get the collator cache entry for the requested 'Unicode Collation Algorithm' 
+     * collation uri. If the cache doesn't have an entry for the collation uri, a 
+     * new entry is built and added to the cache.
      */
-    private int[] getIntArrayFromIntegerList(List<Integer> integerList) {
-       int[] intArray = new int[integerList.size()];
+    private XPathCollatorCache.CollatorEntry getUCACollatorEntry(String collationUri) throws TransformerException {
+       return fCollatorCache.getEntry(collationUri, fCollatorEntryBuilder);
+    }
+    
+    /**
+     * Get the normalized form of a 'Unicode Collation Algorithm' collation uri. The 
+     * query string parameters of the normalized uri are ordered by their keywords, 
+     * so that the collation uris which differ only in the order (or, the redundant 
+     * delimiters) of their parameters have the same normalized form.
+     * 
+     * @throws TransformerException    if the collation uri has an invalid query string
+     */
+    private String getNormalizedUCACollationUri(String collationUri) throws TransformerException {
+       String normalizedUri = collationUri;
        
-       for (int idx = 0; idx < integerList.size(); idx++) {
-          intArray[idx] = (integerList.get(idx)).intValue();  
+       if (!collationUri.equals(UNICODE_COLLATION_ALGORITHM_URI)) {
+          int ucaUriPrefixLength = UNICODE_COLLATION_ALGORITHM_URI.length();
+          if (!collationUri.startsWith(UCA_QUERY_STRING_PREFIX, ucaUriPrefixLength)) {
+             throw new TransformerException("FOCH0002 : The first character if present after collation uri '" + 
+                                                                     UNICODE_COLLATION_ALGORITHM_URI + "' must be "
+                                                                     + "'" + UCA_QUERY_STRING_PREFIX + "', to denote the "
+                                                                     + "start of query string within the collation uri."); 
+          }
+          
+          Map<String, String> queryStrMap = null;
+          try {
+             queryStrMap = getUCAQueryStrComponents(collationUri.substring(ucaUriPrefixLength + 1));
+          }
+          catch (RuntimeException ex) {
+             // a query string part doesn't have the form keyword=value
+             throw new TransformerException(ex.getMessage());
+          }
+          
+          StringBuilder strBuilder = new StringBuilder(collationUri.length());
+          strBuilder.append(UNICODE_COLLATION_ALGORITHM_URI);
+          String delim = UCA_QUERY_STRING_PREFIX;
+          for (Map.Entry<String, String> queryStrEntry : queryStrMap.entrySet()) {
+             strBuilder.append(delim);
+             strBuilder.append(queryStrEntry.getKey());
+             strBuilder.append(UCA_QUERY_STRING_PART_SUB_DELIM);
+             strBuilder.append(queryStrEntry.getValue());
+             delim = UCA_QUERY_STRING_PARTS_DELIM;
+          }
+          
+          normalizedUri = strBuilder.toString();
        }
        
-       return intArray;
+       return normalizedUri;
     }
     
     /**
@@ -305,15 +446,18 @@ public class XPathCollationSupport {
      * @param collationUri     the requested collation uri, during XPath 3.1 string comparisons,
      *                         and sorting of strings.
      *                         
-     * @return                 a configured Java object of type java.text.Collator, that callers of
-     *                         this method can use to do locale specific string comparisons.
+     * @return                 a collator cache entry having a configured Java object of type 
+     *                         java.text.Collator, that callers of this method can use to do 
+     *                         locale specific string comparisons.
      * 
      * @throws TransformerException
      */
-    private Collator getUCACollatorFromCollationUri(String collationUri) throws TransformerException {
+    private XPathCollatorCache.CollatorEntry buildUCACollatorEntry(String collationUri) throws TransformerException {
        
        Collator strComparisonCollator = null;
        
+       String fallbackValue = DEFAULT_UCA_FALLBACK_VALUE;
+       
        try {
            if (collationUri.equals(UNICODE_COLLATION_ALGORITHM_URI)) {
               strComparisonCollator = getDefaultUCACollator();
@@ -330,11 +474,8 @@ public class XPathCollationSupport {
                  String queryStrLangCode = queryStrMap.get(UCA_KEYWORD_LANG);
                  String queryStrStrengthValue = queryStrMap.get(UCA_KEYWORD_STRENGTH);
                     
-                 if (queryStrFallbackValue == null) {
-                    fQueryStrFallbackValue = DEFAULT_UCA_FALLBACK_VALUE;  
-                 }
-                 else {
-                    fQueryStrFallbackValue = queryStrFallbackValue;  
+                 if (queryStrFallbackValue != null) {
+                    fallbackValue = queryStrFallbackValue;  
                  }
                     
                  if (queryStrLangCode == null) {
@@ -376,7 +517,7 @@ public class XPathCollationSupport {
            throw new TransformerException(ex.getMessage());  
        }
        
-       return strComparisonCollator;
+       return new XPathCollatorCache.CollatorEntry(strComparisonCollator, UCA_FALLBACK_YES.equals(fallbackValue));
     }
     
     /**
@@ -409,10 +550,10 @@ public class XPathCollationSupport {
     
     /**
      * From the requested collation uri, build a corresponding java.util.Map
-     * object representation.  
+     * object representation, whose entries are ordered by the keywords.  
      */
     private Map<String, String> getUCAQueryStrComponents(String uriQueryStr) throws TransformerException {
-       Map<String, String> queryStrMap = new HashMap<String, String>();
+       Map<String, String> queryStrMap = new TreeMap<String, String>();
        
        String[] queryStrParts = uriQueryStr.split(UCA_QUERY_STRING_PARTS_DELIM);
        
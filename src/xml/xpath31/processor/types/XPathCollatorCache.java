@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types;
+
+import java.text.Collator;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.xml.transform.TransformerException;
+
+/**
+ * A bounded cache of configured java.text.Collator objects, keyed by the
+ * normalized form of the 'Unicode Collation Algorithm' (UCA) collation uri
+ * from which they were built. The collation uris that differ only in the 
+ * order of their query string parameters, share a cache entry.
+ *
+ * The cache is thread-safe, and a lookup of a collation uri that has been
+ * looked up before doesn't take a lock. When the cache is full, an entry
+ * is evicted. Since a java.text.Collator object is not thread-safe, each 
+ * thread gets its own clone of a cached Collator.
+ *
+ * @xsl.usage advanced
+ */
+public final class XPathCollatorCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 64;
+
+    // the maximum number of the supplied collation uris that are recorded, 
+    // per entry of this cache.
+    private static final int MAX_URIS_PER_ENTRY = 4;
+
+    private final int fMaxEntries;
+
+    // the cache entries, keyed by the normalized collation uris
+    private final ConcurrentHashMap<String, CollatorEntry> fEntries = 
+                                                       new ConcurrentHashMap<String, CollatorEntry>();
+
+    // the cache entries, keyed by the collation uris as supplied to the method
+    // getEntry. A repeated lookup of a collation uri, therefore doesn't 
+    // normalize the collation uri again.
+    private final ConcurrentHashMap<String, CollatorEntry> fUriEntries = 
+                                                       new ConcurrentHashMap<String, CollatorEntry>();
+
+    private final LongAdder fHitCount = new LongAdder();
+
+    private final LongAdder fMissCount = new LongAdder();
+
+    private final LongAdder fEvictionCount = new LongAdder();
+
+    /**
+     * Class constructor.
+     */
+    public XPathCollatorCache() {
+       this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param maxEntries    the maximum number of entries, that this cache
+     *                      may have.
+     */
+    public XPathCollatorCache(int maxEntries) {
+       if (maxEntries < 1) {
+          throw new IllegalArgumentException("The maximum number of entries of a collator cache, must be "
+                                                                                         + "at least 1.");
+       }
+
+       fMaxEntries = maxEntries;
+    }
+
+    /**
+     * Get the number of lookups, that found an entry within this cache.
+     */
+    public long getHitCount() {
+       return fHitCount.sum();
+    }
+
+    /**
+     * Get the number of lookups, that didn't find an entry within this cache.
+     */
+    public long getMissCount() {
+       return fMissCount.sum();
+    }
+
+    /**
+     * Get the number of entries, that have been evicted from this cache.
+     */
+    public long getEvictionCount() {
+       return fEvictionCount.sum();
+    }
+
+    /**
+     * Get the number of entries, within this cache.
+     */
+    public int size() {
+       return fEntries.size();
+    }
+
+    /**
+     * Get the maximum number of entries, that this cache may have.
+     */
+    public int getMaxEntries() {
+       return fMaxEntries;
+    }
+
+    /**
+     * Remove all the entries from this cache, and reset the counters.
+     */
+    public void clear() {
+       fUriEntries.clear();
+       fEntries.clear();
+       fHitCount.reset();
+       fMissCount.reset();
+       fEvictionCount.reset();
+    }
+
+    /**
+     * Get the cache entry, for the supplied collation uri. If this cache 
+     * doesn't have an entry for the normalized form of the collation uri, 
+     * a new entry is built by the supplied builder and added to this cache.
+     *
+     * @throws TransformerException    if the collation uri is not a valid
+     *                                 UCA collation uri.
+     */
+    CollatorEntry getEntry(String collationUri, final CollatorEntryBuilder entryBuilder) 
+                                                                           throws TransformerException {
+       CollatorEntry collatorEntry = fUriEntries.get(collationUri);
+
+       if (collatorEntry != null) {
+          fHitCount.increment();
+       }
+       else {
+          String normalizedUri = entryBuilder.getNormalizedCollationUri(collationUri);
+
+          // whether, the entry has been built by this lookup
+          final boolean[] isBuilt = new boolean[1];
+          try {
+             collatorEntry = fEntries.computeIfAbsent(normalizedUri, new Function<String, CollatorEntry>() {
+                @Override
+                public CollatorEntry apply(String uri) {
+                   isBuilt[0] = true;
+                   try {
+                      return entryBuilder.buildCollatorEntry(uri);
+                   }
+                   catch (TransformerException ex) {
+                      throw new CollatorBuildException(ex);
+                   }
+                }
+             });
+          }
+          catch (CollatorBuildException ex) {
+             fMissCount.increment();
+             throw ex.getTransformerException();
+          }
+
+          if (isBuilt[0]) {
+             fMissCount.increment();
+          }
+          else {
+             fHitCount.increment();
+          }
+
+          if (fUriEntries.size() >= (MAX_URIS_PER_ENTRY * fMaxEntries)) {
+             // the recorded collation uris are only shortcuts to the cache 
+             // entries, and are all dropped when there are too many of them.
+             fUriEntries.clear();
+          }
+          fUriEntries.put(collationUri, collatorEntry);
+
+          if (fEntries.size() > fMaxEntries) {
+             evictEntry(normalizedUri);
+          }
+       }
+
+       return collatorEntry;
+    }
+
+    /*
+     * Evict an entry from this cache (other than the entry for the supplied 
+     * normalized collation uri), together with the collation uris that refer
+     * to it.
+     */
+    private void evictEntry(String retainedUri) {
+       Iterator<Map.Entry<String, CollatorEntry>> entryIter = (fEntries.entrySet()).iterator();
+       while (entryIter.hasNext()) {
+          Map.Entry<String, CollatorEntry> mapEntry = entryIter.next();
+          if (!(mapEntry.getKey()).equals(retainedUri)) {
+             CollatorEntry evictedEntry = mapEntry.getValue();
+             if (fEntries.remove(mapEntry.getKey(), evictedEntry)) {
+                fEvictionCount.increment();
+                (fUriEntries.values()).removeAll(Collections.singleton(evictedEntry));
+             }
+             break;
+          }
+       }
+    }
+
+    /**
+     * An object of this type, normalizes the collation uris and builds the
+     * entries of an XPathCollatorCache.
+     */
+    interface CollatorEntryBuilder {
+
+       /**
+        * Get the normalized form of the supplied collation uri. The collation 
+        * uris that select the same collation, have the same normalized form.
+        *
+        * @throws TransformerException    if the collation uri is not a valid
+        *                                 UCA collation uri.
+        */
+       String getNormalizedCollationUri(String collationUri) throws TransformerException;
+
+       /**
+        * Build a cache entry, for the supplied normalized collation uri.
+        *
+        * @throws TransformerException    if the collation uri is not a valid
+        *                                 UCA collation uri.
+        */
+       CollatorEntry buildCollatorEntry(String normalizedCollationUri) throws TransformerException;
+
+    }
+
+    /*
+     * An unchecked exception, that carries a TransformerException out of the
+     * function that builds a cache entry.
+     */
+    private static final class CollatorBuildException extends RuntimeException {
+
+       private static final long serialVersionUID = -2384720968151846273L;
+
+       CollatorBuildException(TransformerException ex) {
+          super(ex);
+       }
+
+       TransformerException getTransformerException() {
+          return (TransformerException)getCause();
+       }
+
+    }
+
+    /**
+     * An object of this class, stores a configured java.text.Collator object
+     * together with the 'fallback' parameter value of the collation uri from
+     * which it was built.
+     */
+    static final class CollatorEntry {
+
+       private final Collator fCollator;
+
+       private final boolean fIsFallbackAllowed;
+
+       // the per thread clones of the Collator object fCollator
+       private final ThreadLocal<Collator> fThreadCollator;
+
+       CollatorEntry(Collator collator, boolean isFallbackAllowed) {
+          fCollator = collator;
+          fIsFallbackAllowed = isFallbackAllowed;
+          fThreadCollator = new ThreadLocal<Collator>() {
+             @Override
+             protected Collator initialValue() {
+                return (fCollator != null) ? (Collator)fCollator.clone() : null;
+             }
+          };
+       }
+
+       /**
+        * Get the Collator object of this entry, which may be used by the
+        * current thread. This returns null, if a Collator couldn't be built
+        * for the collation uri of this entry.
+        */
+       Collator getCollator() {
+          return fThreadCollator.get();
+       }
+
+       /**
+        * Check whether, a Collator object could be built for the collation
+        * uri of this entry.
+        */
+       boolean hasCollator() {
+          return (fCollator != null);
+       }
+
+       /**
+        * Check whether, the collation uri of this entry permits a fallback to
+        * the default collation, when its Collator couldn't be built.
+        */
+       boolean isFallbackAllowed() {
+          return fIsFallbackAllowed;
+       }
+
+    }
+
+}
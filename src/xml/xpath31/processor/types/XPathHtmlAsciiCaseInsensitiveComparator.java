@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types;
+
+import java.util.Comparator;
+
+/**
+ * This class implements, XPath 3.1 'HTML ASCII Case-Insensitive Collation'.
+ * The strings are compared by Unicode codepoints, after the ASCII lower case
+ * letters 'a' to 'z' have been mapped to the corresponding upper case letters.
+ *
+ * Ref : https://www.w3.org/TR/xpath-functions-31/#html-ascii-case-insensitive-collation
+ *
+ * The strings are compared in a single pass over their UTF-16 code units.
+ * For ASCII characters, the code units are only case folded. The codepoint
+ * order of the non-ASCII characters (that may be represented by surrogate
+ * pairs) is taken care of, only when the first different code units are found.
+ *
+ * An object of this class is stateless, and may be used concurrently by many
+ * threads.
+ *
+ * @xsl.usage advanced
+ */
+public final class XPathHtmlAsciiCaseInsensitiveComparator implements Comparator<String> {
+
+    private static final XPathHtmlAsciiCaseInsensitiveComparator fInstance = new
+                                                                  XPathHtmlAsciiCaseInsensitiveComparator();
+
+    private XPathHtmlAsciiCaseInsensitiveComparator() {
+       // no op
+    }
+
+    /**
+     * Get the shared object of this class.
+     */
+    public static XPathHtmlAsciiCaseInsensitiveComparator getInstance() {
+       return fInstance;
+    }
+
+    /**
+     * Compare two string values, using 'HTML ASCII Case-Insensitive Collation'.
+     *
+     * @param str1    the first string
+     * @param str2    the second string
+     *
+     * @return        the value -1, 0 or 1 when the first string collates before,
+     *                is equal to, or collates after the second string.
+     */
+    @Override
+    public int compare(String str1, String str2) {
+       int comparisonResult = 0;
+
+       int str1Len = str1.length();
+       int str2Len = str2.length();
+       int minLen = Math.min(str1Len, str2Len);
+
+       int idx = 0;
+       int char1 = 0;
+       int char2 = 0;
+       while (idx < minLen) {
+          char1 = toUpperCaseAscii(str1.charAt(idx));
+          char2 = toUpperCaseAscii(str2.charAt(idx));
+          if (char1 != char2) {
+             break;
+          }
+          idx++;
+       }
+
+       if (idx < minLen) {
+          if ((char1 >= Character.MIN_SURROGATE) || (char2 >= Character.MIN_SURROGATE)) {
+             char1 = XPathCollationSupport.getCodepointOrderedCodeUnit((char)char1);
+             char2 = XPathCollationSupport.getCodepointOrderedCodeUnit((char)char2);
+          }
+          comparisonResult = (char1 < char2) ? -1 : 1;
+       }
+       else if (str1Len != str2Len) {
+          // one string is a prefix of the other one. The shorter string
+          // collates first.
+          comparisonResult = (str1Len < str2Len) ? -1 : 1;
+       }
+
+       return comparisonResult;
+    }
+
+    /**
+     * Check whether, two string values are equal using 'HTML ASCII Case-Insensitive
+     * Collation'.
+     */
+    public boolean isEqual(String str1, String str2) {
+       boolean isEqual = false;
+
+       int strLen = str1.length();
+       if (strLen == str2.length()) {
+          int idx = 0;
+          while ((idx < strLen) && (toUpperCaseAscii(str1.charAt(idx)) == toUpperCaseAscii(str2.charAt(idx)))) {
+             idx++;
+          }
+          isEqual = (idx == strLen);
+       }
+
+       return isEqual;
+    }
+
+    /**
+     * Get a hash code for a string value, that is consistent with the equality
+     * of strings using 'HTML ASCII Case-Insensitive Collation'.
+     */
+    public int getHashCode(String str) {
+       int hashCode = 0;
+
+       int strLen = str.length();
+       for (int idx = 0; idx < strLen; idx++) {
+          hashCode = (31 * hashCode) + toUpperCaseAscii(str.charAt(idx));
+       }
+
+       return hashCode;
+    }
+
+    /**
+     * Get the sort key of a string value, for 'HTML ASCII Case-Insensitive
+     * Collation'. Each UTF-16 code unit of the string is written as two bytes
+     * (most significant byte first), after being case folded and mapped to
+     * the codepoint order.
+     */
+    public byte[] getSortKey(String str) {
+       int strLen = str.length();
+       byte[] sortKey = new byte[strLen * 2];
+
+       for (int idx = 0; idx < strLen; idx++) {
+          int orderedCodeUnit = XPathCollationSupport.getCodepointOrderedCodeUnit(toUpperCaseAscii(
+                                                                                             str.charAt(idx)));
+          sortKey[2 * idx] = (byte)(orderedCodeUnit >> 8);
+          sortKey[(2 * idx) + 1] = (byte)orderedCodeUnit;
+       }
+
+       return sortKey;
+    }
+
+    /*
+     * Map the ASCII lower case letters 'a' to 'z', to the corresponding upper
+     * case letters. All other code units are returned unchanged.
+     */
+    private static char toUpperCaseAscii(char codeUnit) {
+       return (((codeUnit - 'a') & 0xFFFF) < 26) ? (char)(codeUnit - ('a' - 'A')) : codeUnit;
+    }
+
+}
@@ -15,9 +15,7 @@ package xml.xpath31.processor.types;
 
 import javax.xml.transform.TransformerException;
 
-import org.apache.xpath.XPathCollationSupport;
 import org.apache.xpath.XPathContext;
-import org.apache.xpath.objects.ResultSequence;
 import org.apache.xpath.objects.XObject;
 import org.apache.xpath.objects.XString;
 
@@ -30,11 +28,11 @@ public class XSAnyURI extends XSCtrType {
 	
 	private static final String XS_ANY_URI = "xs:anyURI";
 	
-	private String _value;
+	private final String _value;
 	
-    private XPathContext fXctxt = new XPathContext();
-    
-    private XPathCollationSupport fXpathCollationSupport = fXctxt.getXPathCollationSupport();
+	// the hash code of this value, as per the default collation. This is 
+	// computed when first needed, and is 0 until then.
+	private int _hashCode;
 
     /*
      * Class constructor.
@@ -51,19 +49,13 @@ public class XSAnyURI extends XSCtrType {
 	}
 
 	@Override
-	public ResultSequence constructor(ResultSequence arg) throws TransformerException {
-		ResultSequence resultSeq = new ResultSequence();
-		
-		if (arg.size() == 0) {
-	       return resultSeq;     
-	    }
-		
-		XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-        String strVal = xsAnyType.stringValue();
-        
-        resultSeq.add(new XSAnyURI(strVal));
-		
-		return resultSeq;
+	public XSAnyURI cast(XSAnyType xsAnyType) {
+		return new XSAnyURI(xsAnyType.stringValue());
+	}
+
+	@Override
+	public XSCtrType tryParse(String strVal) {
+		return (strVal != null) ? new XSAnyURI(trimWhitespace(strVal)) : null;
 	}
 
 	@Override
@@ -104,10 +96,24 @@ public class XSAnyURI extends XSCtrType {
     }
     
     @Override
-    public int hashCode() {       
-       String strVal = stringValue();       
+    public int hashCode() {
+       int hashCode = _hashCode;
        
-       return strVal.hashCode();
+       if ((hashCode == 0) && (_value != null)) {
+          // the values equal as per the default collation (by which the method 
+          // equals compares the values), need to have the same hash code.
+          try {
+             XPathCollation defaultCollation = (XPathCollationSupport.getDefaultCollationSupport()).
+                                                                                     getDefaultCollation();
+             hashCode = defaultCollation.getHashCode(_value);
+          }
+          catch (TransformerException ex) {
+             hashCode = _value.hashCode();
+          }
+          _hashCode = hashCode;
+       }
+       
+       return hashCode;
     }
 	
 	/**
@@ -115,25 +121,16 @@ public class XSAnyURI extends XSCtrType {
 	 * of an argument that is passed to this method.
 	 */
 	public boolean eq(XObject arg) throws TransformerException {
-	   boolean isEqual = false;
-	   
-	   String argStrValue = null;
-	   if ((arg instanceof XSAnyURI) || (arg instanceof XSString)) {
-		   argStrValue = ((XSAnyType)arg).stringValue();   
-	   }
-	   else if (arg instanceof XString) {
-		   argStrValue = ((XString)arg).str();  
-	   }
-	   else {
-		   throw new TransformerException("XPTY0004 : an xs:anyURI value can only be compared "
-                                                                           + "with an xs:anyURI or a string value"); 
-	   }
-	   
-	   int comparisonResult = fXpathCollationSupport.compareStringsUsingCollation(_value, argStrValue, 
-                                                                                  fXctxt.getDefaultCollation());
-	   isEqual = (comparisonResult == 0);	   
-
-	   return isEqual;
+	   return (compareUsingDefaultCollation(arg, null) == 0);
+	}
+	
+	/**
+	 * Check equality between this xs:anyURI value and value of an argument 
+	 * that is passed to this method, using the default collation of the 
+	 * supplied XPath evaluation context.
+	 */
+	public boolean eq(XObject arg, XPathContext xctxt) throws TransformerException {
+	   return (compareUsingDefaultCollation(arg, xctxt) == 0);
 	}
 	
 	/**
@@ -141,25 +138,16 @@ public class XSAnyURI extends XSCtrType {
 	 * and value of an argument that is passed to this method.
 	 */
 	public boolean lt(XObject arg) throws TransformerException {
-		boolean isLessThan = false;
-		   
-		String argStrValue = null;
-		if ((arg instanceof XSAnyURI) || (arg instanceof XSString)) {
-		   argStrValue = ((XSAnyType)arg).stringValue();   
-		}
-		else if (arg instanceof XString) {
-		   argStrValue = ((XString)arg).str();  
-		}
-		else {
-		   throw new TransformerException("XPTY0004 : an xs:anyURI value can only be compared "
-	                                                                       + "with an xs:anyURI or a string value"); 
-		}
-		   
-		int comparisonResult = fXpathCollationSupport.compareStringsUsingCollation(_value, argStrValue, 
-	                                                                               fXctxt.getDefaultCollation());
-		isLessThan = (comparisonResult < 0);	   
-
-		return isLessThan;
+	   return (compareUsingDefaultCollation(arg, null) < 0);
+	}
+	
+	/**
+	 * Check less than relationship between this xs:anyURI value and value 
+	 * of an argument that is passed to this method, using the default 
+	 * collation of the supplied XPath evaluation context.
+	 */
+	public boolean lt(XObject arg, XPathContext xctxt) throws TransformerException {
+	   return (compareUsingDefaultCollation(arg, xctxt) < 0);
 	}
 	
 	/**
@@ -167,29 +155,49 @@ public class XSAnyURI extends XSCtrType {
 	 * and value of an argument that is passed to this method.
 	 */
 	public boolean gt(XObject arg) throws TransformerException {
-		boolean isGreaterThan = false;
-		   
-		String argStrValue = null;
-		if ((arg instanceof XSAnyURI) || (arg instanceof XSString)) {
-		   argStrValue = ((XSAnyType)arg).stringValue();   
-		}
-		else if (arg instanceof XString) {
-		   argStrValue = ((XString)arg).str();  
-		}
-		else {
-		   throw new TransformerException("XPTY0004 : an xs:anyURI value can only be compared "
-	                                                                       + "with an xs:anyURI or a string value"); 
-		}
-		   
-		int comparisonResult = fXpathCollationSupport.compareStringsUsingCollation(_value, argStrValue, 
-	                                                                               fXctxt.getDefaultCollation());
-		isGreaterThan = (comparisonResult > 0);	   
-
-		return isGreaterThan;
+	   return (compareUsingDefaultCollation(arg, null) > 0);
+	}
+	
+	/**
+	 * Check greater than relationship between this xs:anyURI value and value 
+	 * of an argument that is passed to this method, using the default 
+	 * collation of the supplied XPath evaluation context.
+	 */
+	public boolean gt(XObject arg, XPathContext xctxt) throws TransformerException {
+	   return (compareUsingDefaultCollation(arg, xctxt) > 0);
 	}
 	
 	public int getType() {
         return CLASS_XS_ANY_URI;
     }
+	
+	/*
+	 * Compare this xs:anyURI value with the value of an argument passed to this
+	 * method, using the default collation. When an XPath evaluation context is 
+	 * supplied, its default collation is used. Otherwise, the shared collation 
+	 * support object having XPath 3.1 default collation is used.
+	 */
+	private int compareUsingDefaultCollation(XObject arg, XPathContext xctxt) throws TransformerException {
+	   String argStrValue = null;
+	   if ((arg instanceof XSAnyURI) || (arg instanceof XSString)) {
+		   argStrValue = ((XSAnyType)arg).stringValue();   
+	   }
+	   else if (arg instanceof XString) {
+		   argStrValue = ((XString)arg).str();  
+	   }
+	   else {
+		   throw new TransformerException("XPTY0004 : an xs:anyURI value can only be compared "
+                                                                           + "with an xs:anyURI or a string value"); 
+	   }
+	   
+	   if (xctxt != null) {
+		   return (xctxt.getXPathCollationSupport()).compareStringsUsingCollation(_value, argStrValue, 
+				                                                                  xctxt.getDefaultCollation());
+	   }
+	   
+	   XPathCollation defaultCollation = (XPathCollationSupport.getDefaultCollationSupport()).getDefaultCollation();
+	   
+	   return defaultCollation.compare(_value, argStrValue);
+	}
 
 }
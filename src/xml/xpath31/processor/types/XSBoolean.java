@@ -13,7 +13,7 @@
 
 package xml.xpath31.processor.types;
 
-import org.apache.xpath.objects.ResultSequence;
+import javax.xml.transform.TransformerException;
 
 /**
  * An XML Schema data type representation, of the xs:boolean datatype.
@@ -24,7 +24,11 @@ public class XSBoolean extends XSCtrType {
 
     private static final String XS_BOOLEAN = "xs:boolean";
     
-    private boolean _value;
+    // the shared XSBoolean objects, returned by the method valueOf
+    private static final XSBoolean TRUE = new XSBoolean(true);
+    private static final XSBoolean FALSE = new XSBoolean(false);
+    
+    private final boolean _value;
     
     /*
      * Class constructor.
@@ -39,29 +43,74 @@ public class XSBoolean extends XSCtrType {
     public XSBoolean() {
         this(false);
     }
+    
+    /**
+     * Get an XSBoolean object, representing the supplied boolean value. This
+     * method returns one of the two shared XSBoolean objects, instead of 
+     * constructing a new object.
+     * 
+     * @param bool    the boolean value
+     * 
+     * @return        an XSBoolean object representing the supplied value
+     */
+    public static XSBoolean valueOf(boolean bool) {
+        return bool ? TRUE : FALSE;
+    }
 
+    /**
+     * A method to cast a value to a xs:boolean value.
+     * 
+     * @throws TransformerException    if the supplied value cannot be cast
+     *                                 to a xs:boolean value.
+     */
     @Override
-    public ResultSequence constructor(ResultSequence arg) {        
-        ResultSequence resultSeq = new ResultSequence();
+    public XSBoolean cast(XSAnyType xsAnyType) throws TransformerException {
+        return XPath3CastTable.castToBoolean(xsAnyType);
+    }
+
+    @Override
+    public XSCtrType tryParse(String strVal) {
+        return tryParseBoolean(strVal);
+    }
+    
+    /**
+     * Parse a string representation of a boolean value, and get the 
+     * corresponding XSBoolean object.
+     * 
+     * @param strVal     the string representation of the boolean value
+     * @return           the XSBoolean representation of the provided string
+     * 
+     * @throws TransformerException    if the string value is not a valid 
+     *                                 xs:boolean lexical value.
+     */
+    public static XSBoolean parseBoolean(String strVal) throws TransformerException {
+        XSBoolean xsBoolean = tryParseBoolean(strVal);
         
-        if (arg.size() == 0) {
-           return resultSeq;     
+        if (xsBoolean == null) {
+           throw new TransformerException("FORG0001 : The supplied string value '" + strVal + "' "
+                                                                           + "cannot be parsed to a xs:boolean value.");
         }
         
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-        String strVal = xsAnyType.stringValue();
-           
-        Boolean bool = null;
-        if (isBooleanFalse(strVal)) {
-           bool = Boolean.FALSE;    
+        return xsBoolean;
+    }
+    
+    /*
+     * Parse the supplied string value, as an xs:boolean lexical value. This
+     * method returns null, if the string value is not a valid xs:boolean
+     * lexical value.
+     */
+    static XSBoolean tryParseBoolean(String strVal) {
+        String trimmedStr = trimWhitespace(strVal);
+        
+        XSBoolean xsBoolean = null;
+        if ("true".equals(trimmedStr) || "1".equals(trimmedStr)) {
+           xsBoolean = TRUE; 
         }
-        else {
-           bool = Boolean.TRUE;     
+        else if ("false".equals(trimmedStr) || "0".equals(trimmedStr)) {
+           xsBoolean = FALSE; 
         }
-           
-        resultSeq.add(new XSBoolean(bool.booleanValue()));
-           
-        return resultSeq;        
+        
+        return xsBoolean;
     }
 
     @Override
@@ -76,7 +125,7 @@ public class XSBoolean extends XSCtrType {
 
     @Override
     public String stringValue() {
-        return "" + _value;
+        return _value ? "true" : "false";
     }
     
     /**
@@ -119,15 +168,5 @@ public class XSBoolean extends XSCtrType {
     public int getType() {
         return CLASS_BOOLEAN;
     }
-    
-    /*
-     * Check whether, a string value represents a boolean 
-     * 'false' value.
-     */
-    private boolean isBooleanFalse(String strVal) {
-        return strVal.equals("0") || strVal.equals("false") ||
-                 strVal.equals("+0") || strVal.equals("-0") ||
-                 strVal.equals("0.0E0") || strVal.equals("NaN");
-    }
 
 }
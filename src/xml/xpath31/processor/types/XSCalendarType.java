@@ -13,36 +13,390 @@
 
 package xml.xpath31.processor.types;
 
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import javax.xml.transform.TransformerException;
+
+import org.apache.xml.utils.FastStringBuffer;
+
 /**
  * Base class for all calendar based classes.
+ * 
+ * The calendar based classes store their values within primitive fields 
+ * (the year, month and day values, the time of day as number of nanoseconds, 
+ * and the timezone offset as number of minutes). This class provides the 
+ * common arithmetic on such values, for the proleptic Gregorian calendar.
+ * A year value used by these methods is the one that is present within an
+ * XML Schema lexical representation, for e.g the year value -1 refers to 
+ * the year 1 BCE.
  */
 public abstract class XSCalendarType extends XSCtrType {
 
     private static final long serialVersionUID = -6546129697566314664L;
     
+    protected static final long NANOS_PER_SECOND = 1000000000L;
+    
+    protected static final long NANOS_PER_MINUTE = 60L * NANOS_PER_SECOND;
+    
+    protected static final long NANOS_PER_HOUR = 60L * NANOS_PER_MINUTE;
+    
+    protected static final long NANOS_PER_DAY = 24L * NANOS_PER_HOUR;
+    
+    protected static final long SECONDS_PER_DAY = 86400L;
+    
+    // the number of days from the proleptic Gregorian date 0000-03-01, 
+    // to 1970-01-01.
+    private static final long DAYS_0000_03_01_TO_1970 = 719468L;
+    
+    // the number of days within a 400 year cycle of the Gregorian calendar
+    private static final long DAYS_PER_400_YEARS = 146097L;
+    
+    /**
+     * The implicit timezone (as an offset in minutes from UTC), within which 
+     * the values without a timezone are taken to be, when they are compared 
+     * with or subtracted from other values. This is the offset of the JVM's 
+     * default timezone, when this class is initialized. The functions
+     * fn:current-dateTime, fn:current-date and fn:current-time return values 
+     * in this timezone.
+     */
+    protected static final int IMPLICIT_TZ_OFFSET_MINUTES = (TimeZone.getDefault()).getOffset(
+                                                                   System.currentTimeMillis()) / 60000;
+    
+    /**
+     * Check whether, the supplied year is a leap year.
+     */
+    protected static boolean isLeapYear(int year) {
+        long prolepticYear = getProlepticYear(year);
+        
+        return ((prolepticYear % 4) == 0) && (((prolepticYear % 100) != 0) || 
+                                                                   ((prolepticYear % 400) == 0));
+    }
+    
+    /**
+     * Get the number of days, within the supplied month of the supplied year.
+     */
+    protected static int getDaysInMonth(int year, int month) {
+        int daysInMonth = 31;
+        
+        switch (month) {
+           case 2 :
+              daysInMonth = (isLeapYear(year) ? 29 : 28);
+              break;
+           case 4 :
+           case 6 :
+           case 9 :
+           case 11 :
+              daysInMonth = 30;
+              break;
+           default :
+              // no op
+        }
+        
+        return daysInMonth;
+    }
+    
+    /**
+     * Get the number of days from 1970-01-01 to the supplied date, as per the 
+     * proleptic Gregorian calendar. 
+     */
+    protected static long toEpochDay(int year, int month, int day) {
+        long prolepticYear = getProlepticYear(year);
+        if (month <= 2) {
+           // the computations below, treat the months January and February as 
+           // the last months of the previous year.
+           prolepticYear--; 
+        }
+        
+        long era = Math.floorDiv(prolepticYear, 400L);
+        long yearOfEra = prolepticYear - (era * 400);
+        long dayOfYear = (((153 * ((month + 9) % 12)) + 2) / 5) + day - 1;
+        long dayOfEra = (yearOfEra * 365) + (yearOfEra / 4) - (yearOfEra / 100) + dayOfYear;
+        
+        return (era * DAYS_PER_400_YEARS) + dayOfEra - DAYS_0000_03_01_TO_1970;
+    }
+    
+    /**
+     * Get the date, which is the supplied number of days after 1970-01-01 as per 
+     * the proleptic Gregorian calendar. The result is the year, month and day 
+     * values of the date packed within a long value, that may be read by the 
+     * methods getPackedYear, getPackedMonth and getPackedDay.
+     */
+    protected static long toPackedDate(long epochDay) {
+        long dayCount = epochDay + DAYS_0000_03_01_TO_1970;
+        long era = Math.floorDiv(dayCount, DAYS_PER_400_YEARS);
+        long dayOfEra = dayCount - (era * DAYS_PER_400_YEARS);
+        long yearOfEra = (dayOfEra - (dayOfEra / 1460) + (dayOfEra / 36524) - (dayOfEra / 146096)) / 365;
+        long dayOfYear = dayOfEra - ((365 * yearOfEra) + (yearOfEra / 4) - (yearOfEra / 100));
+        long monthIdx = ((5 * dayOfYear) + 2) / 153;
+        
+        int day = (int)(dayOfYear - (((153 * monthIdx) + 2) / 5) + 1);
+        int month = (int)((monthIdx < 10) ? (monthIdx + 3) : (monthIdx - 9));
+        long prolepticYear = yearOfEra + (era * 400) + ((month <= 2) ? 1 : 0);
+        
+        return packDate(getLexicalYear(prolepticYear), month, day);
+    }
+    
+    /**
+     * Get the date, which is the supplied number of months after the supplied
+     * date. When the resulting month has fewer days than the supplied day value,
+     * the last day of the resulting month is used. The result is packed within 
+     * a long value, like the one returned by the method toPackedDate.
+     */
+    protected static long addMonths(int year, int month, int day, int months) {
+        long monthCount = (getProlepticYear(year) * 12) + (month - 1) + months;
+        
+        int resultYear = getLexicalYear(Math.floorDiv(monthCount, 12L));
+        int resultMonth = (int)Math.floorMod(monthCount, 12L) + 1;
+        int resultDay = Math.min(day, getDaysInMonth(resultYear, resultMonth));
+        
+        return packDate(resultYear, resultMonth, resultDay);
+    }
+    
+    /**
+     * Pack the supplied year, month and day values within a long value.
+     */
+    protected static long packDate(int year, int month, int day) {
+        return (((long)year) << 32) | (month << 8) | day;
+    }
+    
+    protected static int getPackedYear(long packedDate) {
+        return (int)(packedDate >> 32);
+    }
+    
+    protected static int getPackedMonth(long packedDate) {
+        return (int)((packedDate >> 8) & 0xFF);
+    }
+    
+    protected static int getPackedDay(long packedDate) {
+        return (int)(packedDate & 0xFF);
+    }
+    
+    /**
+     * Get the number of whole days, by which a time of day moves when the 
+     * supplied number of seconds and nanoseconds (both of which have the 
+     * same sign) are added to it.
+     */
+    protected static long getDayShift(long nanoOfDay, long seconds, long nanos) {
+        long totalNanos = nanoOfDay + ((seconds % SECONDS_PER_DAY) * NANOS_PER_SECOND) + nanos;
+        
+        return (seconds / SECONDS_PER_DAY) + Math.floorDiv(totalNanos, NANOS_PER_DAY);
+    }
+    
+    /**
+     * Get the time of day, which results when the supplied number of seconds
+     * and nanoseconds (both of which have the same sign) are added to the 
+     * supplied time of day.
+     */
+    protected static long getShiftedNanoOfDay(long nanoOfDay, long seconds, long nanos) {
+        long totalNanos = nanoOfDay + ((seconds % SECONDS_PER_DAY) * NANOS_PER_SECOND) + nanos;
+        
+        return Math.floorMod(totalNanos, NANOS_PER_DAY);
+    }
+    
+    /**
+     * Get the day (as number of days from 1970-01-01) of the UTC normalized 
+     * instant, of a date and time of day in the supplied timezone. For a 
+     * value without a timezone, the offset of the implicit timezone is 
+     * supplied (see the method getNormalizingOffsetMinutes).
+     */
+    protected static long getUtcEpochDay(long epochDay, long nanoOfDay, int tzOffsetMinutes) {
+        return epochDay + Math.floorDiv(nanoOfDay - (tzOffsetMinutes * NANOS_PER_MINUTE), NANOS_PER_DAY);
+    }
+    
     /**
-     * Determine whether, two timezone values (represented as XSDuration objects) 
-     * are equal. 
+     * Get the time of day (as number of nanoseconds) of the UTC normalized 
+     * instant, of a time of day in the supplied timezone.
      */
-    protected boolean isTimezoneEqual(XSDuration tz1, XSDuration tz2, 
-                                               boolean isPopulatedFromFnDateFunc1, 
-                                               boolean isPopulatedFromFnDateFunc2) {
-         
-        boolean isTimezoneEqual = false;         
+    protected static long getUtcNanoOfDay(long nanoOfDay, int tzOffsetMinutes) {
+        return Math.floorMod(nanoOfDay - (tzOffsetMinutes * NANOS_PER_MINUTE), NANOS_PER_DAY);
+    }
+    
+    /**
+     * Get the timezone offset (as number of minutes), by which a value is 
+     * normalized to UTC. This is the offset of the value's own timezone, or 
+     * the offset of the implicit timezone when the value doesn't have a 
+     * timezone.
+     */
+    protected static int getNormalizingOffsetMinutes(boolean timezoned, int tzOffsetMinutes) {
+        return timezoned ? tzOffsetMinutes : IMPLICIT_TZ_OFFSET_MINUTES;
+    }
+    
+    /**
+     * Compare two UTC normalized instants, each specified by its day and time 
+     * of day values.
+     * 
+     * @return  a negative integer, zero, or a positive integer as the first instant
+     *          is before, equal to, or after the second instant.
+     */
+    protected static int compareInstant(long utcEpochDay1, long utcNanoOfDay1, 
+                                                          long utcEpochDay2, long utcNanoOfDay2) {
+        int result = Long.compare(utcEpochDay1, utcEpochDay2);
         
-        if (tz1 == null && tz2 == null) {
-           isTimezoneEqual = true;
+        if (result == 0) {
+           result = Long.compare(utcNanoOfDay1, utcNanoOfDay2);
         }
-        else if (tz1 != null && tz2 != null) {
-           isTimezoneEqual = ((tz1.hours() == tz2.hours()) && 
-                                                   (tz1.minutes() == tz2.minutes()) && 
-                                                           (tz1.negative() == tz2.negative()));
+        
+        return result;
+    }
+    
+    /**
+     * Get the exact duration from the second UTC normalized instant to the first 
+     * one, each specified by its day and time of day values.
+     * 
+     * @throws TransformerException    if the duration is too long, to be represented
+     *                                 as an xs:dayTimeDuration value.
+     */
+    protected static XSDayTimeDuration getInstantDifference(long utcEpochDay1, long utcNanoOfDay1, 
+                                                                  long utcEpochDay2, long utcNanoOfDay2) 
+                                                                                   throws TransformerException {
+        boolean isNegative = (compareInstant(utcEpochDay1, utcNanoOfDay1, utcEpochDay2, utcNanoOfDay2) < 0);
+        
+        // the difference is computed as a non-negative magnitude
+        long days = isNegative ? (utcEpochDay2 - utcEpochDay1) : (utcEpochDay1 - utcEpochDay2);
+        long nanos = isNegative ? (utcNanoOfDay2 - utcNanoOfDay1) : (utcNanoOfDay1 - utcNanoOfDay2);
+        if (nanos < 0) {
+           days--;
+           nanos += NANOS_PER_DAY;
         }
-        else if (isPopulatedFromFnDateFunc1 || isPopulatedFromFnDateFunc2) {
-            isTimezoneEqual = true; 
+        
+        XSDayTimeDuration result = null;
+        try {
+           result = new XSDayTimeDuration((days * SECONDS_PER_DAY) + (nanos / NANOS_PER_SECOND), 
+                                                                    nanos % NANOS_PER_SECOND, isNegative);
+        }
+        catch (ArithmeticException ex) {
+           throw new TransformerException("FODT0001 : Overflow when subtracting two date or time values. The "
+                                                                        + "resulting duration is too long.");
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Get the year value of the supplied java.util.Calendar object. The year 
+     * value of a BCE date is negative.
+     */
+    protected static int getYear(Calendar cal) {
+        int year = cal.get(Calendar.YEAR);
+        if (cal.get(Calendar.ERA) == GregorianCalendar.BC) {
+           year *= -1;
         }
         
-        return isTimezoneEqual;
+        return year;
+    }
+    
+    /**
+     * Get the time of day, of the supplied java.util.Calendar object as number of 
+     * nanoseconds.
+     */
+    protected static long getNanoOfDay(Calendar cal) {
+        return (cal.get(Calendar.HOUR_OF_DAY) * NANOS_PER_HOUR) + (cal.get(Calendar.MINUTE) * NANOS_PER_MINUTE) + 
+                                                   (cal.get(Calendar.SECOND) * NANOS_PER_SECOND) + 
+                                                   (cal.get(Calendar.MILLISECOND) * 1000000L);
+    }
+    
+    /**
+     * Construct a java.util.Calendar object (in the default timezone, and using 
+     * the proleptic Gregorian calendar), having the supplied date and time values.
+     */
+    protected static Calendar toCalendar(int year, int month, int day, long nanoOfDay) {
+        GregorianCalendar cal = new GregorianCalendar(TimeZone.getDefault());
+        cal.clear();
+        cal.setGregorianChange(new Date(Long.MIN_VALUE));
+        
+        cal.set(Calendar.ERA, (year < 0) ? GregorianCalendar.BC : GregorianCalendar.AD);
+        cal.set(Calendar.YEAR, Math.abs(year));
+        cal.set(Calendar.MONTH, month - 1);
+        cal.set(Calendar.DAY_OF_MONTH, day);
+        cal.set(Calendar.HOUR_OF_DAY, (int)(nanoOfDay / NANOS_PER_HOUR));
+        cal.set(Calendar.MINUTE, (int)((nanoOfDay / NANOS_PER_MINUTE) % 60));
+        cal.set(Calendar.SECOND, (int)((nanoOfDay / NANOS_PER_SECOND) % 60));
+        cal.set(Calendar.MILLISECOND, (int)((nanoOfDay / 1000000L) % 1000));
+        
+        return cal;
+    }
+    
+    /**
+     * Get the timezone offset as number of minutes, from the supplied timezone 
+     * value (represented as an XSDuration object).
+     */
+    protected static int getTimezoneOffsetMinutes(XSDuration tz) {
+        int offsetMinutes = (tz.hours() * 60) + tz.minutes();
+        
+        return tz.negative() ? -offsetMinutes : offsetMinutes;
+    }
+    
+    /**
+     * Get the timezone value (represented as an XSDuration object), from the
+     * supplied timezone offset as number of minutes.
+     */
+    protected static XSDuration toTimezoneDuration(int offsetMinutes) {
+        int absOffsetMinutes = Math.abs(offsetMinutes);
+        
+        return new XSDayTimeDuration(0, absOffsetMinutes / 60, absOffsetMinutes % 60, 0.0, 
+                                                                               offsetMinutes < 0);
+    }
+    
+    /**
+     * Append the XML Schema lexical representation of a date (i.e, yyyy-mm-dd), 
+     * to the supplied buffer.
+     */
+    protected static void appendDate(FastStringBuffer fsb, int year, int month, int day) {
+        appendDigits(fsb, year, 4);
+        fsb.append('-');
+        appendDigits(fsb, month, 2);
+        fsb.append('-');
+        appendDigits(fsb, day, 2);
+    }
+    
+    /**
+     * Append the XML Schema lexical representation of a time of day (i.e, 
+     * hh:mm:ss with an optional fractional seconds part), to the supplied 
+     * buffer.
+     */
+    protected static void appendTimeOfDay(FastStringBuffer fsb, long nanoOfDay) {
+        appendDigits(fsb, nanoOfDay / NANOS_PER_HOUR, 2);
+        fsb.append(':');
+        appendDigits(fsb, (nanoOfDay / NANOS_PER_MINUTE) % 60, 2);
+        fsb.append(':');
+        appendDigits(fsb, (nanoOfDay / NANOS_PER_SECOND) % 60, 2);
+        appendFractionOfSecond(fsb, (int)(nanoOfDay % NANOS_PER_SECOND));
+    }
+    
+    /**
+     * Append the XML Schema lexical representation of a timezone (i.e, Z or 
+     * +hh:mm or -hh:mm), to the supplied buffer.
+     */
+    protected static void appendTimezone(FastStringBuffer fsb, int offsetMinutes) {
+        if (offsetMinutes == 0) {
+           fsb.append('Z');
+        }
+        else {
+           fsb.append((offsetMinutes < 0) ? '-' : '+');
+           int absOffsetMinutes = Math.abs(offsetMinutes);
+           appendDigits(fsb, absOffsetMinutes / 60, 2);
+           fsb.append(':');
+           appendDigits(fsb, absOffsetMinutes % 60, 2);
+        }
+    }
+    
+    /*
+     * Get the proleptic Gregorian year (where, the year 1 BCE is the year 0) 
+     * from the supplied year value.
+     */
+    private static long getProlepticYear(int year) {
+        return (year < 0) ? (year + 1L) : year;
+    }
+    
+    /*
+     * Get the year value (where, the year 1 BCE is the year -1) from the 
+     * supplied proleptic Gregorian year.
+     */
+    private static int getLexicalYear(long prolepticYear) {
+        return (int)((prolepticYear <= 0) ? (prolepticYear - 1) : prolepticYear);
     }
 	
 }
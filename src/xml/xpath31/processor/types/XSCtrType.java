@@ -15,6 +15,7 @@ package xml.xpath31.processor.types;
 
 import javax.xml.transform.TransformerException;
 
+import org.apache.xml.utils.FastStringBuffer;
 import org.apache.xpath.objects.ResultSequence;
 
 /**
@@ -28,6 +29,16 @@ import org.apache.xpath.objects.ResultSequence;
 public abstract class XSCtrType extends XSAnyAtomicType {
 
     private static final long serialVersionUID = -1177633885817069140L;
+    
+    /**
+     * The chunk bits of the FastStringBuffer objects, that are used to 
+     * construct the string values of the types which write their string
+     * value with the method appendToFsb (i.e, a 32 character chunk).
+     */
+    protected static final int STRING_VALUE_CHUNK_BITS = 5;
+    
+    // the number of fraction of second digits, within a nanoseconds value
+    private static final int NANOS_DIGITS = 9;
 
     /**
 	 * This function is used for, XML Schema built-in types 
@@ -42,7 +53,35 @@ public abstract class XSCtrType extends XSAnyAtomicType {
 	 * 
      * @throws TransformerException 
 	 */
-	public abstract ResultSequence constructor(ResultSequence arg) throws TransformerException;
+	public ResultSequence constructor(ResultSequence arg) throws TransformerException {
+	    ResultSequence resultSeq = new ResultSequence();
+	    
+	    if (arg.size() == 0) {
+	       return resultSeq;     
+	    }
+	    
+	    XSAnyAtomicType xsAnyAtomicType = cast((XSAnyType)arg.item(0));
+	    if (xsAnyAtomicType != null) {
+	       resultSeq.add(xsAnyAtomicType);
+	    }
+	    
+	    return resultSeq;
+	}
+	
+	/**
+	 * Cast a single value to this datatype. This is the implementation of
+	 * the method constructor, without the sequence objects around the
+	 * argument and the result. It is therefore suitable for the evaluation
+	 * of casts, that occur once per node.
+	 * 
+	 * @param xsAnyType    the value to be cast
+	 * 
+	 * @return             the value of this datatype resulting from the cast,
+	 *                     or null if the cast results in an empty sequence.
+	 * 
+	 * @throws TransformerException 
+	 */
+	public abstract XSAnyAtomicType cast(XSAnyType xsAnyType) throws TransformerException;
 
 	/**
 	 * Get the datatype's name.
@@ -51,4 +90,115 @@ public abstract class XSCtrType extends XSAnyAtomicType {
 	 */
 	public abstract String typeName();
 	
+	/**
+	 * Parse a string value, as a lexical representation of this datatype. 
+	 * 
+	 * This method doesn't throw an exception, when the string value is not 
+	 * a valid lexical representation of this datatype. It is therefore suitable
+	 * for e.g, XPath 'castable as' checks. The leading and trailing whitespace 
+	 * of the string value is ignored, for the datatypes whose whitespace facet
+	 * is 'collapse'.
+	 * 
+	 * @param strVal    the string value to be parsed
+	 * 
+	 * @return          an object of this datatype representing the supplied 
+	 *                  string value, or null if the string value is null or
+	 *                  is not a valid lexical representation of this datatype.
+	 */
+	public abstract XSCtrType tryParse(String strVal);
+	
+	/**
+	 * Check whether, a string value is a valid lexical representation of 
+	 * this datatype. This method doesn't throw an exception.
+	 * 
+	 * @param strVal    the string value to be checked
+	 * 
+	 * @return          true if the string value is a valid lexical representation
+	 *                  of this datatype. false otherwise.
+	 */
+	public boolean isValidLexicalValue(String strVal) {
+	    return (tryParse(strVal) != null);
+	}
+	
+	/*
+	 * Remove the leading and trailing XML whitespace characters (i.e, space, 
+	 * tab, carriage return and line feed) from a string value. The supplied
+	 * string value is returned, when it doesn't have such characters or is
+	 * null.
+	 */
+	protected static String trimWhitespace(String strVal) {
+	    if (strVal == null) {
+	       return null; 
+	    }
+	    
+	    int start = 0;
+	    int end = strVal.length();
+	    
+	    while ((start < end) && isXmlWhitespace(strVal.charAt(start))) {
+	       start++; 
+	    }
+	    
+	    while ((end > start) && isXmlWhitespace(strVal.charAt(end - 1))) {
+	       end--; 
+	    }
+	    
+	    return ((start == 0) && (end == strVal.length())) ? strVal : strVal.substring(start, end);
+	}
+	
+	static boolean isXmlWhitespace(char chr) {
+	    return (chr == ' ') || (chr == '\t') || (chr == '\r') || (chr == '\n');
+	}
+	
+	/**
+	 * Append the decimal digits of a number to the supplied buffer, one 
+	 * character at a time. The digits are padded with leading zeros to
+	 * the supplied number of digits, and are preceded by a minus sign if
+	 * the number is negative.
+	 */
+	protected static void appendDigits(FastStringBuffer fsb, long num, int minDigits) {
+	    if (num < 0) {
+	       fsb.append('-'); 
+	    }
+	    
+	    // the digits are computed from the non-positive value of the number, 
+	    // so that Long.MIN_VALUE doesn't overflow.
+	    long val = (num < 0) ? num : -num;
+	    
+	    int digitCount = 1;
+	    long divisor = 1;
+	    while ((val / divisor) <= -10) {
+	       divisor *= 10;
+	       digitCount++;
+	    }
+	    
+	    for (int idx = digitCount; idx < minDigits; idx++) {
+	       fsb.append('0'); 
+	    }
+	    
+	    for (; divisor > 0; divisor /= 10) {
+	       fsb.append((char)('0' - ((val / divisor) % 10)));
+	    }
+	}
+	
+	/**
+	 * Append a fraction of second to the supplied buffer, as a decimal point
+	 * followed by the fraction digits without the trailing zeros. Nothing is
+	 * appended, if the fraction of second is zero.
+	 * 
+	 * @param fsb      the buffer to append to
+	 * @param nanos    the fraction of second, as a non-negative number of 
+	 *                 nanoseconds that is less than a second
+	 */
+	protected static void appendFractionOfSecond(FastStringBuffer fsb, int nanos) {
+	    if (nanos != 0) {
+	       int digitCount = NANOS_DIGITS;
+	       while ((nanos % 10) == 0) {
+	          nanos /= 10;
+	          digitCount--;
+	       }
+	       fsb.append('.');
+	       appendDigits(fsb, nanos, digitCount);
+	    }
+	}
+	
 }
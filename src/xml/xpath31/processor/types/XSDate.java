@@ -14,12 +14,10 @@
 package xml.xpath31.processor.types;
 
 import java.util.Calendar;
-import java.util.Date;
-import java.util.GregorianCalendar;
 
 import javax.xml.transform.TransformerException;
 
-import org.apache.xpath.objects.ResultSequence;
+import org.apache.xml.utils.FastStringBuffer;
 import org.apache.xpath.objects.XObject;
 
 /**
@@ -31,17 +29,30 @@ public class XSDate extends XSCalendarType {
     
     private static final String XS_DATE = "xs:date";
     
-    private Calendar _calendar;
+    private final int _year;
     
-    private boolean _timezoned;
+    private final int _month;
     
-    private XSDuration _tz;
+    private final int _day;
+    
+    private final boolean _timezoned;
+    
+    // the timezone offset as number of minutes, when this value 
+    // has a timezone.
+    private final int _tzOffsetMinutes;
+    
+    // the UTC normalized instant at which this date starts (as a day, and 
+    // a time of day within that day), by which the XSDate values are ordered.
+    private final long _utcEpochDay;
+    
+    private final long _utcNanoOfDay;
     
     /**
      * The value of this class field, stores the fact that whether this XSDate
-     * object is constructed via XPath function call fn:current-date().
+     * object is constructed via XPath function call fn:current-date(). This
+     * flag doesn't affect the comparisons of XSDate values.
      */
-    private boolean isPopulatedFromFnCurrentDate = false;
+    private final boolean isPopulatedFromFnCurrentDate;
     
     /**
      * Class constructor.
@@ -54,37 +65,62 @@ public class XSDate extends XSCalendarType {
      * @param tz      the timezone of the date to be stored
      */
     public XSDate(Calendar cal, XSDuration tz) {
-        _calendar = cal;        
-        _tz = tz;
-        
-        if (tz == null) {
-           _timezoned = false;
-        }
-        else {
-           _timezoned = true;
-        }
+        this(getYear(cal), cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH), (tz != null), 
+                                                             (tz != null) ? getTimezoneOffsetMinutes(tz) : 0);
+    }
+    
+    /**
+     * Class constructor.
+     * 
+     * Creates a new XSDate object instance, corresponding to the provided 
+     * date and timezone values.
+     * 
+     * @param year               the year value (which is negative, for a BCE year)
+     * @param month              the month value (1 to 12)
+     * @param day                the day value (1 to 31)
+     * @param timezoned          true if this value has a timezone. false otherwise.
+     * @param tzOffsetMinutes    the timezone offset as number of minutes (this is
+     *                           ignored, if the argument timezoned is false)
+     */
+    public XSDate(int year, int month, int day, boolean timezoned, int tzOffsetMinutes) {
+        this(year, month, day, timezoned, tzOffsetMinutes, false);
+    }
+    
+    /*
+     * Class constructor, that also sets the 'populated from fn:current-date' 
+     * flag value.
+     */
+    private XSDate(int year, int month, int day, boolean timezoned, int tzOffsetMinutes, 
+                                                                     boolean isPopulatedFromFnCurrentDate) {
+        _year = year;
+        _month = month;
+        _day = day;
+        _timezoned = timezoned;
+        _tzOffsetMinutes = (timezoned ? tzOffsetMinutes : 0);
+        int utcOffsetMinutes = getNormalizingOffsetMinutes(timezoned, tzOffsetMinutes);
+        _utcEpochDay = getUtcEpochDay(toEpochDay(year, month, day), 0, utcOffsetMinutes);
+        _utcNanoOfDay = getUtcNanoOfDay(0, utcOffsetMinutes);
+        this.isPopulatedFromFnCurrentDate = isPopulatedFromFnCurrentDate;
     }
 
     /**
      * Class constructor. 
      */
-    public XSDate() {}
+    public XSDate() {
+        this(0, 0, 0, false, 0);
+    }
+    
+    /*
+     * Class constructor, using a date packed within a long value.
+     */
+    private XSDate(long packedDate, boolean timezoned, int tzOffsetMinutes) {
+        this(getPackedYear(packedDate), getPackedMonth(packedDate), getPackedDay(packedDate), 
+                                                                               timezoned, tzOffsetMinutes);
+    }
 
     @Override
-    public ResultSequence constructor(ResultSequence arg) throws TransformerException {
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
-        }
-        
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-        
-        XSDate xsDate = castToDate(xsAnyType);
-        
-        resultSeq.add(xsDate);
-
-        return resultSeq;        
+    public XSDate cast(XSAnyType xsAnyType) throws TransformerException {
+        return XPath3CastTable.castToDate(xsAnyType);        
     }
     
     /**
@@ -100,61 +136,44 @@ public class XSDate extends XSCalendarType {
      */
     public static XSDate parseDate(String strVal) throws TransformerException {
         
-        XSDate result = null;
+        XSDate xsDate = tryParseDate(strVal);
         
-        try {
-            String dateStr = "";
-            String timeStr = "T00:00:00.0";
-    
-            int idx = strVal.indexOf('+', 1);
-            if (idx == -1) {
-                idx = strVal.indexOf('-', 1);
-                if (idx == -1) {
-                    throw new TransformerException("XTTE0570 : The supplied string value '" + 
-                                                                         strVal + "' cannot be parsed to a xs:date value."); 
-                }
-                idx = strVal.indexOf('-', idx + 1);
-                if (idx == -1) {
-                    throw new TransformerException("XTTE0570 : The supplied string value '" + 
-                                                                         strVal + "' cannot be parsed to a xs:date value.");
-                }
-                idx = strVal.indexOf('-', idx + 1);
-            }
-            if (idx == -1) {
-                idx = strVal.indexOf('Z', 1);
-            }
-            if (idx != -1) {
-                dateStr = strVal.substring(0, idx);
-                dateStr += timeStr;
-                dateStr += strVal.substring(idx, strVal.length());
-            } else {
-                dateStr = strVal + timeStr;
-            }
-    
-            XSDateTime dateTime = XSDateTime.parseDateTime(dateStr);
-            
-            if (dateTime != null) {
-                result = new XSDate(dateTime.getCalendar(), dateTime.getTimezone());;
-            }
-            else {
-                throw new TransformerException("XTTE0570 : The supplied string value '" + 
-                                                                                  strVal + "' cannot be parsed to a xs:date value."); 
-            }
-        }
-        catch (TransformerException ex) {
-           throw ex;  
+        if (xsDate == null) {
+           throw new TransformerException("XTTE0570 : The supplied string value '" + 
+                                                                          strVal + "' cannot be parsed to a xs:date value."); 
         }
-        catch (Exception ex) {
-            throw new TransformerException("XTTE0570 : The supplied string value '" + 
-                                                                                  strVal + "' cannot be parsed to a xs:date value."); 
+        
+        return xsDate;
+    }
+    
+    /*
+     * Parse a string representation of a date and construct an new XSDate object.
+     * This method returns null, if the supplied string is not a valid xs:date
+     * lexical value.
+     */
+    private static XSDate tryParseDate(String strVal) {
+        
+        if (strVal == null) {
+           return null; 
         }
         
-        return result;
+        XPath3DateTimeParser dateParser = new XPath3DateTimeParser(trimWhitespace(strVal));
+        
+        if (!dateParser.parseDate()) {
+           return null; 
+        }
         
+        return new XSDate(dateParser.getYear(), dateParser.getMonth(), dateParser.getDay(), 
+                                                 dateParser.isTimezoned(), dateParser.getTimezoneOffsetMinutes());
+    }
+    
+    @Override
+    public XSCtrType tryParse(String strVal) {
+        return tryParseDate(strVal);
     }
     
     public XSDuration getTimezone() {
-        return _tz;
+        return _timezoned ? toTimezoneDuration(_tzOffsetMinutes) : null;
     }
 
     @Override
@@ -168,12 +187,13 @@ public class XSDate extends XSCalendarType {
     }
     
     /**
-     * Get the Calendar representation of the date stored.
+     * Get the Calendar representation of the date stored. A new Calendar 
+     * object is constructed, on each call of this method.
      * 
      * @return    the java.util.Calendar representation of the date stored
      */
     public Calendar getCalendar() {
-        return _calendar;
+        return toCalendar(_year, _month, _day, 0);
     }
     
     /**
@@ -182,12 +202,7 @@ public class XSDate extends XSCalendarType {
      * @return   the year value of the date stored
      */
     public int year() {
-	   int year = _calendar.get(Calendar.YEAR);
-	   if (_calendar.get(Calendar.ERA) == GregorianCalendar.BC) {
-		  year *= -1;
-	   }
-
-	   return year;
+	   return _year;
 	}
     
     /**
@@ -196,7 +211,7 @@ public class XSDate extends XSCalendarType {
      * @return   the month value of the date stored
      */
     public int month() {
-       return _calendar.get(Calendar.MONTH) + 1;
+       return _month;
     }
     
     /**
@@ -205,7 +220,7 @@ public class XSDate extends XSCalendarType {
 	 * @return   the day value of the date stored
 	 */
 	public int day() {
-	   return _calendar.get(Calendar.DAY_OF_MONTH);
+	   return _day;
 	}
     
     /**
@@ -217,75 +232,42 @@ public class XSDate extends XSCalendarType {
     public boolean isDateTimezoned() {
         return _timezoned;
     }
+    
+    /**
+     * Get the timezone offset of this XSDate object, as number of minutes. 
+     * The result is meaningful only when the method isDateTimezoned() 
+     * returns true.
+     * 
+     * @return   the timezone offset, as number of minutes
+     */
+    public int timezoneOffset() {
+        return _tzOffsetMinutes;
+    }
 
     @Override
     public String stringValue() {
-        String xsDateStrValue = "";
-
-        Calendar calendarObj = getCalendar();
-
-        if (calendarObj.get(Calendar.ERA) == GregorianCalendar.BC) {
-            xsDateStrValue += "-";
-        }
-
-        xsDateStrValue += XSDateTime.padInt(calendarObj.get(Calendar.YEAR), 4);
-
-        xsDateStrValue += "-";
-        xsDateStrValue += XSDateTime.padInt(month(), 2);
-
-        xsDateStrValue += "-";
-        xsDateStrValue += XSDateTime.padInt(calendarObj.get(Calendar.
-                                                                  DAY_OF_MONTH), 2);
+        FastStringBuffer fsb = new FastStringBuffer(STRING_VALUE_CHUNK_BITS);
+        appendToFsb(fsb);
 
-        if (isDateTimezoned()) {
-            int hrs = _tz.hours();
-            int min = _tz.minutes();
-            double secs = _tz.seconds();
-            if (hrs == 0 && min == 0 && secs == 0) {
-                xsDateStrValue += "Z";
-            } else {
-                String timezoneStr = "";
-                if (_tz.negative()) {
-                    timezoneStr += "-";
-                } else {
-                    timezoneStr += "+";
-                }
-                timezoneStr += XSDateTime.padInt(hrs, 2);
-                timezoneStr += ":";
-                timezoneStr += XSDateTime.padInt(min, 2);
+        return fsb.toString();
+    }
+    
+    @Override
+    public void appendToFsb(FastStringBuffer fsb) {
+        appendDate(fsb, _year, _month, _day);
 
-                xsDateStrValue += timezoneStr;
-            }
+        if (_timezoned) {
+           appendTimezone(fsb, _tzOffsetMinutes);
         }
-
-        return xsDateStrValue;
     }
     
     /**
-     * Determine whether, two XSDate objects are equal.
+     * Determine whether, two XSDate objects are equal. Two values are equal, 
+     * when they start at the same instant (i.e, their timezones may be 
+     * different).
      */
     public boolean equals(XSDate xsDate) {
-        boolean isDateEqual = false;
-        
-        Calendar cal1 = getCalendar();
-        Calendar cal2 = xsDate.getCalendar();                
-        
-        int year1 = cal1.get(Calendar.YEAR);
-        int month1 = cal1.get(Calendar.MONTH);
-        int date1 = cal1.get(Calendar.DATE);
-        
-        int year2 = cal2.get(Calendar.YEAR);
-        int month2 = cal2.get(Calendar.MONTH);
-        int date2 = cal2.get(Calendar.DATE);
-        
-        XSDuration tz1 = getTimezone();
-        XSDuration tz2 = xsDate.getTimezone();
-        
-        isDateEqual = ((year1 == year2) && (month1 == month2) && (date1 == date2)) && 
-                                               isTimezoneEqual(tz1, tz2, isPopulatedFromFnCurrentDate, 
-                                                                                   xsDate.isPopulatedFromFnCurrentDate()); 
-        
-        return isDateEqual; 
+        return compare(xsDate) == 0;
     }
     
     @Override
@@ -300,10 +282,11 @@ public class XSDate extends XSCalendarType {
     }
     
     @Override
-    public int hashCode() {       
-       String strVal = stringValue();       
+    public int hashCode() {
+       // the XSDate values that are equal, start at the same UTC normalized instant
+       long hash = (31L * _utcEpochDay) + _utcNanoOfDay;
        
-       return strVal.hashCode();
+       return (int)(hash ^ (hash >>> 32));
     }
     
     /**
@@ -311,19 +294,7 @@ public class XSDate extends XSCalendarType {
      * XSDate object provided as an argument to this method. 
      */
     public boolean lt(XSDate xsDate) {
-        boolean isDateBefore = false;
-        
-        Calendar cal1 = getCalendar();
-        Calendar cal2 = xsDate.getCalendar();
-        
-        Date date1 = new Date(cal1.get(Calendar.YEAR), cal1.get(Calendar.MONTH), 
-                                                                     cal1.get(Calendar.DATE));
-        Date date2 = new Date(cal2.get(Calendar.YEAR), cal2.get(Calendar.MONTH), 
-                                                                     cal2.get(Calendar.DATE));
-        
-        isDateBefore = date1.before(date2); 
-        
-        return isDateBefore;
+        return compare(xsDate) < 0;
     }
     
     /**
@@ -331,19 +302,19 @@ public class XSDate extends XSCalendarType {
      * XSDate object provided as an argument to this method. 
      */
     public boolean gt(XSDate xsDate) {
-        boolean isDateAfter = false;
-        
-        Calendar cal1 = getCalendar();
-        Calendar cal2 = xsDate.getCalendar();                
-        
-        Date date1 = new Date(cal1.get(Calendar.YEAR), cal1.get(Calendar.MONTH), 
-                                                                      cal1.get(Calendar.DATE));
-        Date date2 = new Date(cal2.get(Calendar.YEAR), cal2.get(Calendar.MONTH), 
-                                                                      cal2.get(Calendar.DATE));
-        
-        isDateAfter = date1.after(date2); 
-        
-        return isDateAfter; 
+        return compare(xsDate) > 0;
+    }
+    
+    /**
+     * Compare this XSDate object with the supplied XSDate object, by the 
+     * instants (normalized to UTC) at which the dates start. A value without 
+     * a timezone, is taken to be in the implicit timezone.
+     * 
+     * @return  a negative integer, zero, or a positive integer as this value
+     *          is before, at the same instant as, or after the supplied value.
+     */
+    public int compare(XSDate xsDate) {
+        return compareInstant(_utcEpochDay, _utcNanoOfDay, xsDate._utcEpochDay, xsDate._utcNanoOfDay);
     }
        
     /**
@@ -361,16 +332,12 @@ public class XSDate extends XSCalendarType {
         
         if (xObject instanceof XSYearMonthDuration) {
            XSYearMonthDuration argVal = (XSYearMonthDuration)xObject;
-           Calendar cal1 = (Calendar)((getCalendar()).clone());
-           cal1.add(Calendar.MONTH, argVal.monthValue());
-           result = new XSDate(cal1, getTimezone());
+           result = new XSDate(addMonths(_year, _month, _day, argVal.monthValue()), _timezoned, 
+                                                                                        _tzOffsetMinutes);
         }
         else if (xObject instanceof XSDayTimeDuration) {
            XSDayTimeDuration argVal = (XSDayTimeDuration)xObject;
-           double argValSecs = argVal.value();
-           Calendar cal1 = (Calendar)((getCalendar()).clone());
-           cal1.setTimeInMillis(cal1.getTimeInMillis() + ((((long)argValSecs * 1000))));
-           result = new XSDate(cal1, getTimezone());
+           result = addSeconds(argVal.totalSeconds(), argVal.nanoOfSecond());
         }
         
         return result;
@@ -391,23 +358,17 @@ public class XSDate extends XSCalendarType {
         }
         
         if (xObject instanceof XSDate) {
-           Calendar cal1 = getCalendar();
-           Calendar cal2 = ((XSDate)xObject).getCalendar();
-           long diffDurationMilliSecs = cal1.getTimeInMillis() - cal2.getTimeInMillis();
-           result = new XSDuration(diffDurationMilliSecs / 1000);
+           XSDate argVal = (XSDate)xObject;
+           result = getInstantDifference(_utcEpochDay, _utcNanoOfDay, argVal._utcEpochDay, argVal._utcNanoOfDay);
         }
         else if (xObject instanceof XSYearMonthDuration) {
            XSYearMonthDuration argVal = (XSYearMonthDuration)xObject;
-           Calendar cal1 = (Calendar)((getCalendar()).clone());
-           cal1.add(Calendar.MONTH, argVal.monthValue() * -1);
-           result = new XSDate(cal1, getTimezone());
+           result = new XSDate(addMonths(_year, _month, _day, argVal.monthValue() * -1), _timezoned, 
+                                                                                        _tzOffsetMinutes);
         }
         else if (xObject instanceof XSDayTimeDuration) {
            XSDayTimeDuration argVal = (XSDayTimeDuration)xObject;
-           double argValSecs = argVal.value();
-           Calendar cal1 = (Calendar)((getCalendar()).clone());
-           cal1.setTimeInMillis(cal1.getTimeInMillis() + ((((long)argValSecs * 1000)) * -1));
-           result = new XSDate(cal1, getTimezone());
+           result = addSeconds(-argVal.totalSeconds(), -argVal.nanoOfSecond());
         }
         
         return result;
@@ -417,30 +378,27 @@ public class XSDate extends XSCalendarType {
         return isPopulatedFromFnCurrentDate;
     }
 
-    public void setPopulatedFromFnCurrentDate(boolean isPopulatedFromFnCurrentDate) {
-        this.isPopulatedFromFnCurrentDate = isPopulatedFromFnCurrentDate;
+    /**
+     * Get an xs:date value, that is same as this xs:date value except that it
+     * has the supplied 'populated from fn:current-date' flag value.
+     */
+    public XSDate withPopulatedFromFnCurrentDate(boolean isPopulatedFromFnCurrentDate) {
+        return new XSDate(_year, _month, _day, _timezoned, _tzOffsetMinutes, isPopulatedFromFnCurrentDate);
     }
     
     public int getType() {
         return CLASS_XS_DATE;
     }
     
-    /**
-     * Do a data type cast, of an XSAnyType argument passed to this method, to
-     * an XSDate object.
+    /*
+     * Get an XSDate value, that is the supplied number of seconds and 
+     * nanoseconds (both of which have the same sign) after this XSDate value 
+     * (the time of day of an XSDate value, is considered to be 00:00:00).
      */
-    private XSDate castToDate(XSAnyType xsAnyType) throws TransformerException {
-        if (xsAnyType instanceof XSDate) {
-            XSDate date = (XSDate) xsAnyType;
-            return new XSDate(date.getCalendar(), date.getTimezone());
-        }
-
-        if (xsAnyType instanceof XSDateTime) {
-            XSDateTime dateTime = (XSDateTime) xsAnyType;
-            return new XSDate(dateTime.getCalendar(), dateTime.getTimezone());
-        }
-
-        return parseDate(xsAnyType.stringValue());
+    private XSDate addSeconds(long seconds, long nanos) {
+        long epochDay = toEpochDay(_year, _month, _day) + getDayShift(0, seconds, nanos);
+        
+        return new XSDate(toPackedDate(epochDay), _timezoned, _tzOffsetMinutes);
     }
 
 }
@@ -11,16 +11,15 @@
  *                                        with XalanJ's XPath 3.1 processor.
  *******************************************************************************/
 
+
 package xml.xpath31.processor.types;
 
 import java.util.Calendar;
-import java.util.Date;
 import java.util.GregorianCalendar;
-import java.util.TimeZone;
 
 import javax.xml.transform.TransformerException;
 
-import org.apache.xpath.objects.ResultSequence;
+import org.apache.xml.utils.FastStringBuffer;
 import org.apache.xpath.objects.XObject;
 
 /**
@@ -33,18 +32,34 @@ public class XSDateTime extends XSCalendarType {
     
     private static final String XS_DATE_TIME = "xs:dateTime";
     
-    private Calendar _calendar;
+    private final int _year;
+    
+    private final int _month;
+    
+    private final int _day;
+    
+    // the time of day, as number of nanoseconds
+    private final long _nanoOfDay;
     
-    private boolean _timezoned;
+    private final boolean _timezoned;
     
-    private XSDuration _tz;
+    // the timezone offset as number of minutes, when this value 
+    // has a timezone.
+    private final int _tzOffsetMinutes;
+    
+    // the UTC normalized instant of this value (as a day, and a time of 
+    // day within that day), by which the XSDateTime values are ordered.
+    private final long _utcEpochDay;
+    
+    private final long _utcNanoOfDay;
     
     /**
      * The value of this class field, stores the fact that whether this
      * XSDateTime object is constructed via XPath function call 
-     * fn:current-dateTime().
+     * fn:current-dateTime(). This flag doesn't affect the comparisons of
+     * XSDateTime values.
      */
-    private boolean isPopulatedFromFnCurrentDateTime = false;
+    private final boolean isPopulatedFromFnCurrentDateTime;
     
     /**
      * Class constructor.
@@ -58,29 +73,53 @@ public class XSDateTime extends XSCalendarType {
      * @param tz      the timezone of the date to be stored
      */
     public XSDateTime(Calendar cal, XSDuration tz) {
-        _calendar = cal;
-        _tz = tz;
-
-        if (tz == null) {
-            _timezoned = false;
-        }
-        else {
-            _timezoned = true;
-        }
+        this(getYear(cal), cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH), 
+                                                             getNanoOfDay(cal), (tz != null), 
+                                                             (tz != null) ? getTimezoneOffsetMinutes(tz) : 0);
     }
     
     /*
      * Class constructor. 
      */
     public XSDateTime(Calendar cal) {
-        _calendar = cal;
-
-        if (_tz == null) {
-            _timezoned = false;
-        }
-        else {
-            _timezoned = true;
-        }
+        this(cal, null);
+    }
+    
+    /**
+     * Class constructor.
+     * 
+     * Creates a new XSDateTime object instance, corresponding to the provided 
+     * date, time and timezone values.
+     * 
+     * @param year               the year value (which is negative, for a BCE year)
+     * @param month              the month value (1 to 12)
+     * @param day                the day value (1 to 31)
+     * @param nanoOfDay          the time of day, as number of nanoseconds
+     * @param timezoned          true if this value has a timezone. false otherwise.
+     * @param tzOffsetMinutes    the timezone offset as number of minutes (this is
+     *                           ignored, if the argument timezoned is false)
+     */
+    public XSDateTime(int year, int month, int day, long nanoOfDay, boolean timezoned, 
+                                                                               int tzOffsetMinutes) {
+        this(year, month, day, nanoOfDay, timezoned, tzOffsetMinutes, false);
+    }
+    
+    /*
+     * Class constructor, that also sets the 'populated from fn:current-dateTime' 
+     * flag value.
+     */
+    private XSDateTime(int year, int month, int day, long nanoOfDay, boolean timezoned, 
+                                          int tzOffsetMinutes, boolean isPopulatedFromFnCurrentDateTime) {
+        _year = year;
+        _month = month;
+        _day = day;
+        _nanoOfDay = nanoOfDay;
+        _timezoned = timezoned;
+        _tzOffsetMinutes = (timezoned ? tzOffsetMinutes : 0);
+        int utcOffsetMinutes = getNormalizingOffsetMinutes(timezoned, tzOffsetMinutes);
+        _utcEpochDay = getUtcEpochDay(toEpochDay(year, month, day), nanoOfDay, utcOffsetMinutes);
+        _utcNanoOfDay = getUtcNanoOfDay(nanoOfDay, utcOffsetMinutes);
+        this.isPopulatedFromFnCurrentDateTime = isPopulatedFromFnCurrentDateTime;
     }
     
     /*
@@ -89,30 +128,34 @@ public class XSDateTime extends XSCalendarType {
     public XSDateTime() {
         this(new GregorianCalendar(), null);
     }
+    
+    /*
+     * Class constructor, using a date packed within a long value.
+     */
+    private XSDateTime(long packedDate, long nanoOfDay, boolean timezoned, int tzOffsetMinutes) {
+        this(getPackedYear(packedDate), getPackedMonth(packedDate), getPackedDay(packedDate), 
+                                                                      nanoOfDay, timezoned, tzOffsetMinutes);
+    }
 
     @Override
-    public ResultSequence constructor(ResultSequence arg) throws TransformerException {
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
-        }
-        
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-        
-        XSDateTime xsDateTime = castToDateTime(xsAnyType);
-        
-        resultSeq.add(xsDateTime);
-        
-        return resultSeq;
+    public XSDateTime cast(XSAnyType xsAnyType) throws TransformerException {
+        return XPath3CastTable.castToDateTime(xsAnyType);
     }
     
+    /**
+     * Get a java.util.Calendar representation of the date and time stored 
+     * within this object. A new Calendar object is constructed, on each call
+     * of this method.
+     * 
+     * @return    the java.util.Calendar representation of the date and time 
+     *            stored
+     */
     public Calendar getCalendar() {
-        return _calendar;
+        return toCalendar(_year, _month, _day, _nanoOfDay);
     }
     
     public XSDuration getTimezone() {
-        return _tz;
+        return _timezoned ? toTimezoneDuration(_tzOffsetMinutes) : null;
     }
 
     @Override
@@ -121,394 +164,52 @@ public class XSDateTime extends XSCalendarType {
     }
     
     /**
-     * Method to check, whether the provided character is numeric.
-     * 
-     * @param x    the character for which, this check is done
-     * 
-     * @return     true if the character is numeric. false otherwise.
-     */
-    public static boolean isDigit(char x) {
-        if ('0' <= x && x <= '9') {
-           return true;
-        }
-        
-        return false;
-    }
-    
-    /**
-     * Parse a string representation of a date and time, and retrieve the year,
-     * month and day components from this string.
+     * Parse a string representation of a date and time, and construct a new
+     * XSDateTime object using that information.
      * 
-     * @param  strVal    the string representation of the date (with an optional  
-     *                   timezone value)
+     * @param strVal    the string representation of the date (with an optional 
+     *                  timezone value)
      * 
-     * @return           an integer array of size 3. first element of this array is the year, 
-     *                   second element is the month, and third element is the day.
+     * @return          the XSDateTime representation of the date and time (with an 
+     *                  optional timezone value)
      */
-    public static int[] parseDate(String strVal) {
-        
-        int[] returnVal = new int[3];
+    public static XSDateTime parseDateTime(String strVal) throws TransformerException {
         
-        int state = 0;
-
-        for (int i = 0; i < returnVal.length; i++) {
-            returnVal[i] = 0;
-        }
-
-        String token = "";
-        for (int i = 0; i < strVal.length(); i++) {
-            char x = strVal.charAt(i);
-
-            switch (state) {
-            case 0:
-                if (isDigit(x)) {
-                    token += x;
-                } else if (x == '-') {
-                    token += x;
-                } else {
-                    return null;
-                }
-                state = 1;
-                break;
-            case 1:
-                if (x == '-') {
-                    String uy = token;
-                    if (uy.startsWith("-")) {
-                        uy = uy.substring(1, uy.length());
-                    }
-                    int uyl = uy.length();
-
-                    if (uyl < 4) {
-                        return null;
-                    }
-
-                    if (uyl == 4) {
-                        if (uy.compareTo("0000") == 0) {
-                           return null;
-                        }                        
-                    } 
-                    else if (uy.charAt(0) == '0') {
-                        return null;
-                    }
-
-                    returnVal[0] = Integer.parseInt(token);
-                    token = "";
-                    state = 2;
-                } 
-                else if (isDigit(x)) {
-                    token += x;
-                }
-                else {
-                    return null;
-                }
-                break;
-            case 2:
-                if (x == '-') {
-                    if (token.length() != 2) {
-                        return null;
-                    }
-
-                    returnVal[1] = Integer.parseInt(token);
-                    token = "";
-                    state = 3;
-                } else if (isDigit(x)) {
-                    token += x;
-                }
-                else {
-                    return null;
-                }
-                break;
-            case 3:
-                if (isDigit(x)) {
-                    token += x;
-                }
-                else {
-                    return null;
-                }
-                break;
-            default:
-                return returnVal;
-            }
-        }
+        XSDateTime xsDateTime = tryParseDateTime(strVal);
         
-        if (state != 3) {
-            return null;
+        if (xsDateTime == null) {
+           throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
+                                                                              + "cannot be parsed to a xs:dateTime value.");
         }
 
-        if (token.length() != 2) {
-            return null;
-        }
-
-        returnVal[2] = Integer.parseInt(token);
-
-        return returnVal;
+        return xsDateTime;
     }
     
-    /**
-     * Parse a string representation of a date and time, and retrieve the hour,
-     * minute and second components from this string.
-     * 
-     * @param   strVal    the string representation of the date (with an optional 
-     *                    timezone value)
-     * 
-     * @return            an integer array of size 3. first element is the hour, second 
-     *                    element is the minute, and third element is the seconds.
+    /*
+     * Parse a string representation of a date and time, and construct a new
+     * XSDateTime object using that information. This method returns null, if
+     * the supplied string is not a valid xs:dateTime lexical value.
      */
-    public static double[] parseTime(String strVal) {
-        
-        double[] returnVal = new double[3];
+    private static XSDateTime tryParseDateTime(String strVal) {
         
-        int state = 0;
-
-        String token = "";
-
-        for (int i = 0; i < strVal.length(); i++) {
-            char x = strVal.charAt(i);
-
-            switch (state) {
-            case 0:
-            case 1:
-                if (x == ':') {
-                    if (token.length() != 2) {
-                        return null;
-                    }
-                    returnVal[state] = Integer.parseInt(token);
-                    state++;
-                    token = "";
-                } else if (isDigit(x)) {
-                    token += x;
-                }
-                else {
-                    return null;
-                }
-                break;
-            case 2:
-                if (isDigit(x)) {
-                    token += x;
-                    if (token.length() > 2) {
-                        return null;
-                    }
-                } else if (x == '.') {
-                    token += x;
-                    state = 3;
-                } else {
-                    return null;
-                }
-                break;
-            case 3:
-                if (isDigit(x)) {
-                    token += x;
-                }
-                else {
-                    return null;
-                }
-                break;
-            default:
-                return null;
-            }
+        if (strVal == null) {
+           return null; 
         }
         
-        if (!(state == 3 || state == 2)) {
-            return null;
-        }
+        XPath3DateTimeParser dateTimeParser = new XPath3DateTimeParser(trimWhitespace(strVal));
         
-        if (token.length() == 3) {
-            return null;
-        }
-
-        returnVal[2] = Double.parseDouble(token);
-
-        if (returnVal[0] == 24.0) {
-            returnVal[0] = 00.0;
+        if (!dateTimeParser.parseDateTime()) {
+           return null;
         }
 
-        return returnVal;
+        return new XSDateTime(dateTimeParser.getYear(), dateTimeParser.getMonth(), dateTimeParser.getDay(), 
+                                                 dateTimeParser.getNanoOfDay(), dateTimeParser.isTimezoned(), 
+                                                 dateTimeParser.getTimezoneOffsetMinutes());
     }
     
-    /**
-     * Parse a string representation of a date and time, and retrieve the
-     * timezone component from this string.
-     * 
-     * @param  strVal   the string representation of the date (with an optional 
-     *                  timezone value)
-     * 
-     * @return          an integer array of size 3. first element represents whether the
-     *                  timezone is ahead or behind GMT, second element is the hour
-     *                  displacement, and third element is the minute displacement.
-     */
-    public static int[] parseTimezone(String strVal) {
-        
-        int[] returnVal = new int[3];
-
-        for (int i = 0; i < returnVal.length; i++) {
-            returnVal[i] = 0;
-        }
-        
-        returnVal[0] = 1;
-
-        if (strVal.equals("Z")) {
-            return returnVal;
-        }
-
-        if (strVal.startsWith("+")) {
-            returnVal[0] = 1;
-        }
-        else if (strVal.startsWith("-")) {
-            returnVal[0] = -1;
-        }
-        else {
-            return null;
-        }
-
-        strVal = strVal.substring(1, strVal.length());
-
-        if (strVal.length() != (2 + 1 + 2)) {
-            return null;
-        }
-
-        try {
-            returnVal[1] = Integer.parseInt(strVal.substring(0, 2));
-            returnVal[2] = Integer.parseInt(strVal.substring(3, 5));
-
-            if (returnVal[1] > 14) {
-                return null;
-            }
-            
-            if (returnVal[2] > 59) {
-                return null;
-            }
-
-            return returnVal;
-        } catch (NumberFormatException ex) {
-            return null;
-        }
-    }
-    
-    /**
-     * Parse a string representation of a date and time, and construct a new
-     * XSDateTime object using that information.
-     * 
-     * @param strVal    the string representation of the date (with an optional 
-     *                  timezone value)
-     * 
-     * @return          the XSDateTime representation of the date and time (with an 
-     *                  optional timezone value)
-     */
-    public static XSDateTime parseDateTime(String strVal) throws TransformerException {
-        
-        XSDateTime xsDateTime = null;
-
-        try {
-            int idx = strVal.indexOf('T');
-            if (idx == -1) {
-               throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                  + "cannot be parsed to a xs:dateTime value.");
-            }
-    
-            String date = strVal.substring(0, idx);
-            String time = strVal.substring(idx + 1, strVal.length());
-            String timezone = null;
-    
-            idx = time.indexOf('+');
-            if (idx == -1) {
-                idx = time.indexOf('-');
-            }
-            if (idx == -1) {
-                idx = time.indexOf('Z');
-            }
-            if (idx != -1) {
-                timezone = time.substring(idx, time.length());
-                time = time.substring(0, idx);
-            }
-    
-            int d[] = parseDate(date);
-            if (d == null) {
-               throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                             + "cannot be parsed to a xs:dateTime value.");
-            }
-    
-            TimeZone defaultTimezone = TimeZone.getDefault();
-            GregorianCalendar gregorianCalendarObj = new GregorianCalendar(
-                                                                     defaultTimezone);
-    
-            int year = d[0];
-            if (year < 0) {
-                year *= -1;
-                gregorianCalendarObj.set(Calendar.ERA, GregorianCalendar.BC);
-            } else {
-                gregorianCalendarObj.set(Calendar.ERA, GregorianCalendar.AD);
-            }
-    
-            gregorianCalendarObj.set(Calendar.DAY_OF_MONTH, 2);
-            gregorianCalendarObj.set(Calendar.MONTH, 2);
-    
-            if (!setItem(gregorianCalendarObj, Calendar.YEAR, year)) {
-                throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                              + "cannot be parsed to a xs:dateTime value.");
-            }
-    
-            if (!setItem(gregorianCalendarObj, Calendar.MONTH, d[1] - 1)) {
-                throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                              + "cannot be parsed to a xs:dateTime value.");
-            }
-    
-            if (!setItem(gregorianCalendarObj, Calendar.DAY_OF_MONTH, d[2])) {
-                throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                              + "cannot be parsed to a xs:dateTime value.");
-            }
-    
-            double t[] = parseTime(time);
-            if (t == null) {
-                throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                              + "cannot be parsed to a xs:dateTime value.");
-            }
-    
-            if (!setItem(gregorianCalendarObj, Calendar.HOUR_OF_DAY, (int) t[0])) {
-                throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                              + "cannot be parsed to a xs:dateTime value.");
-            }
-    
-            if (!setItem(gregorianCalendarObj, Calendar.MINUTE, (int) t[1])) {
-                throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                              + "cannot be parsed to a xs:dateTime value.");
-            }
-    
-            if (!setItem(gregorianCalendarObj, Calendar.SECOND, (int) t[2])) {
-                throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                              + "cannot be parsed to a xs:dateTime value.");
-            }
-    
-            double ms = t[2] - ((int) t[2]);
-            ms *= 1000;
-            if (!setItem(gregorianCalendarObj, Calendar.MILLISECOND, (int) ms)) {
-                throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                              + "cannot be parsed to a xs:dateTime value.");
-            }
-    
-            int tz[] = null;
-            XSDuration timezoneVal = null;
-            if (timezone != null) {
-                tz = parseTimezone(timezone);
-    
-                if (tz == null) {
-                   throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                 + "cannot be parsed to a xs:dateTime value.");
-                }
-    
-                timezoneVal = new XSDayTimeDuration(0, tz[1], tz[2], 0.0, tz[0] < 0);
-            }
-            
-            xsDateTime = new XSDateTime(gregorianCalendarObj, timezoneVal);
-        }
-        catch (TransformerException ex) {
-            throw ex;  
-        }
-        catch (Exception ex) {
-            throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                               + "cannot be parsed to a xs:dateTime value."); 
-        }
-
-        return xsDateTime;
+    @Override
+    public XSCtrType tryParse(String strVal) {
+        return tryParseDateTime(strVal);
     }
 
     @Override
@@ -516,69 +217,60 @@ public class XSDateTime extends XSCalendarType {
         return XS_DATE_TIME;
     }
     
+    /**
+     * Get the string value of an integer, padded with leading zeros to the 
+     * supplied number of digits.
+     */
     public static String padInt(int num, int len) {        
-        String returnVal = "";
-        
-        String numStr = "" + num;
-
-        int pad = len - numStr.length();
-
-        if (num < 0) {
-            returnVal += "-";
-            numStr = numStr.substring(1, numStr.length());
-            pad++;
-        }
-
-        StringBuffer strBuf = new StringBuffer(returnVal);
-        
-        for (int i = 0; i < pad; i++) {
-            strBuf.append("0");
-        }
-        
-        strBuf.append(numStr);
+        FastStringBuffer fsb = new FastStringBuffer(STRING_VALUE_CHUNK_BITS);
+        appendDigits(fsb, num, len);
         
-        returnVal = strBuf.toString();
-        
-        return returnVal;
+        return fsb.toString();
     }
     
     public int year() {
-        int year = _calendar.get(Calendar.YEAR);
-        if (_calendar.get(Calendar.ERA) == GregorianCalendar.BC) {
-           year = year * -1;
-        }
-
-        return year;
+        return _year;
     }
     
     public int month() {
-        return _calendar.get(Calendar.MONTH) + 1;
+        return _month;
     }
     
     public int day() {
-        return _calendar.get(Calendar.DAY_OF_MONTH);
+        return _day;
     }
     
     public int hour() {
-        return _calendar.get(Calendar.HOUR_OF_DAY);
+        return (int)(_nanoOfDay / NANOS_PER_HOUR);
     }
     
     public int minute() {
-        return _calendar.get(Calendar.MINUTE);
+        return (int)((_nanoOfDay / NANOS_PER_MINUTE) % 60);
     }
     
-    /*public double second() {
-        double secondVal = _calendar.get(Calendar.SECOND);
-        double millisecVal = _calendar.get(Calendar.MILLISECOND);
-
-        millisecVal /= 1000;
-        secondVal += millisecVal;
-        
-        return secondVal;
-    }*/
-    
     public int second() {
-        return _calendar.get(Calendar.SECOND);       
+        return (int)((_nanoOfDay / NANOS_PER_SECOND) % 60);       
+    }
+    
+    /**
+     * Get the time of day stored within this XSDateTime object, as number 
+     * of nanoseconds.
+     * 
+     * @return   the time of day, as number of nanoseconds
+     */
+    public long nanoOfDay() {
+        return _nanoOfDay;
+    }
+    
+    /**
+     * Get the timezone offset of this XSDateTime object, as number of 
+     * minutes. The result is meaningful only when the method 
+     * isDateTimeTimezoned() returns true.
+     * 
+     * @return   the timezone offset, as number of minutes
+     */
+    public int timezoneOffset() {
+        return _tzOffsetMinutes;
     }
     
     /**
@@ -593,101 +285,30 @@ public class XSDateTime extends XSCalendarType {
 
     @Override
     public String stringValue() {
-        String returnVal = "";
-
-        Calendar calendarVal = getCalendar();
-
-        if (calendarVal.get(Calendar.ERA) == GregorianCalendar.BC) {
-            returnVal += "-";
-        }
-
-        returnVal += padInt(calendarVal.get(Calendar.YEAR), 4);
-
-        returnVal += "-";
-        returnVal += padInt(month(), 2);
-
-        returnVal += "-";
-        returnVal += padInt(calendarVal.get(Calendar.DAY_OF_MONTH), 2);
-
-        returnVal += "T";
-
-        returnVal += padInt(calendarVal.get(Calendar.HOUR_OF_DAY), 2);
-
-        returnVal += ":";
-        returnVal += padInt(calendarVal.get(Calendar.MINUTE), 2);
-
-        returnVal += ":";
-        int intSec = (int)second();
-        double doubleSec = second();
+        FastStringBuffer fsb = new FastStringBuffer(STRING_VALUE_CHUNK_BITS);
+        appendToFsb(fsb);
 
-        if ((doubleSec - intSec) == 0.0) {
-           returnVal += padInt(intSec, 2);
-        }
-        else {
-            if (doubleSec < 10.0) {
-               returnVal += "0" + doubleSec;
-            }
-            else {
-               returnVal += doubleSec;
-            }
-        }
-
-        if (isDateTimeTimezoned()) {
-            int hrs = _tz.hours();
-            int min = _tz.minutes();
-            double secs = _tz.seconds();
-            if ((hrs == 0) && (min == 0) && (secs == 0)) {
-                returnVal += "Z";
-            } else {
-                String timezoneStr = "";
-                if (_tz.negative()) {
-                    timezoneStr += "-";
-                } else {
-                    timezoneStr += "+";
-                }
-                timezoneStr += padInt(hrs, 2);
-                timezoneStr += ":";
-                timezoneStr += padInt(min, 2);
-
-                returnVal += timezoneStr;
-            }
+        return fsb.toString();
+    }
+    
+    @Override
+    public void appendToFsb(FastStringBuffer fsb) {
+        appendDate(fsb, _year, _month, _day);
+        fsb.append('T');
+        appendTimeOfDay(fsb, _nanoOfDay);
+        
+        if (_timezoned) {
+           appendTimezone(fsb, _tzOffsetMinutes);
         }
-
-        return returnVal;
     }
     
     /**
-     * Determine whether, two XSDateTime objects are equal.
+     * Determine whether, two XSDateTime objects are equal. Two values are 
+     * equal, when they represent the same instant (i.e, their timezones may 
+     * be different).
      */
     public boolean equals(XSDateTime xsDateTime) {
-        boolean isDateTimeEqual = false;
-        
-        Calendar cal1 = getCalendar();
-        Calendar cal2 = xsDateTime.getCalendar();
-        
-        int year1 = cal1.get(Calendar.YEAR);
-        int month1 = cal1.get(Calendar.MONTH);
-        int date1 = cal1.get(Calendar.DATE);
-        int hour1 = hour();
-        int mins1 = minute();
-        double secs1 = second();
-        
-        int year2 = cal2.get(Calendar.YEAR);
-        int month2 = cal2.get(Calendar.MONTH);
-        int date2 = cal2.get(Calendar.DATE);
-        int hour2 = xsDateTime.hour();
-        int mins2 = xsDateTime.minute();
-        double secs2 = xsDateTime.second();
-        
-        XSDuration tz1 = getTimezone();
-        XSDuration tz2 = xsDateTime.getTimezone();
-        
-        isDateTimeEqual = ((year1 == year2) && (month1 == month2) && (date1 == date2) && 
-                           (hour1 == hour2) && (mins1 == mins2) && (secs1 == secs2)) && 
-                                                    isTimezoneEqual(tz1, tz2, isPopulatedFromFnCurrentDateTime, 
-                                                                    xsDateTime.isPopulatedFromFnCurrentDateTime());
-        
-        return isDateTimeEqual;
+        return compare(xsDateTime) == 0;
     }
     
     @Override
@@ -702,10 +323,11 @@ public class XSDateTime extends XSCalendarType {
     }
     
     @Override
-    public int hashCode() {       
-       String strVal = stringValue();       
+    public int hashCode() {
+       // the XSDateTime values that are equal, have the same UTC normalized instant
+       long hash = (31L * _utcEpochDay) + _utcNanoOfDay;
        
-       return strVal.hashCode();
+       return (int)(hash ^ (hash >>> 32));
     }
     
     /**
@@ -713,44 +335,7 @@ public class XSDateTime extends XSCalendarType {
      * XSDateTime object provided as an argument to this method. 
      */
     public boolean lt(XSDateTime xsDateTime) {
-        boolean isDateTimeBefore = false;
-        
-        Calendar cal1 = getCalendar();
-        Calendar cal2 = xsDateTime.getCalendar();
-        
-        Date date1 = new Date(cal1.get(Calendar.YEAR), cal1.get(Calendar.MONTH), 
-                                                                     cal1.get(Calendar.DATE));
-        Date date2 = new Date(cal2.get(Calendar.YEAR), cal2.get(Calendar.MONTH), 
-                                                                     cal2.get(Calendar.DATE));
-        
-        if (date1.before(date2)) {
-           isDateTimeBefore = true;  
-        }
-        else if (date1.equals(date2)) {
-            int hour1 = hour();
-            int mins1 = minute();
-            double secs1 = second();
-            
-            int hour2 = xsDateTime.hour();
-            int mins2 = xsDateTime.minute();
-            double secs2 = xsDateTime.second();
-            
-            if (hour1 < hour2) {
-               isDateTimeBefore = true; 
-            }
-            else if (hour1 == hour2) {
-               if (mins1 < mins2) {
-                  isDateTimeBefore = true;  
-               }
-               else if (mins1 == mins2) {
-                  if (secs1 < secs2) {
-                     isDateTimeBefore = true;  
-                  }
-               }
-            }
-        }
-        
-        return isDateTimeBefore;
+        return compare(xsDateTime) < 0;
     }
     
     /**
@@ -758,44 +343,20 @@ public class XSDateTime extends XSCalendarType {
      * XSDateTime object provided as an argument to this method. 
      */
     public boolean gt(XSDateTime xsDateTime) {
-        boolean isDateTimeAfter = false;
-        
-        Calendar cal1 = getCalendar();
-        Calendar cal2 = xsDateTime.getCalendar();
-        
-        Date date1 = new Date(cal1.get(Calendar.YEAR), cal1.get(Calendar.MONTH), 
-                                                                     cal1.get(Calendar.DATE));
-        Date date2 = new Date(cal2.get(Calendar.YEAR), cal2.get(Calendar.MONTH), 
-                                                                     cal2.get(Calendar.DATE));
-        
-        if (date1.after(date2)) {
-           isDateTimeAfter = true;  
-        }
-        else if (date1.equals(date2)) {
-            int hour1 = hour();
-            int mins1 = minute();
-            double secs1 = second();
-            
-            int hour2 = xsDateTime.hour();
-            int mins2 = xsDateTime.minute();
-            double secs2 = xsDateTime.second();
-            
-            if (hour1 > hour2) {
-               isDateTimeAfter = true; 
-            }
-            else if (hour1 == hour2) {
-               if (mins1 > mins2) {
-                  isDateTimeAfter = true;  
-               }
-               else if (mins1 == mins2) {
-                  if (secs1 > secs2) {
-                     isDateTimeAfter = true;  
-                  }
-               }
-            }
-        }
-        
-        return isDateTimeAfter;
+        return compare(xsDateTime) > 0;
+    }
+    
+    /**
+     * Compare this XSDateTime object with the supplied XSDateTime object, by 
+     * the instants (normalized to UTC) that the values represent. A value 
+     * without a timezone, is taken to be in the implicit timezone.
+     * 
+     * @return  a negative integer, zero, or a positive integer as this value
+     *          is before, at the same instant as, or after the supplied value.
+     */
+    public int compare(XSDateTime xsDateTime) {
+        return compareInstant(_utcEpochDay, _utcNanoOfDay, xsDateTime._utcEpochDay, 
+                                                                                   xsDateTime._utcNanoOfDay);
     }
     
     /**
@@ -813,16 +374,12 @@ public class XSDateTime extends XSCalendarType {
         
         if (xObject instanceof XSYearMonthDuration) {
            XSYearMonthDuration argVal = (XSYearMonthDuration)xObject;
-           Calendar cal1 = (Calendar)((getCalendar()).clone());
-           cal1.add(Calendar.MONTH, argVal.monthValue());
-           result = new XSDateTime(cal1, getTimezone());
+           result = new XSDateTime(addMonths(_year, _month, _day, argVal.monthValue()), _nanoOfDay, 
+                                                                                  _timezoned, _tzOffsetMinutes);
         }
         else if (xObject instanceof XSDayTimeDuration) {
            XSDayTimeDuration argVal = (XSDayTimeDuration)xObject;
-           double argValSecs = argVal.value();
-           Calendar cal1 = (Calendar)((getCalendar()).clone());
-           cal1.setTimeInMillis(cal1.getTimeInMillis() + ((((long)argValSecs * 1000))));
-           result = new XSDateTime(cal1, getTimezone());
+           result = addSeconds(argVal.totalSeconds(), argVal.nanoOfSecond());
         }
         
         return result;
@@ -843,23 +400,17 @@ public class XSDateTime extends XSCalendarType {
          }
          
          if (xObject instanceof XSDateTime) {
-            Calendar cal1 = getCalendar();
-            Calendar cal2 = ((XSDateTime)xObject).getCalendar();
-            long diffDurationMilliSecs = cal1.getTimeInMillis() - cal2.getTimeInMillis();
-            result = new XSDayTimeDuration(diffDurationMilliSecs / 1000);
+            XSDateTime argVal = (XSDateTime)xObject;
+            result = getInstantDifference(_utcEpochDay, _utcNanoOfDay, argVal._utcEpochDay, argVal._utcNanoOfDay);
          }
          else if (xObject instanceof XSYearMonthDuration) {
             XSYearMonthDuration argVal = (XSYearMonthDuration)xObject;
-            Calendar cal1 = (Calendar)((getCalendar()).clone());
-            cal1.add(Calendar.MONTH, argVal.monthValue() * -1);
-            result = new XSDateTime(cal1, getTimezone());
+            result = new XSDateTime(addMonths(_year, _month, _day, argVal.monthValue() * -1), _nanoOfDay, 
+                                                                                  _timezoned, _tzOffsetMinutes);
          }
          else if (xObject instanceof XSDayTimeDuration) {
             XSDayTimeDuration argVal = (XSDayTimeDuration)xObject;
-            double argValSecs = argVal.value();
-            Calendar cal1 = (Calendar)((getCalendar()).clone());
-            cal1.setTimeInMillis(cal1.getTimeInMillis() + ((((long)argValSecs * 1000)) * -1));
-            result = new XSDateTime(cal1, getTimezone());
+            result = addSeconds(-argVal.totalSeconds(), -argVal.nanoOfSecond());
          }
          
          return result;
@@ -869,54 +420,29 @@ public class XSDateTime extends XSCalendarType {
         return isPopulatedFromFnCurrentDateTime;
     }
     
-    public void setPopulatedFromFnCurrentDateTime(boolean isPopulatedFromFnCurrentDateTime) {
-        this.isPopulatedFromFnCurrentDateTime = isPopulatedFromFnCurrentDateTime;
+    /**
+     * Get an xs:dateTime value, that is same as this xs:dateTime value except that 
+     * it has the supplied 'populated from fn:current-dateTime' flag value.
+     */
+    public XSDateTime withPopulatedFromFnCurrentDateTime(boolean isPopulatedFromFnCurrentDateTime) {
+        return new XSDateTime(_year, _month, _day, _nanoOfDay, _timezoned, _tzOffsetMinutes, 
+                                                                          isPopulatedFromFnCurrentDateTime);
     }
     
     public int getType() {
         return CLASS_XS_DATETIME;
     }
     
-    /**
-     * Do a data type cast, of an XSAnyType argument passed to this method, to
-     * an XSDateTime object.
-     */
-    private XSDateTime castToDateTime(XSAnyType xsAnyType) throws TransformerException {
-        if (xsAnyType instanceof XSDate) {
-            XSDate xsDate = (XSDate) xsAnyType;
-            return new XSDateTime(xsDate.getCalendar(), xsDate.getTimezone());
-        }
-
-        if (xsAnyType instanceof XSDateTime) {
-            XSDateTime xsDateTime = (XSDateTime) xsAnyType;
-            return new XSDateTime(xsDateTime.getCalendar(), xsDateTime.getTimezone());
-        }
-
-        return parseDateTime(xsAnyType.stringValue()); 
-    }
-    
-    /**
-     * Set a particular field within an java.util.Calendar object.
-     * 
-     * @param cal           the Calendar object to set the field in
-     * @param fieldId       the field to set
-     * @param fieldval      the value to set the field to
-     * 
-     * @return              true if successfully set. false otherwise
+    /*
+     * Get an XSDateTime value, that is the supplied number of seconds and 
+     * nanoseconds (both of which have the same sign) after this XSDateTime 
+     * value.
      */
-    private static boolean setItem(Calendar cal, int fieldId, int fieldval) {
-
-        if (fieldval < cal.getActualMinimum(fieldId)) {
-            return false;
-        }
-
-        if (fieldval > cal.getActualMaximum(fieldId)) {
-            return false;
-        }
-
-        cal.set(fieldId, fieldval);
+    private XSDateTime addSeconds(long seconds, long nanos) {
+        long epochDay = toEpochDay(_year, _month, _day) + getDayShift(_nanoOfDay, seconds, nanos);
         
-        return true;
+        return new XSDateTime(toPackedDate(epochDay), getShiftedNanoOfDay(_nanoOfDay, seconds, nanos), 
+                                                                                  _timezoned, _tzOffsetMinutes);
     }
 
 }
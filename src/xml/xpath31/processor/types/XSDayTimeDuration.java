@@ -14,11 +14,11 @@
 package xml.xpath31.processor.types;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
 
 import javax.xml.transform.TransformerException;
 
-import org.apache.xpath.objects.ResultSequence;
-
 /**
  * An XML Schema data type representation, of the xs:dayTimeDuration 
  * datatype.
@@ -28,6 +28,12 @@ public class XSDayTimeDuration extends XSDuration {
     private static final long serialVersionUID = 4194060959383397526L;
     
     private static final String XS_DAY_TIME_DURATION = "xs:dayTimeDuration";
+    
+    private static final BigInteger BIG_NANOS_PER_SECOND = BigInteger.valueOf(NANOS_PER_SECOND);
+    
+    // the largest double value, such that all the integers with a smaller
+    // magnitude are exactly representable as double values (i.e, 2^53).
+    private static final double MAX_EXACT_LONG_DOUBLE = 9007199254740992.0;
 
 	/**
 	 * Initializes an XSDayTimeDuration object, with the supplied parameters. If more than 24 
@@ -62,28 +68,25 @@ public class XSDayTimeDuration extends XSDuration {
 	public XSDayTimeDuration() {
 		super(0, 0, 0, 0, 0, 0.0, false);
 	}
+	
+	/*
+	 * Class constructor. The supplied number of seconds and nanoseconds are 
+	 * the non-negative magnitudes of the duration components.
+	 * 
+	 * @throws ArithmeticException    if the duration is too long, to be 
+	 *                                represented by this class.
+	 */
+	XSDayTimeDuration(long seconds, long nanos, boolean negative) {
+		super(0L, seconds, nanos, negative);
+	}
 
 	/**
-	 * A method to construct an xdm sequence comprising a
-	 * xs:dayTimeDuration value, given input data as argument
-	 * to this method.
+	 * A method to cast a value to a xs:dayTimeDuration value.
 	 * 
 	 * @throws TransformerException 
 	 */
-	public ResultSequence constructor(ResultSequence arg) throws TransformerException {
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
-        }
-        
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-        
-        XSDuration xsDuration = castToDayTimeDuration(xsAnyType);
-        
-        resultSeq.add(xsDuration);
-
-        return resultSeq;	
+	public XSDuration cast(XSAnyType xsAnyType) throws TransformerException {
+        return XPath3CastTable.castToDayTimeDuration(xsAnyType);	
 	}
 
 	
@@ -97,98 +100,33 @@ public class XSDayTimeDuration extends XSDuration {
 	 *                       supplied string.
 	 */
 	public static XSDuration parseDayTimeDuration(String strVal) throws TransformerException {
-		
-	    boolean isDurationNegative = false;
-		
-		int days = 0;
-		int hours = 0;
-		int minutes = 0;
-		double seconds = 0;
-
-		String pstr = null;
-		String tstr = null;
-
-		if (strVal.startsWith("-P")) {
-			isDurationNegative = true;
-			pstr = strVal.substring(2, strVal.length());
-		} else if (strVal.startsWith("P")) {
-			isDurationNegative = false;
-			pstr = strVal.substring(1, strVal.length());
-		} else {
+		XSDuration xsDuration = tryParseDayTimeDuration(strVal);
+		if (xsDuration == null) {
 		    throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
                                                                                           + "cannot be parsed to a xs:dayTimeDuration value.");
 		}
 
-		try {
-			int index = pstr.indexOf('D');
-			boolean actionStatus = false;
-
-			if (index == -1) {
-				if (pstr.startsWith("T")) {
-					tstr = pstr.substring(1, pstr.length());
-				} else {
-				    throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                  + "cannot be parsed to a xs:dayTimeDuration value.");
-				}
-			} else {
-				String digit = pstr.substring(0, index);
-				days = Integer.parseInt(digit);
-				tstr = pstr.substring(index + 1, pstr.length());
-
-				if (tstr.startsWith("T")) {
-					tstr = tstr.substring(1, tstr.length());
-				} else {
-					if (tstr.length() > 0) {
-					   throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                     + "cannot be parsed to a xs:dayTimeDuration value.");
-					}
-					tstr = "";
-					actionStatus = true;
-				}
-			}
-
-			index = tstr.indexOf('H');
-			if (index != -1) {
-				String digit = tstr.substring(0, index);
-				hours = Integer.parseInt(digit);
-				tstr = tstr.substring(index + 1, tstr.length());
-				actionStatus = true;
-			}
-
-			index = tstr.indexOf('M');
-			if (index != -1) {
-				String digit = tstr.substring(0, index);
-				minutes = Integer.parseInt(digit);
-				tstr = tstr.substring(index + 1, tstr.length());
-				actionStatus = true;
-			}
+		return xsDuration;
+	}
 
-			index = tstr.indexOf('S');
-			if (index != -1) {
-				String digit = tstr.substring(0, index);
-				seconds = Double.parseDouble(digit);
-				tstr = tstr.substring(index + 1, tstr.length());
-				actionStatus = true;
-			}
-			if (actionStatus) {
-				if (tstr.length() != 0) {
-				    throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                  + "cannot be parsed to a xs:dayTimeDuration value.");
-				}
-			} else {
-			    throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                     + "cannot be parsed to a xs:dayTimeDuration value.");
-			}
-		} 
-		catch (TransformerException ex) {
-	        throw ex;  
-	    }
-		catch (Exception ex) {
-		    throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                          + "cannot be parsed to a xs:dayTimeDuration value.");
-		}
+	/**
+	 * Creates a new XSDuration object, by parsing the supplied String
+	 * representation of XSDuration.
+	 * 
+	 * @param    strVal      String representation of XSDuration value
+	 * 
+	 * @return               new XSDuration object, representing the 
+	 *                       supplied string, or null if the supplied 
+	 *                       string is not a valid xs:dayTimeDuration 
+	 *                       lexical value.
+	 */
+	static XSDuration tryParseDayTimeDuration(String strVal) {
+		return XPath3DurationLexer.parse(strVal, XPath3DurationLexer.DAY_TIME_DURATION);
+	}
 
-		return new XSDayTimeDuration(days, hours, minutes, seconds, isDurationNegative);
+	@Override
+	public XSCtrType tryParse(String strVal) {
+		return tryParseDayTimeDuration(strVal);
 	}
 
 	/**
@@ -212,27 +150,31 @@ public class XSDayTimeDuration extends XSDuration {
 	/**
 	 * Method to add an XSDayTimeDuration value, to this 
 	 * XSDayTimeDuration value.
+	 * 
+	 * @throws ArithmeticException    if the resulting duration is too long,
+	 *                                to be represented by this class.
 	 */
 	public XSDayTimeDuration add(XSDayTimeDuration xsDayTimeDuration) {       
-        double sum = value() + xsDayTimeDuration.value();
-
-        return new XSDayTimeDuration(sum);
+        return fromSeconds(Math.addExact(totalSeconds(), xsDayTimeDuration.totalSeconds()), 
+                                                   (long)nanoOfSecond() + xsDayTimeDuration.nanoOfSecond());
     }
 	
     /**
      * Method to subtract an XSDayTimeDuration value, from this 
      * XSDayTimeDuration value.
+     * 
+     * @throws ArithmeticException    if the resulting duration is too long,
+     *                                to be represented by this class.
      */
     public XSDayTimeDuration subtract(XSDayTimeDuration xsDayTimeDuration) {       
-        double diff = value() - xsDayTimeDuration.value();
-
-        return new XSDayTimeDuration(diff);
+        return fromSeconds(Math.subtractExact(totalSeconds(), xsDayTimeDuration.totalSeconds()), 
+                                                   (long)nanoOfSecond() - xsDayTimeDuration.nanoOfSecond());
     }
     
     /**
      * Method to multiply an XSDayTimeDuration value represented by this
      * object, with a numeric value represented by an argument passed to
-     * this method.
+     * this method. The result is rounded to the nearest nanosecond.
      * 
      * @throws TransformerException 
      */
@@ -240,14 +182,29 @@ public class XSDayTimeDuration extends XSDuration {
         
         XSDayTimeDuration result = null;
         
-        if (xsAnyType instanceof XSNumericType) {
-           String argStrVal = ((XSNumericType)xsAnyType).stringValue();
-           XSDouble argDoubleVal = new XSDouble(argStrVal);
-           if (argDoubleVal.nan()) {
+        if ((xsAnyType instanceof XSDouble) || (xsAnyType instanceof XSFloat)) {
+           double dblVal = getDoubleValue(xsAnyType);
+           if (Double.isNaN(dblVal)) {
               throw new TransformerException("FOCA0005 : Cannot multiply an XSDayTimeDuration value with NaN.");  
            }
+           else if (Double.isInfinite(dblVal)) {
+              throw new TransformerException("FODT0002 : Overflow when multiplying an XSDayTimeDuration value with "
+                                                                                                          + "infinity.");
+           }
+           else if (isExactLongValue(dblVal)) {
+              result = scaleDuration((long)dblVal, 0, false);
+           }
+           else {
+              result = scaleDuration(new BigDecimal(dblVal), false);
+           }
+        }
+        else if (xsAnyType instanceof XSDecimal) {
+           XSDecimal xsDecimal = (XSDecimal)xsAnyType;
+           if (isLongScalable(xsDecimal)) {
+              result = scaleDuration(xsDecimal.getUnscaledValue(), xsDecimal.getCompactScale(), false);
+           }
            else {
-              result = new XSDayTimeDuration(value() * argDoubleVal.doubleValue()); 
+              result = scaleDuration(xsDecimal.getValue(), false);
            }
         }
         else {
@@ -263,47 +220,67 @@ public class XSDayTimeDuration extends XSDuration {
      * either a numeric value or a XSDayTimeDuration value) that is passed as an
      * argument to this method.
      * 
+     * When the argument is a numeric value, the result is an XSDayTimeDuration 
+     * value rounded to the nearest nanosecond. When the argument is an 
+     * XSDayTimeDuration value, the result is an XSDecimal value.
+     * 
      * @throws TransformerException 
      */
-    public XSDayTimeDuration div(XSAnyType xsAnyType) throws TransformerException {
+    public XSAnyType div(XSAnyType xsAnyType) throws TransformerException {
         
-        XSDayTimeDuration result = null;
+        XSAnyType result = null;
         
-        if (xsAnyType instanceof XSNumericType) {
-           String argStrVal = ((XSNumericType)xsAnyType).stringValue();
-           XSDouble argDoubleVal = new XSDouble(argStrVal);
-           if (argDoubleVal.nan()) {
+        if ((xsAnyType instanceof XSDouble) || (xsAnyType instanceof XSFloat)) {
+           double dblVal = getDoubleValue(xsAnyType);
+           if (Double.isNaN(dblVal)) {
               throw new TransformerException("FOCA0005 : Cannot divide an XSDayTimeDuration value with NaN.");  
            }
-           else if (argDoubleVal.zero()) {
+           else if (dblVal == 0) {
               throw new TransformerException("FODT0001 : Cannot divide an XSDayTimeDuration value with zero."); 
            }
-           else if (argDoubleVal.infinite()) {
-              double doubleResultVal = value() / argDoubleVal.doubleValue();
-              result = new XSDayTimeDuration(doubleResultVal);
+           else if (Double.isInfinite(dblVal)) {
+              result = new XSDayTimeDuration();
+           }
+           else if (isExactLongValue(dblVal)) {
+              result = scaleDuration((long)dblVal, 0, true);
            }
            else {
-              BigDecimal bigDecimal1 = new BigDecimal(value());
-              BigDecimal bigDecimal2 = new BigDecimal(argDoubleVal.doubleValue());
-              BigDecimal bigDecimalResult = bigDecimal1.divide(new BigDecimal(bigDecimal2.doubleValue()), 
-                                                                                                 18, BigDecimal.ROUND_HALF_EVEN);
-              result = new XSDayTimeDuration(bigDecimalResult.doubleValue());
+              result = scaleDuration(new BigDecimal(dblVal), true);
            }
         }
-        else if (xsAnyType instanceof XSDayTimeDuration) {
-           double dbl2 = ((XSDayTimeDuration)xsAnyType).seconds();
-           
-           if (dbl2 != 0) {
-               BigDecimal bigDecimal1 = new BigDecimal(value());
-               BigDecimal bigDecimal2 = new BigDecimal(dbl2);
-               BigDecimal bigDecimalResult = bigDecimal1.divide(new BigDecimal(bigDecimal2.doubleValue()), 
-                                                                                                  18, BigDecimal.ROUND_HALF_EVEN);
-               result = new XSDayTimeDuration(bigDecimalResult.doubleValue());  
+        else if (xsAnyType instanceof XSDecimal) {
+           XSDecimal xsDecimal = (XSDecimal)xsAnyType;
+           if (xsDecimal.zero()) {
+              throw new TransformerException("FODT0001 : Cannot divide an XSDayTimeDuration value with zero."); 
+           }
+           else if (isLongScalable(xsDecimal)) {
+              result = scaleDuration(xsDecimal.getUnscaledValue(), xsDecimal.getCompactScale(), true);
            }
            else {
+              result = scaleDuration(xsDecimal.getValue(), true);
+           }
+        }
+        else if (xsAnyType instanceof XSDayTimeDuration) {
+           XSDayTimeDuration xsDayTimeDuration = (XSDayTimeDuration)xsAnyType;
+           BigDecimal dividend = null;
+           BigDecimal divisor = null;
+           try {
+              dividend = BigDecimal.valueOf(totalNanos());
+              divisor = BigDecimal.valueOf(xsDayTimeDuration.totalNanos());
+           }
+           catch (ArithmeticException ex) {
+              // one of the durations is too long, to be represented as a 
+              // long number of nanoseconds.
+              dividend = new BigDecimal(bigTotalNanos());
+              divisor = new BigDecimal(xsDayTimeDuration.bigTotalNanos());
+           }
+           
+           if (divisor.signum() == 0) {
               throw new TransformerException("FODT0001 : Cannot divide an XSDayTimeDuration value, with a XSDayTimeDuration "
                                                                                                + "value that represents zero seconds."); 
            }
+           
+           result = new XSDecimal(dividend.divide(divisor, 18, RoundingMode.HALF_EVEN));
         }
         else {
            throw new TransformerException("FORG0006 : Cannot divide an XSDayTimeDuration value, with a value that is of "
@@ -316,22 +293,151 @@ public class XSDayTimeDuration extends XSDuration {
     public int getType() {
         return CLASS_XS_DAYTIME_DURATION;
     }
-	
-	/**
-     * Do a data type cast, of a XSAnyType value to an XSDuration
-     * value. 
-	 * @throws TransformerException 
+    
+    /*
+     * Get the length of this duration, as a signed number of nanoseconds.
+     * 
+     * @throws ArithmeticException    if the number of nanoseconds overflows 
+     *                                the range of Java long type (i.e, the 
+     *                                duration is longer than about 292 years).
+     */
+    long totalNanos() {
+        return Math.addExact(Math.multiplyExact(totalSeconds(), NANOS_PER_SECOND), nanoOfSecond());
+    }
+    
+    /*
+     * Get the length of this duration, as a signed number of nanoseconds. 
+     * Unlike the method totalNanos, this method cannot overflow.
      */
-	private XSDuration castToDayTimeDuration(XSAnyType xsAnyType) throws TransformerException {        
-	    if (xsAnyType instanceof XSDuration) {
-            XSDuration xsDuration = (XSDuration) xsAnyType;
-            
-            return new XSDayTimeDuration(xsDuration.days(), xsDuration.hours(), 
-                                         xsDuration.minutes(), xsDuration.seconds(), 
-                                         xsDuration.negative());
+    BigInteger bigTotalNanos() {
+        return ((BigInteger.valueOf(totalSeconds())).multiply(BIG_NANOS_PER_SECOND)).add(
+                                                                            BigInteger.valueOf(nanoOfSecond()));
+    }
+    
+    /*
+     * Multiply (or when isDivide is true, divide) this duration by the 
+     * decimal number unscaledValue * 10^-scale, using the long arithmetic.
+     * The computation falls back to the java.math.BigDecimal arithmetic,
+     * if any intermediate value overflows the range of Java long type.
+     */
+    private XSDayTimeDuration scaleDuration(long unscaledValue, int scale, boolean isDivide) 
+                                                                                 throws TransformerException {
+        XSDayTimeDuration result = null;
+        
+        try {
+           long powerOfTen = XSDecimal.LONG_TEN_POWERS[scale];
+           long nanos = isDivide ? divideRounded(Math.multiplyExact(totalNanos(), powerOfTen), unscaledValue) : 
+                                   divideRounded(Math.multiplyExact(totalNanos(), unscaledValue), powerOfTen);
+           result = fromNanos(nanos);
+        }
+        catch (ArithmeticException ex) {
+           result = scaleDuration(BigDecimal.valueOf(unscaledValue, scale), isDivide);
         }
         
-        return parseDayTimeDuration(xsAnyType.stringValue());
+        return result;
     }
-	
+    
+    /*
+     * Multiply (or when isDivide is true, divide) this duration by the 
+     * supplied decimal number, using the java.math.BigDecimal arithmetic.
+     */
+    private XSDayTimeDuration scaleDuration(BigDecimal factor, boolean isDivide) throws TransformerException {
+        BigDecimal nanos = new BigDecimal(bigTotalNanos());
+        
+        BigDecimal resultNanos = isDivide ? nanos.divide(factor, 0, RoundingMode.HALF_EVEN) : 
+                                            (nanos.multiply(factor)).setScale(0, RoundingMode.HALF_EVEN);
+        BigInteger[] secondsAndNanos = (resultNanos.unscaledValue()).divideAndRemainder(BIG_NANOS_PER_SECOND);
+        
+        if ((secondsAndNanos[0]).abs().compareTo(BigInteger.valueOf(MAX_SECONDS)) > 0) {
+           throw new TransformerException("FODT0002 : Overflow when computing an XSDayTimeDuration value. The "
+                                                                                   + "resulting duration is too long.");
+        }
+        
+        return fromSeconds((secondsAndNanos[0]).longValue(), (secondsAndNanos[1]).longValue());
+    }
+    
+    /*
+     * Construct an XSDayTimeDuration object, from a signed number of 
+     * nanoseconds.
+     */
+    private static XSDayTimeDuration fromNanos(long nanos) {
+        return fromSeconds(nanos / NANOS_PER_SECOND, nanos % NANOS_PER_SECOND);
+    }
+    
+    /*
+     * Construct an XSDayTimeDuration object, from a signed number of seconds 
+     * and a signed number of nanoseconds (that may have a different sign 
+     * than the number of seconds, and may be more than a second).
+     */
+    private static XSDayTimeDuration fromSeconds(long seconds, long nanos) {
+        long totalSeconds = Math.addExact(seconds, nanos / NANOS_PER_SECOND);
+        long nanoOfSecond = nanos % NANOS_PER_SECOND;
+        
+        if ((totalSeconds > 0) && (nanoOfSecond < 0)) {
+           totalSeconds--;
+           nanoOfSecond += NANOS_PER_SECOND;
+        }
+        else if ((totalSeconds < 0) && (nanoOfSecond > 0)) {
+           totalSeconds++;
+           nanoOfSecond -= NANOS_PER_SECOND;
+        }
+        
+        if (totalSeconds == Long.MIN_VALUE) {
+           throw new ArithmeticException("long overflow"); 
+        }
+        
+        return new XSDayTimeDuration(Math.abs(totalSeconds), Math.abs(nanoOfSecond), 
+                                                                      (totalSeconds < 0) || (nanoOfSecond < 0));
+    }
+    
+    /*
+     * Divide two long numbers, rounding the quotient to the nearest long 
+     * number (and to the even one, when the quotient is equidistant from
+     * two long numbers).
+     */
+    private static long divideRounded(long dividend, long divisor) {
+        if ((dividend == Long.MIN_VALUE) || (divisor == Long.MIN_VALUE)) {
+           throw new ArithmeticException("long overflow"); 
+        }
+        
+        long quotient = dividend / divisor;
+        long absRemainder = Math.abs(dividend % divisor);
+        if (absRemainder != 0) {
+           long absDivisor = Math.abs(divisor);
+           // the sign of the value (2 * absRemainder - absDivisor), computed
+           // without an overflow.
+           long cmp = absRemainder - (absDivisor - absRemainder);
+           if ((cmp > 0) || ((cmp == 0) && ((quotient & 1) != 0))) {
+              quotient += (((dividend ^ divisor) < 0) ? -1 : 1);
+           }
+        }
+        
+        return quotient;
+    }
+    
+    /*
+     * Check whether the supplied xs:decimal value, can be used by the long 
+     * arithmetic of the method scaleDuration.
+     */
+    private static boolean isLongScalable(XSDecimal xsDecimal) {
+        return xsDecimal.isCompactValue() && (xsDecimal.getCompactScale() >= 0) && 
+                                               (xsDecimal.getCompactScale() < XSDecimal.LONG_TEN_POWERS.length);
+    }
+    
+    /*
+     * Check whether the supplied double value is an integer, that is exactly
+     * representable as a Java long value.
+     */
+    private static boolean isExactLongValue(double dblVal) {
+        return (Math.abs(dblVal) <= MAX_EXACT_LONG_DOUBLE) && (dblVal == Math.rint(dblVal));
+    }
+    
+    /*
+     * Get the numeric value of an xs:double or xs:float value.
+     */
+    private static double getDoubleValue(XSAnyType xsAnyType) {
+        return (xsAnyType instanceof XSDouble) ? ((XSDouble)xsAnyType).doubleValue() : 
+                                                 ((XSFloat)xsAnyType).floatValue();
+    }
+
 }
@@ -15,10 +15,19 @@ package xml.xpath31.processor.types;
 
 import java.math.BigDecimal;
 
-import org.apache.xpath.objects.ResultSequence;
+import javax.xml.transform.TransformerException;
+
+import org.apache.xml.utils.FastStringBuffer;
 
 /**
  * An XML Schema data type representation, of the xs:decimal datatype.
+ * 
+ * An xs:decimal value having at most 18 significant digits, is stored in a 
+ * compact form as an unscaled long value together with a scale (i.e, the 
+ * value is unscaledValue * 10^-scale). The comparisons and the arithmetic 
+ * operations on such values are done with primitive long arithmetic. Other 
+ * xs:decimal values, and the results of arithmetic operations that overflow
+ * the compact form, are stored as java.math.BigDecimal values.
  */
 public class XSDecimal extends XSNumericType {
 
@@ -26,30 +35,119 @@ public class XSDecimal extends XSNumericType {
     
     private static final String XS_DECIMAL = "xs:decimal";
     
-    private BigDecimal _value;
+    // the maximum number of significant decimal digits, of an unscaled
+    // value stored in the compact form.
+    private static final int MAX_COMPACT_DIGITS = 18;
+    
+    static final long[] LONG_TEN_POWERS = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 
+                                                    10000000L, 100000000L, 1000000000L, 10000000000L, 
+                                                    100000000000L, 1000000000000L, 10000000000000L, 
+                                                    100000000000000L, 1000000000000000L, 
+                                                    10000000000000000L, 100000000000000000L, 
+                                                    1000000000000000000L };
+    
+    // the powers of ten, that are exactly representable as a Java double value
+    private static final double[] DOUBLE_TEN_POWERS = { 1.0E0, 1.0E1, 1.0E2, 1.0E3, 1.0E4, 1.0E5, 1.0E6, 
+                                                        1.0E7, 1.0E8, 1.0E9, 1.0E10, 1.0E11, 1.0E12, 1.0E13, 
+                                                        1.0E14, 1.0E15, 1.0E16, 1.0E17, 1.0E18, 1.0E19, 
+                                                        1.0E20, 1.0E21, 1.0E22 };
+    
+    // the value returned by the method scaleUp, when the result overflows
+    // the range of Java long type. Long.MIN_VALUE cannot be a result of 
+    // scaleUp, since the compact form never stores Long.MIN_VALUE as an
+    // unscaled value (the subclasses overriding the method isCompactValue,
+    // must not report such a value as compact either).
+    private static final long SCALE_UP_OVERFLOW = Long.MIN_VALUE;
+    
+    // the shared xs:decimal values, that are the results of casting
+    // xs:boolean values to xs:decimal.
+    static final XSDecimal DECIMAL_ZERO = new XSDecimal(0L, 0);
+    static final XSDecimal DECIMAL_ONE = new XSDecimal(1L, 0);
+    
+    // the unscaled value of the compact form. The trailing zeros of the 
+    // unscaled value are always stripped, when the scale is positive.
+    private long _unscaledValue;
+    
+    // the scale of the compact form. This is never negative.
+    private int _scale;
     
-    private XPath3DecimalFormat xpath3DecimalFormat = new XPath3DecimalFormat(
-                                                                 "0.####################");
+    // the java.math.BigDecimal value, representing this XML Schema datatype 
+    // value when the value doesn't fit in the compact form. This is null 
+    // otherwise.
+    private BigDecimal _bigDecimalValue;
     
     /**
      * Class constructor.
      */
     public XSDecimal() {
-       this(BigDecimal.valueOf(0));
+       // the compact form of value 0
     }
     
     /**
      * Class constructor.
      */
     public XSDecimal(BigDecimal bigDecimal) {
-       _value = bigDecimal; 
+       setValue(bigDecimal); 
+    }
+    
+    /**
+     * Class constructor.
+     * 
+     * @param unscaledValue    the unscaled value of the xs:decimal number
+     * @param scale            the scale of the xs:decimal number. The value 
+     *                         of the number is unscaledValue * 10^-scale.
+     */
+    public XSDecimal(long unscaledValue, int scale) {
+       setCompactValue(unscaledValue, scale); 
     }
     
     /**
      * Class constructor.
      */
     public XSDecimal(String str) {
-        _value = new BigDecimal(str);
+        int strLength = str.length();
+        int idx = 0;
+        boolean isNegative = false;
+        if ((strLength > 0) && ((str.charAt(0) == '-') || (str.charAt(0) == '+'))) {
+           isNegative = (str.charAt(0) == '-');
+           idx = 1;
+        }
+        
+        long unscaledValue = 0;
+        int scale = 0;
+        int significantDigitCount = 0;
+        boolean hasDigits = false;
+        boolean isFraction = false;
+        boolean isCompactParsed = true;
+        for (; isCompactParsed && (idx < strLength); idx++) {
+           char chr = str.charAt(idx);
+           if ((chr >= '0') && (chr <= '9')) {
+              hasDigits = true;
+              if ((unscaledValue != 0) || (chr != '0')) {
+                 significantDigitCount++;  
+              }
+              unscaledValue = (unscaledValue * 10) + (chr - '0');
+              if (isFraction) {
+                 scale++;  
+              }
+           }
+           else if ((chr == '.') && !isFraction) {
+              isFraction = true;
+           }
+           else {
+              isCompactParsed = false;  
+           }
+        }
+        
+        if (isCompactParsed && hasDigits && (significantDigitCount <= MAX_COMPACT_DIGITS)) {
+           setCompactValue(isNegative ? -unscaledValue : unscaledValue, scale);
+        }
+        else {
+           // too many significant digits for the compact form, or a string value
+           // not having the simple decimal lexical form. The java.math.BigDecimal 
+           // class either parses the value, or throws java.lang.NumberFormatException.
+           setValue(new BigDecimal(str));
+        }
     }
 
     @Override
@@ -63,34 +161,58 @@ public class XSDecimal extends XSNumericType {
 
     @Override
     public String stringValue() {
-        if (zero()) {
-           return "0";
+        if (_bigDecimalValue != null) {
+           return XPath3CanonicalNumberFormat.formatDecimal(_bigDecimalValue);
         }
-
-        _value = new BigDecimal((_value.toString()).replaceFirst("0*", ""));
         
-        return xpath3DecimalFormat.performStrFormatting(_value);
+        return XPath3CanonicalNumberFormat.formatDecimal(_unscaledValue, _scale);
     }
     
     @Override
-    public ResultSequence constructor(ResultSequence arg) {
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
+    public void appendToFsb(FastStringBuffer fsb) {
+        if (_bigDecimalValue != null) {
+           XPath3CanonicalNumberFormat.appendDecimal(_bigDecimalValue, fsb);
+        }
+        else {
+           XPath3CanonicalNumberFormat.appendDecimal(_unscaledValue, _scale, fsb);
         }
+    }
+    
+    @Override
+    public XSCtrType tryParse(String strVal) {
+        return tryParseDecimal(strVal);
+    }
+    
+    /*
+     * Parse the supplied string value, as an xs:decimal lexical value. This
+     * method returns null, if the string value is not a valid xs:decimal
+     * lexical value.
+     */
+    static XSDecimal tryParseDecimal(String strVal) {
+        String trimmedStr = trimWhitespace(strVal);
         
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
+        return isDecimalLexicalValue(trimmedStr) ? new XSDecimal(trimmedStr) : null;
+    }
+    
+    /**
+     * A method to cast a value to a xs:decimal value.
+     * 
+     * @throws TransformerException    if the supplied value cannot be cast
+     *                                 to a xs:decimal value.
+     */
+    @Override
+    public XSDecimal cast(XSAnyType xsAnyType) throws TransformerException {
+        XSDecimal xsDecimal = null;
         
-        try {            
-            XSDecimal xsDecimal = castToDecimal(xsAnyType);            
-            resultSeq.add(xsDecimal);
-        } catch (NumberFormatException ex) {
-            // to do
-            return null;
-        }        
+        try {
+           xsDecimal = XPath3CastTable.castToDecimal(xsAnyType);
+        }
+        catch (NumberFormatException ex) {
+           throw new TransformerException("FORG0001 : The supplied value '" + xsAnyType.stringValue() + "' "
+                                                                               + "cannot be cast to a xs:decimal value.");
+        }
         
-        return resultSeq;
+        return xsDecimal;
     }
     
     /**
@@ -100,7 +222,7 @@ public class XSDecimal extends XSNumericType {
      *            false otherwise.
      */
     public boolean zero() {
-        return (_value.compareTo(new BigDecimal(0.0)) == 0);
+        return (_bigDecimalValue == null) ? (_unscaledValue == 0) : (_bigDecimalValue.signum() == 0);
     }
     
     /**
@@ -110,53 +232,234 @@ public class XSDecimal extends XSNumericType {
      * @return   the actual value of the number stored
      */
     public double doubleValue() {
-        return _value.doubleValue();
+        if (_bigDecimalValue == null) {
+           if (_scale == 0) {
+              return (double)_unscaledValue;  
+           }
+           else if ((Math.abs(_unscaledValue) < (1L << 53)) && (_scale < DOUBLE_TEN_POWERS.length)) {
+              // both the operands are exact double values, and the division 
+              // is correctly rounded.
+              return _unscaledValue / DOUBLE_TEN_POWERS[_scale];
+           }
+        }
+        
+        return (getValue()).doubleValue();
     }
     
     public BigDecimal getValue() {
-        return _value;
+        return (_bigDecimalValue != null) ? _bigDecimalValue : BigDecimal.valueOf(_unscaledValue, _scale);
     }
     
     /**
-     * Set the numeric double value, within this XSDecimal object.
-     * 
-     * @param val    number to be stored
+     * Add an XSDecimal value to this XSDecimal value, and return the result
+     * as an XSDecimal value.
+     */
+    public XSDecimal add(XSDecimal xsDecimal) {
+        if (isCompactValue() && xsDecimal.isCompactValue()) {
+           int scale = Math.max(getCompactScale(), xsDecimal.getCompactScale());
+           long x = scaleUp(getUnscaledValue(), scale - getCompactScale());
+           long y = scaleUp(xsDecimal.getUnscaledValue(), scale - xsDecimal.getCompactScale());
+           if ((x != SCALE_UP_OVERFLOW) && (y != SCALE_UP_OVERFLOW)) {
+              long result = x + y;
+              if (((x ^ result) & (y ^ result)) >= 0) {
+                 return new XSDecimal(result, scale);  
+              }
+           }
+        }
+        
+        return new XSDecimal((getValue()).add(xsDecimal.getValue()));
+    }
+    
+    /**
+     * Subtract an XSDecimal value from this XSDecimal value, and return the 
+     * result as an XSDecimal value.
+     */
+    public XSDecimal subtract(XSDecimal xsDecimal) {
+        if (isCompactValue() && xsDecimal.isCompactValue()) {
+           int scale = Math.max(getCompactScale(), xsDecimal.getCompactScale());
+           long x = scaleUp(getUnscaledValue(), scale - getCompactScale());
+           long y = scaleUp(xsDecimal.getUnscaledValue(), scale - xsDecimal.getCompactScale());
+           if ((x != SCALE_UP_OVERFLOW) && (y != SCALE_UP_OVERFLOW)) {
+              long result = x - y;
+              if (((x ^ y) & (x ^ result)) >= 0) {
+                 return new XSDecimal(result, scale);  
+              }
+           }
+        }
+        
+        return new XSDecimal((getValue()).subtract(xsDecimal.getValue()));
+    }
+    
+    /**
+     * Multiply this XSDecimal value with another XSDecimal value, and return 
+     * the result as an XSDecimal value.
      */
-    public void setDouble(double val) {
-        _value = new BigDecimal(val);
+    public XSDecimal multiply(XSDecimal xsDecimal) {
+        if (isCompactValue() && xsDecimal.isCompactValue()) {
+           long x = getUnscaledValue();
+           long y = xsDecimal.getUnscaledValue();
+           long scale = (long)getCompactScale() + xsDecimal.getCompactScale();
+           long result = x * y;
+           long absX = Math.abs(x);
+           long absY = Math.abs(y);
+           // the product cannot overflow, when both the operands fit within 31 bits
+           if ((scale <= Integer.MAX_VALUE) && ((((absX | absY) >>> 31) == 0) || 
+                                                          (y == 0) || ((result / y) == x))) {
+              return new XSDecimal(result, (int)scale);  
+           }
+        }
+        
+        return new XSDecimal((getValue()).multiply(xsDecimal.getValue()));
     }
     
     public boolean equals(XSDecimal xsDecimal) {
-        return _value.equals(xsDecimal.getValue()); 
+        return compareDecimalValue(xsDecimal) == 0; 
     }
     
     public boolean lt(XSDecimal xsDecimal) {
-        return (_value.compareTo(xsDecimal.getValue()) == -1);
+        return compareDecimalValue(xsDecimal) < 0;
     }
     
     public boolean gt(XSDecimal xsDecimal) {
-        return (_value.compareTo(xsDecimal.getValue()) == 1);
+        return compareDecimalValue(xsDecimal) > 0;
     }
     
     public int getType() {
         return CLASS_XS_DECIMAL;
     }
     
+    /**
+     * Compare the numeric value of this XSDecimal object, with the numeric
+     * value of another XSDecimal object.
+     * 
+     * @return  a negative integer, zero, or a positive integer as this value
+     *          is less than, equal to, or greater than the supplied value.
+     */
+    protected int compareDecimalValue(XSDecimal xsDecimal) {
+        if (isCompactValue() && xsDecimal.isCompactValue()) {
+           long x = getUnscaledValue();
+           long y = xsDecimal.getUnscaledValue();
+           int xScale = getCompactScale();
+           int yScale = xsDecimal.getCompactScale();
+           if (xScale == yScale) {
+              return Long.compare(x, y);  
+           }
+           
+           int xSignum = Long.signum(x);
+           int ySignum = Long.signum(y);
+           if (xSignum != ySignum) {
+              return (xSignum < ySignum) ? -1 : 1;  
+           }
+           
+           if (xScale < yScale) {
+              x = scaleUp(x, yScale - xScale); 
+           }
+           else {
+              y = scaleUp(y, xScale - yScale);
+           }
+           
+           if ((x != SCALE_UP_OVERFLOW) && (y != SCALE_UP_OVERFLOW)) {
+              return Long.compare(x, y);
+           }
+        }
+        
+        return (getValue()).compareTo(xsDecimal.getValue());
+    }
+    
+    /**
+     * Check whether, the numeric value of this object is stored in the 
+     * compact form (i.e, as an unscaled long value and a scale).
+     */
+    protected boolean isCompactValue() {
+        return (_bigDecimalValue == null);
+    }
+    
+    /**
+     * Get the unscaled long value of the compact form. The result is 
+     * meaningful only when the method isCompactValue() returns true.
+     */
+    protected long getUnscaledValue() {
+        return _unscaledValue;
+    }
+    
+    /**
+     * Get the scale of the compact form. The result is meaningful only 
+     * when the method isCompactValue() returns true.
+     */
+    protected int getCompactScale() {
+        return _scale;
+    }
+    
     /*
-     * Cast an object of type XSAnyType, to an object of type 
-     * XSDecimal.  
-     */
-    private XSDecimal castToDecimal(XSAnyType xsAnyType) {        
-       if (xsAnyType instanceof XSBoolean) {            
-          if ((xsAnyType.stringValue()).equals("true")) {
-             return new XSDecimal(new BigDecimal("1"));
-          } 
-          else {
-             return new XSDecimal(new BigDecimal("0"));
-          }
-       }
-        
-       return new XSDecimal(xsAnyType.stringValue());
+     * Store the supplied java.math.BigDecimal value within this object, using
+     * the compact form when the value fits in it. This method is only called
+     * by the class constructors, since XSDecimal objects are immutable.
+     */
+    private void setValue(BigDecimal bigDecimal) {
+        if (bigDecimal.precision() > MAX_COMPACT_DIGITS) {
+           bigDecimal = bigDecimal.stripTrailingZeros();  
+        }
+        
+        if (bigDecimal.precision() <= MAX_COMPACT_DIGITS) {
+           setCompactValue((bigDecimal.unscaledValue()).longValue(), bigDecimal.scale());  
+        }
+        else {
+           _unscaledValue = 0;
+           _scale = 0;
+           _bigDecimalValue = bigDecimal;
+        }
+    }
+    
+    /*
+     * Store the value unscaledValue * 10^-scale within this object, in the 
+     * compact form when possible.
+     */
+    private void setCompactValue(long unscaledValue, int scale) {
+        if (unscaledValue == 0) {
+           scale = 0; 
+        }
+        
+        while ((scale > 0) && ((unscaledValue % 10) == 0)) {
+           unscaledValue /= 10;
+           scale--;
+        }
+        
+        if (scale < 0) {
+           long scaledValue = (scale > -LONG_TEN_POWERS.length) ? scaleUp(unscaledValue, -scale) : 
+                                                                                        SCALE_UP_OVERFLOW;
+           if (scaledValue != SCALE_UP_OVERFLOW) {
+              unscaledValue = scaledValue;
+              scale = 0;
+           }
+        }
+        
+        if ((scale >= 0) && (unscaledValue != Long.MIN_VALUE)) {
+           _unscaledValue = unscaledValue;
+           _scale = scale;
+           _bigDecimalValue = null;
+        }
+        else {
+           _unscaledValue = 0;
+           _scale = 0;
+           _bigDecimalValue = BigDecimal.valueOf(unscaledValue, scale);
+        }
+    }
+    
+    /*
+     * Multiply the supplied value with 10^n. This method returns the value
+     * SCALE_UP_OVERFLOW, if the result overflows the range of Java long type.
+     */
+    private static long scaleUp(long value, int n) {
+        if ((n == 0) || (value == 0)) {
+           return value; 
+        }
+        else if (n >= LONG_TEN_POWERS.length) {
+           return SCALE_UP_OVERFLOW; 
+        }
+        
+        long tenPower = LONG_TEN_POWERS[n];
+        
+        return (Math.abs(value) <= (Long.MAX_VALUE / tenPower)) ? (value * tenPower) : SCALE_UP_OVERFLOW; 
     }
 
 }
@@ -13,7 +13,7 @@
 
 package xml.xpath31.processor.types;
 
-import org.apache.xpath.objects.ResultSequence;
+import org.apache.xml.utils.FastStringBuffer;
 
 /**
  * An XML Schema data type representation, of the xs:double datatype.
@@ -24,16 +24,13 @@ public class XSDouble extends XSNumericType {
 
     private static final String XS_DOUBLE = "xs:double";
 	
-	private Double _value;
-	
-	private XPath3DecimalFormat xpath3DecimalFormat = new XPath3DecimalFormat(
-	                                                              "0.################E0");
+	private final double _value;
 
 	/*
 	 * Class constructor.
 	 */
 	public XSDouble(double val) {
-	    _value = new Double(val);
+	    _value = val;
 	}
 
 	/*
@@ -47,18 +44,7 @@ public class XSDouble extends XSNumericType {
      * Class constructor.
      */
 	public XSDouble(String strVal) throws javax.xml.transform.TransformerException {
-		try {
-			if (strVal.equals("-INF")) {
-				_value = new Double(Double.NEGATIVE_INFINITY);
-			} else if (strVal.equals("INF")) {
-				_value = new Double(Double.POSITIVE_INFINITY);
-			} else {
-				_value = new Double(strVal);
-			}
-		} catch (NumberFormatException ex) {
-			throw new javax.xml.transform.TransformerException("FORG0006 : The string value '" + 
-		                                                             strVal + "' cannot be cast to xs:double."); 
-		}
+		this(parseDoubleValue(strVal));
 	}
 
 	/**
@@ -71,51 +57,17 @@ public class XSDouble extends XSNumericType {
 	 *              argument provided.
 	 */
 	public static XSDouble parseDouble(String strVal) throws javax.xml.transform.TransformerException {	    
-		try {
-			Double d1 = null;
-			
-			if (strVal.equals("INF")) {
-				d1 = new Double(Double.POSITIVE_INFINITY);
-			} else if (strVal.equals("-INF")) {
-				d1 = new Double(Double.NEGATIVE_INFINITY);
-			} else {
-				d1 = new Double(strVal);
-			}
-			
-			return new XSDouble(d1.doubleValue());			
-		} catch (NumberFormatException ex) {
-		    throw new javax.xml.transform.TransformerException("FORG0006 : The string value '" + 
-		                                                             strVal + "' cannot be cast to xs:double.");
-		}		
+		return new XSDouble(parseDoubleValue(strVal));
 	}
 	
 	@Override
-    public ResultSequence constructor(ResultSequence arg) throws 
-                                                              javax.xml.transform.TransformerException {
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
-        }
-        
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-        
-        XSDouble xsAnyTypeConvertedToDouble = null;
-        
-        if (xsAnyType instanceof XSBoolean) {
-            if (xsAnyType.stringValue().equals("true")) {
-                xsAnyTypeConvertedToDouble = new XSDouble(1.0E0);
-            } else {
-                xsAnyTypeConvertedToDouble = new XSDouble(0.0E0);
-            }
-        }
-        else {
-            xsAnyTypeConvertedToDouble = parseDouble(xsAnyType.stringValue());
-        }
-        
-        resultSeq.add(xsAnyTypeConvertedToDouble);
-        
-        return resultSeq;
+	public XSCtrType tryParse(String strVal) {
+	    return tryParseDouble(strVal);
+	}
+	
+	@Override
+    public XSDouble cast(XSAnyType xsAnyType) throws javax.xml.transform.TransformerException {
+        return XPath3CastTable.castToDouble(xsAnyType);
     }
 
     @Override
@@ -130,19 +82,12 @@ public class XSDouble extends XSNumericType {
 
     @Override
     public String stringValue() {
-        if (zero()) {
-            return "0";
-        }
-
-        if (negativeZero()) {
-            return "-0";
-        }
-
-        if (nan()) {
-            return "NaN";
-        }
-
-        return xpath3DecimalFormat.performStrFormatting(_value);
+        return XPath3CanonicalNumberFormat.formatDouble(_value);
+    }
+    
+    @Override
+    public void appendToFsb(FastStringBuffer fsb) {
+        XPath3CanonicalNumberFormat.appendDouble(_value, fsb);
     }
     
     /*
@@ -152,7 +97,7 @@ public class XSDouble extends XSNumericType {
      *            false otherwise.
      */
     public boolean negativeZero() {
-        return (Double.compare(_value.doubleValue(), -0.0E0) == 0);
+        return (Double.compare(_value, -0.0E0) == 0);
     }
 
     /**
@@ -160,14 +105,14 @@ public class XSDouble extends XSNumericType {
      * this XSDouble object.
      */
     public double doubleValue() {
-        return _value.doubleValue();
+        return _value;
     }
     
     /**
      * Check whether this XSDouble object represents NaN.
      */
     public boolean nan() {
-        return Double.isNaN(_value.doubleValue());
+        return Double.isNaN(_value);
     }
 
     /**
@@ -175,18 +120,20 @@ public class XSDouble extends XSNumericType {
      * infinite number.
      */
     public boolean infinite() {
-        return Double.isInfinite(_value.doubleValue());
+        return Double.isInfinite(_value);
     }
 
     /**
      * Check whether this XSDouble object represents 0.
      */
     public boolean zero() {
-        return (Double.compare(_value.doubleValue(), 0.0E0) == 0);
+        return (Double.compare(_value, 0.0E0) == 0);
     }
     
     public boolean equals(XSDouble xsDouble) {
-        return _value.equals(xsDouble.doubleValue()); 
+        // same semantics as java.lang.Double.equals, i.e NaN is equal to
+        // NaN, and 0 is not equal to -0.
+        return Double.doubleToLongBits(_value) == Double.doubleToLongBits(xsDouble.doubleValue()); 
     }
     
     public boolean lt(XSDouble xsDouble) {
@@ -201,4 +148,46 @@ public class XSDouble extends XSNumericType {
         return CLASS_XS_DOUBLE;
     }
     
+    /*
+     * Parse the supplied string value, as an xs:double lexical value. This
+     * method returns null, if the string value is not a valid xs:double
+     * lexical value.
+     */
+    private static XSDouble tryParseDouble(String strVal) {
+        String trimmedStr = trimWhitespace(strVal);
+        
+        return isFloatingPointLexicalValue(trimmedStr) ? new XSDouble(toDoubleValue(trimmedStr)) : null;
+    }
+    
+    /*
+     * Parse the supplied string value, as an xs:double lexical value, and get
+     * the corresponding primitive double value.
+     */
+    private static double parseDoubleValue(String strVal) throws javax.xml.transform.TransformerException {
+        String trimmedStr = trimWhitespace(strVal);
+        if (!isFloatingPointLexicalValue(trimmedStr)) {
+           throw new javax.xml.transform.TransformerException("FORG0006 : The string value '" + 
+                                                                    strVal + "' cannot be cast to xs:double.");
+        }
+        
+        return toDoubleValue(trimmedStr);
+    }
+    
+    /*
+     * Get the primitive double value, of a valid xs:double lexical value.
+     */
+    private static double toDoubleValue(String trimmedStr) {
+        double doubleVal;
+        if (trimmedStr.endsWith("INF")) {
+           doubleVal = trimmedStr.startsWith("-") ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        else {
+           // a valid xs:double lexical value, is also a valid argument of the 
+           // method Double.parseDouble.
+           doubleVal = Double.parseDouble(trimmedStr); 
+        }
+        
+        return doubleVal;
+    }
+    
 }
@@ -15,24 +15,39 @@ package xml.xpath31.processor.types;
 
 import javax.xml.transform.TransformerException;
 
-import org.apache.xpath.objects.ResultSequence;
+import org.apache.xml.utils.FastStringBuffer;
 
 /**
  * A representation of the XML Schema xs:duration data type.
+ * 
+ * A duration value is stored as a total number of months, and a total
+ * number of whole seconds together with a fraction of second in 
+ * nanoseconds. These components always have the same sign, and all the
+ * other duration components are derived from them.
  */
 public class XSDuration extends XSCtrType {
 
     private static final long serialVersionUID = -8460416911698841833L;
 
     private static final String XS_DURATION = "xs:duration";
+
+    protected static final long NANOS_PER_SECOND = 1000000000L;
+    
+    protected static final long SECONDS_PER_DAY = 86400L;
+    
+    // the largest number of seconds, for which the number of days of a 
+    // duration fits within the range of Java int type.
+    protected static final long MAX_SECONDS = (Integer.MAX_VALUE * SECONDS_PER_DAY) + (SECONDS_PER_DAY - 1);
+	
+    // the total number of months, within this duration
+	private final int _months;
+	
+	// the total number of whole seconds, within this duration
+	private final long _seconds;
 	
-	protected int _year;
-	protected int _month;
-	protected int _days;
-	protected int _hours;
-	protected int _minutes;
-	protected double _seconds;
-	protected boolean _negative;
+	// the fraction of second within this duration, as a number of 
+	// nanoseconds.
+	private final int _nanos;
 
 	/**
 	 * Initializes to a XSDuration object with the supplied parameters. If more 
@@ -54,41 +69,40 @@ public class XSDuration extends XSCtrType {
 	 * @param negative
 	 *            true if this duration of time represents a backwards passage
 	 *            through time. false otherwise.
+	 * 
+	 * @throws ArithmeticException
+	 *            if the duration is too long, to be represented by this class 
+	 *            (i.e, more than Integer.MAX_VALUE months or days).
 	 */
 	public XSDuration(int years, int months, int days, int hours, int minutes,
 			                                       double seconds, boolean negative) {
-		_year = years;
-		_month = months;
-		_days = days;
-		_hours = hours;
-		_minutes = minutes;
-		_seconds = seconds;
-		_negative = negative;
-
-		if (_month >= 12) {
-			_year += _month / 12;
-			_month = _month % 12;
-		}
-
-		if (_seconds >= 60) {
-			int isec = (int) _seconds;
-			double rem = _seconds - (isec);
-
-			_minutes += isec / 60;
-			_seconds = isec % 60;
-			_seconds += rem;
-		}
+		this((((long)years) * 12) + months, (((((((long)days) * 24) + hours) * 60) + minutes) * 60) + 
+				                            ((long)seconds), Math.round((seconds - ((long)seconds)) * NANOS_PER_SECOND), 
+				                            negative);
+	}
+	
+	/*
+	 * Class constructor. The supplied number of months, seconds and nanoseconds
+	 * are the non-negative magnitudes of the duration components. The supplied
+	 * number of nanoseconds may be more than a second.
+	 * 
+	 * @throws ArithmeticException    if the duration is too long, to be 
+	 *                                represented by this class.
+	 */
+	XSDuration(long months, long seconds, long nanos, boolean negative) {
+		long totalSeconds = seconds + (nanos / NANOS_PER_SECOND);
+		int nanoOfSecond = (int)(nanos % NANOS_PER_SECOND);
 		
-		if (_minutes >= 60) {
-			_hours += _minutes / 60;
-			_minutes = _minutes % 60;
+		if ((months > Integer.MAX_VALUE) || (totalSeconds > MAX_SECONDS)) {
+		   throw new ArithmeticException("The duration is too long, to be represented by an XSDuration object.");	
 		}
 		
-		if (_hours >= 24) {
-			_days += _hours / 24;
-			_hours = _hours % 24;
-		}
-
+		// a zero length duration, is never negative
+		boolean isNegative = negative && ((months != 0) || (totalSeconds != 0) || (nanoOfSecond != 0));
+		
+		_months = (int)(isNegative ? -months : months);
+		_seconds = (isNegative ? -totalSeconds : totalSeconds);
+		_nanos = (isNegative ? -nanoOfSecond : nanoOfSecond);
 	}
 
 	/**
@@ -107,6 +121,11 @@ public class XSDuration extends XSCtrType {
 		this(0, 0, 0, 0, 0, 0.0, false);
 	}
 
+	@Override
+	public XSCtrType tryParse(String strVal) {
+		return tryParseDuration(strVal);
+	}
+
 	public String typeName() {
 		return "duration";
 	}
@@ -121,62 +140,62 @@ public class XSDuration extends XSCtrType {
 	 * @return   string representation of the duration stored
 	 */
 	public String stringValue() {
-		String returnVal = "";
-		
-		boolean didSomething = false;
-		
-		String tret = "";
+		FastStringBuffer fsb = new FastStringBuffer(STRING_VALUE_CHUNK_BITS);
+		appendToFsb(fsb);
 
-		if (negative() && !(days() == 0 && hours() == 0 && seconds() == 0))
-			returnVal += "-";
+		return fsb.toString();
+	}
+	
+	@Override
+	public void appendToFsb(FastStringBuffer fsb) {
+		if (negative()) {
+		   fsb.append('-');
+		}
 
-		returnVal += "P";
+		fsb.append('P');
 
 		int years = year();
-		if (years != 0)
-			returnVal += years + "Y";
+		if (years != 0) {
+		   appendDigits(fsb, years, 1);
+		   fsb.append('Y');
+		}
 
 		int months = month();
 		if (months != 0) {
-			returnVal += months + "M";
+		   appendDigits(fsb, months, 1);
+		   fsb.append('M');
 		}
 
-		if (days() != 0) {
-			returnVal += days() + "D";
-			didSomething = true;
+		int days = days();
+		if (days != 0) {
+		   appendDigits(fsb, days, 1);
+		   fsb.append('D');
 		}
 
 		int hours = hours();
 		int minutes = minutes();
-		double seconds = seconds();
+		long wholeSeconds = Math.abs(_seconds) % 60;
+		int nanos = Math.abs(_nanos);
 		
-		if (hours != 0) {
-			tret += hours + "H";
-			didSomething = true;
-		}
-		if (minutes != 0) {
-			tret += minutes + "M";
-			didSomething = true;
+		if ((hours != 0) || (minutes != 0) || (wholeSeconds != 0) || (nanos != 0)) {
+		   fsb.append('T');
+		   if (hours != 0) {
+		      appendDigits(fsb, hours, 1);
+		      fsb.append('H');
+		   }
+		   if (minutes != 0) {
+		      appendDigits(fsb, minutes, 1);
+		      fsb.append('M');
+		   }
+		   if ((wholeSeconds != 0) || (nanos != 0)) {
+		      appendDigits(fsb, wholeSeconds, 1);
+		      appendFractionOfSecond(fsb, nanos);
+		      fsb.append('S');
+		   }
 		}
-		if (seconds != 0) {
-			String doubStr = (new Double(seconds).toString());
-			if (doubStr.endsWith(".0")) {				
-				tret += doubStr.substring(0, doubStr.indexOf(".0")) + "S";
-			} else {
-				tret += seconds + "S";
-			}
-			didSomething = true;
-		} else if (!didSomething) {
-		    tret += "0S";
-		}
-		
-		if ((year() == 0 && month() == 0) || (hours > 0 || minutes > 0 || seconds > 0)) {
-			if (tret.length() > 0) {
-				returnVal += "T" + tret;
-			}
+		else if ((years == 0) && (months == 0) && (days == 0)) {
+		   fsb.append("T0S");
 		}
-
-		return returnVal;
 	}
 
 	/**
@@ -185,7 +204,7 @@ public class XSDuration extends XSCtrType {
 	 * @return   number of days within the duration of time stored
 	 */
 	public int days() {
-		return _days;
+		return (int)(Math.abs(_seconds) / SECONDS_PER_DAY);
 	}
 
 	/**
@@ -195,7 +214,7 @@ public class XSDuration extends XSCtrType {
 	 * @return   number of minutes within the duration of time stored
 	 */
 	public int minutes() {
-		return _minutes;
+		return (int)((Math.abs(_seconds) % 3600) / 60);
 	}
 
 	/**
@@ -204,7 +223,7 @@ public class XSDuration extends XSCtrType {
 	 * @return  number of hours within the duration of time stored
 	 */
 	public int hours() {
-		return _hours;
+		return (int)((Math.abs(_seconds) % SECONDS_PER_DAY) / 3600);
 	}
 
 	/**
@@ -214,7 +233,9 @@ public class XSDuration extends XSCtrType {
 	 * @return  number of seconds within the duration of time stored
 	 */
 	public double seconds() {
-		return _seconds;
+		// the division of an exactly represented number of nanoseconds, gives
+		// the double value closest to the decimal number of seconds.
+		return (((Math.abs(_seconds) % 60) * NANOS_PER_SECOND) + Math.abs(_nanos)) / (double)NANOS_PER_SECOND;
 	}
 
 	/**
@@ -225,7 +246,7 @@ public class XSDuration extends XSCtrType {
 	 *                false otherwise.
 	 */
 	public boolean negative() {
-		return _negative;
+		return (_months < 0) || (_seconds < 0) || (_nanos < 0);
 	}
 
 	/**
@@ -234,53 +255,46 @@ public class XSDuration extends XSCtrType {
 	 * @return number of seconds making up this duration of time
 	 */
 	public double value() {
-		double ret = days() * 24 * 60 * 60;
-
-		ret += hours() * 60 * 60;
-		ret += minutes() * 60;
-		ret += seconds();
-
-		if (negative()) {
-		   ret *= -1;
-		}
-		
-		return ret;
+		return _seconds + (_nanos / (double)NANOS_PER_SECOND);
 	}
 	
 	public double timeValue() {
-		double ret = 0;
-		ret += hours() * 60 * 60;
-		ret += minutes() * 60;
-		ret += seconds();
+		double ret = (Math.abs(_seconds) % SECONDS_PER_DAY) + (Math.abs(_nanos) / (double)NANOS_PER_SECOND);
 
-		if (negative()) {
-		   ret *= -1;
-		}
-		
-		return ret;
+		return negative() ? -ret : ret;
+	}
+	
+	/*
+	 * Get the total number of months within this duration. The value is
+	 * negative, for a negative duration.
+	 */
+	int totalMonths() {
+		return _months;
+	}
+	
+	/*
+	 * Get the total number of whole seconds within this duration. The value
+	 * is negative, for a negative duration.
+	 */
+	long totalSeconds() {
+		return _seconds;
+	}
+	
+	/*
+	 * Get the fraction of second within this duration, as a number of 
+	 * nanoseconds. The value is negative, for a negative duration.
+	 */
+	int nanoOfSecond() {
+		return _nanos;
 	}
 
 	/**
-     * A method to construct an xdm sequence comprising a
-     * xs:duration value, given input data as argument to 
-     * this method.
+     * A method to cast a value to a xs:duration value.
      * 
 	 * @throws TransformerException 
      */
-	public ResultSequence constructor(ResultSequence arg) throws TransformerException {
-	    ResultSequence resultSeq = new ResultSequence();
-	    
-	    if (arg.size() == 0) {
-	       return resultSeq;     
-	    }
-	    
-	    XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-	    
-        XSDuration xsDuration = castToDuration(xsAnyType);
-        
-        resultSeq.add(xsDuration);
-
-		return resultSeq;
+	public XSDuration cast(XSAnyType xsAnyType) throws TransformerException {
+		return XPath3CastTable.castToDuration(xsAnyType);
 	}
 
 	/**
@@ -291,108 +305,26 @@ public class XSDuration extends XSCtrType {
 	 * @return      XSDuration object representing the duration of time supplied
 	 */
 	public static XSDuration parseDuration(String strVal) throws TransformerException {
-		
-	    boolean isDurationNegative = false;
-		
-		int years = 0;
-		int months = 0;
-		int days = 0;
-		int hours = 0;
-		int minutes = 0;
-		double seconds = 0;
-
-		String pstr = "";
-		String tstr = "";
-
-		if (strVal.startsWith("-P")) {
-			isDurationNegative = true;
-			pstr = strVal.substring(2, strVal.length());
-		} else if (strVal.startsWith("P")) {
-			isDurationNegative = false;
-			pstr = strVal.substring(1, strVal.length());
-		} else {
+		XSDuration xsDuration = tryParseDuration(strVal);
+		if (xsDuration == null) {
 		    throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
 		                                                                                         + "cannot be parsed to a xs:duration value.");
 		}
 
-		try {
-			int index = pstr.indexOf('Y');
-			boolean isAction = false;
-
-			if (index != -1) {
-				String digit = pstr.substring(0, index);
-				years = Integer.parseInt(digit);
-				pstr = pstr.substring(index + 1, pstr.length());
-				isAction = true;
-			}
-
-			index = pstr.indexOf('M');
-			if (index != -1) {
-				String digit = pstr.substring(0, index);
-				months = Integer.parseInt(digit);
-				pstr = pstr.substring(index + 1, pstr.length());
-				isAction = true;
-			}
-
-			// days
-			index = pstr.indexOf('D');
-
-			if (index == -1) {
-				if (pstr.startsWith("T")) {
-					tstr = pstr.substring(1, pstr.length());
-				}
-			} else {
-				String digit = pstr.substring(0, index);
-				days = Integer.parseInt(digit);
-				tstr = pstr.substring(index + 1, pstr.length());
-
-				if (tstr.startsWith("T")) {
-					tstr = tstr.substring(1, tstr.length());
-				} else {
-					tstr = "";
-					isAction = true;
-				}
-			}
-
-			// hours
-			index = tstr.indexOf('H');
-			if (index != -1) {
-				String digit = tstr.substring(0, index);
-				hours = Integer.parseInt(digit);
-				tstr = tstr.substring(index + 1, tstr.length());
-				isAction = true;
-			}
-			// minutes
-			index = tstr.indexOf('M');
-			if (index != -1) {
-				String digit = tstr.substring(0, index);
-				minutes = Integer.parseInt(digit);
-				tstr = tstr.substring(index + 1, tstr.length());
-				isAction = true;
-			}
-			// seconds
-			index = tstr.indexOf('S');
-			if (index != -1) {
-				String digit = tstr.substring(0, index);
-				seconds = Double.parseDouble(digit);
-				tstr = tstr.substring(index + 1, tstr.length());
-				isAction = true;
-			}
-			if (!isAction) {
-			    throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                               + "cannot be parsed to a xs:duration value.");
-			}
-
-		} 
-		catch (TransformerException ex) {
-	        throw ex;  
-	    }
-		catch (Exception ex) {
-		    throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                              + "cannot be parsed to a xs:duration value."); 
-		}
+		return xsDuration;
+	}
 
-		return new XSDuration(years, months, days, hours, minutes, seconds, isDurationNegative);
+	/**
+	 * Construct a new XSDuration object, by parsing the supplied string.
+	 * 
+	 * @param strVal   string to be parsed
+	 * 
+	 * @return      XSDuration object representing the duration of time supplied,
+	 *              or null if the supplied string is not a valid xs:duration
+	 *              lexical value.
+	 */
+	static XSDuration tryParseDuration(String strVal) {
+		return XPath3DurationLexer.parse(strVal, XPath3DurationLexer.DURATION);
 	}
 
 	/**
@@ -401,7 +333,7 @@ public class XSDuration extends XSCtrType {
 	 * @return number of years within the duration of time stored
 	 */
 	public int year() {
-		return _year;
+		return Math.abs(_months) / 12;
 	}
 
 	/**
@@ -410,7 +342,7 @@ public class XSDuration extends XSCtrType {
 	 * @return number of months within the duration of time stored
 	 */
 	public int month() {
-		return _month;
+		return Math.abs(_months) % 12;
 	}
 	
 	/**
@@ -418,10 +350,8 @@ public class XSDuration extends XSCtrType {
 	 * another XSDuration value. 
 	 */
 	public boolean equals(XSDuration xsDuration) {
-       double val1 = value();
-       double val2 = xsDuration.value();
-       
-       return val1 == val2;
+       return (_months == xsDuration._months) && (_seconds == xsDuration._seconds) && 
+                                                                         (_nanos == xsDuration._nanos);
     }
 	
 	/**
@@ -429,10 +359,7 @@ public class XSDuration extends XSCtrType {
      * than another one.  
      */
     public boolean lt(XSDuration xsDuration) {
-       double val1 = value();
-       double val2 = xsDuration.value();
-       
-       return val1 < val2;
+       return compareDuration(xsDuration) < 0;
     }
     
     /**
@@ -440,32 +367,48 @@ public class XSDuration extends XSCtrType {
      * greater than another one.  
      */
     public boolean gt(XSDuration xsDuration) {
-       double val1 = value();
-       double val2 = xsDuration.value();
+       return compareDuration(xsDuration) > 0;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+       boolean isDurationEqual = false;
+        
+       if (obj instanceof XSDuration) {
+          isDurationEqual = this.equals((XSDuration)obj);  
+       }
        
-       return val1 > val2;
+       return isDurationEqual;
+    }
+    
+    @Override
+    public int hashCode() {
+       long hash = (((31L * _months) + _seconds) * 31) + _nanos;
+       
+       return (int)(hash ^ (hash >>> 32));
     }
     
     public int getType() {
        return CLASS_XS_DURATION;
     }
     
-    /**
-     * Do a data type cast, of a XSAnyType value to an XSDuration
-     * value.
-     *  
-     * @throws TransformerException 
+    /*
+     * Compare this XSDuration value with another one. The months are 
+     * compared first, and then the seconds.
+     * 
+     * @return  a negative integer, zero, or a positive integer as this value
+     *          is less than, equal to, or greater than the supplied value.
      */
-    private XSDuration castToDuration(XSAnyType xsAnyType) throws TransformerException {
-        
-        if (xsAnyType instanceof XSDuration) {
-            XSDuration duration = (XSDuration) xsAnyType;
-            
-            return new XSDuration(duration.year(), duration.month(), duration.days(), duration.hours(), 
-                                                              duration.minutes(), duration.seconds(), duration.negative());
-        }
-        
-        return parseDuration(xsAnyType.stringValue());
+    private int compareDuration(XSDuration xsDuration) {
+       int result = Integer.compare(_months, xsDuration._months);
+       if (result == 0) {
+          result = Long.compare(_seconds, xsDuration._seconds);
+       }
+       if (result == 0) {
+          result = Integer.compare(_nanos, xsDuration._nanos);
+       }
+       
+       return result;
     }
 
 }
@@ -13,7 +13,9 @@
 
 package xml.xpath31.processor.types;
 
-import org.apache.xpath.objects.ResultSequence;
+import javax.xml.transform.TransformerException;
+
+import org.apache.xml.utils.FastStringBuffer;
 
 /**
  * An XML Schema data type representation, of the xs:float datatype.
@@ -24,16 +26,13 @@ public class XSFloat extends XSNumericType {
 
     private static final String XS_FLOAT = "xs:float";
 	
-	private Float _value;
-	
-	private XPath3DecimalFormat xpath3DecimalFormat = new XPath3DecimalFormat(
-	                                                                   "0.#######E0");
+	private final float _value;
 	
 	/*
 	 * Class constructor.
 	 */
 	public XSFloat(float x) {
-		_value = new Float(x);
+		_value = x;
 	}
 
 	/*
@@ -47,17 +46,8 @@ public class XSFloat extends XSNumericType {
      * Class constructor.
      */
 	public XSFloat(String val) {
-		try {
-	       if (val.equals("-INF")) {
-			  _value = new Float(Float.NEGATIVE_INFINITY);
-		   } else if (val.equals("INF")) {
-			  _value = new Float(Float.POSITIVE_INFINITY);
-		   } else {
-		      _value = new Float(val);
-		   }
-		} catch (NumberFormatException ex) {
-			// to do
-		}
+		String trimmedStr = trimWhitespace(val);
+		_value = isFloatingPointLexicalValue(trimmedStr) ? toFloatValue(trimmedStr) : 0;
 	}
 	
 	public String stringType() {
@@ -69,59 +59,36 @@ public class XSFloat extends XSNumericType {
 	}
 
 	@Override
-	public String stringValue() {	   
-	   if (zero()) {
-	      return "0";
-	   }
-	   
-	   if (negativeZero()) {
-	      return "-0"; 
-	   }
-	        
-	   if (nan()) {
-	      return "NaN";    
-	   }
-	                                
-	   return xpath3DecimalFormat.performStrFormatting(_value);
+	public String stringValue() {
+	   return XPath3CanonicalNumberFormat.formatFloat(_value);
 	}
 	
 	@Override
-    public ResultSequence constructor(ResultSequence arg) {
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
-        }
-        
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
+	public void appendToFsb(FastStringBuffer fsb) {
+	   XPath3CanonicalNumberFormat.appendFloat(_value, fsb);
+	}
+	
+    /**
+     * A method to cast a value to a xs:float value.
+     * 
+     * @throws TransformerException    if the supplied value cannot be cast
+     *                                 to a xs:float value.
+     */
+    @Override
+    public XSFloat cast(XSAnyType xsAnyType) throws TransformerException {
+        XSFloat xsFloat = XPath3CastTable.castToFloat(xsAnyType);
         
-        try {
-            Float floatVal = null;
-            
-            if ((xsAnyType.stringValue()).equals("INF")) {
-                floatVal = new Float(Float.POSITIVE_INFINITY);
-            } 
-            else if ((xsAnyType.stringValue()).equals("-INF")) {
-                floatVal = new Float(Float.NEGATIVE_INFINITY);
-            } 
-            else if (xsAnyType instanceof XSBoolean) {
-                if ((xsAnyType.stringValue()).equals("true")) {
-                    floatVal = new Float("1.0E0");
-                } else {
-                    floatVal = new Float("0.0E0");
-                }
-            } 
-            else {
-                floatVal = new Float(xsAnyType.stringValue());
-            }
-            
-            resultSeq.add(new XSFloat(floatVal.floatValue()));
-        } catch (NumberFormatException e) {
-            // to do
-            return null;
+        if (xsFloat == null) {
+           throw new TransformerException("FORG0001 : The supplied value '" + xsAnyType.stringValue() + "' "
+                                                                               + "cannot be cast to a xs:float value.");
         }
         
-        return resultSeq;
+        return xsFloat;
+    }
+    
+    @Override
+    public XSCtrType tryParse(String strVal) {
+        return tryParseFloat(strVal);
     }
 
 	/**
@@ -132,7 +99,7 @@ public class XSFloat extends XSNumericType {
 	 *             false otherwise.
 	 */
 	public boolean nan() {
-		return Float.isNaN(_value.floatValue());
+		return Float.isNaN(_value);
 	}
 
 	/**
@@ -143,7 +110,7 @@ public class XSFloat extends XSNumericType {
 	 *            false otherwise.
 	 */
 	public boolean infinite() {
-		return Float.isInfinite(_value.floatValue());
+		return Float.isInfinite(_value);
 	}
 
 	/**
@@ -153,7 +120,7 @@ public class XSFloat extends XSNumericType {
 	 *            false otherwise.
 	 */
 	public boolean zero() {
-	   return (Float.compare(_value.floatValue(), 0) == 0);
+	   return (Float.compare(_value, 0) == 0);
 	}
 	
 	/*
@@ -163,7 +130,7 @@ public class XSFloat extends XSNumericType {
 	 *           false otherwise.
 	 */
 	public boolean negativeZero() {
-	   return (Float.compare(_value.floatValue(), -0.0f) == 0);
+	   return (Float.compare(_value, -0.0f) == 0);
 	}
 	
 	/**
@@ -173,11 +140,13 @@ public class XSFloat extends XSNumericType {
 	 * @return    the actual numeric float value stored
 	 */
 	public float floatValue() {
-		return _value.floatValue();
+		return _value;
 	}
 	
 	public boolean equals(XSFloat xsFloat) {
-        return _value.equals(xsFloat.floatValue()); 
+	    // same semantics as java.lang.Float.equals, i.e NaN is equal to
+	    // NaN, and 0 is not equal to -0.
+        return Float.floatToIntBits(_value) == Float.floatToIntBits(xsFloat.floatValue()); 
     }
 	
 	public boolean lt(XSFloat xsFloat) {
@@ -191,5 +160,33 @@ public class XSFloat extends XSNumericType {
     public int getType() {
         return CLASS_XS_FLOAT;
     }
+    
+    /*
+     * Parse the supplied string value, as an xs:float lexical value. This
+     * method returns null, if the string value is not a valid xs:float
+     * lexical value.
+     */
+    static XSFloat tryParseFloat(String strVal) {
+        String trimmedStr = trimWhitespace(strVal);
+        
+        return isFloatingPointLexicalValue(trimmedStr) ? new XSFloat(toFloatValue(trimmedStr)) : null;
+    }
+    
+    /*
+     * Get the primitive float value, of a valid xs:float lexical value.
+     */
+    private static float toFloatValue(String trimmedStr) {
+        float floatVal;
+        if (trimmedStr.endsWith("INF")) {
+           floatVal = trimmedStr.startsWith("-") ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+        }
+        else {
+           // a valid xs:float lexical value, is also a valid argument of the 
+           // method Float.parseFloat.
+           floatVal = Float.parseFloat(trimmedStr); 
+        }
+        
+        return floatVal;
+    }
 	
 }
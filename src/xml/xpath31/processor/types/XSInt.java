@@ -15,7 +15,8 @@ package xml.xpath31.processor.types;
 
 import java.math.BigInteger;
 
-import org.apache.xpath.objects.ResultSequence;
+import javax.xml.transform.TransformerException;
+
 
 /**
  * An XML Schema data type representation, of the xs:int datatype.
@@ -26,9 +27,9 @@ public class XSInt extends XSLong {
     
     private static final String XS_INT = "xs:int";
     
-    private static BigInteger MIN_INCLUSIVE = BigInteger.valueOf(-2147483648L);
+    private static final long MIN_INCLUSIVE = -2147483648L;
     
-    private static BigInteger MAX_INCLUSIVE = BigInteger.valueOf(2147483647L);
+    private static final long MAX_INCLUSIVE = 2147483647L;
     
 	/*
 	 * Class constructor.
@@ -50,34 +51,63 @@ public class XSInt extends XSLong {
     public XSInt(String val) {
         super(val);
     }
+    
+    /*
+     * Class constructor.
+     */
+    public XSInt(int val) {
+        super(val);
+    }
 	
-	@Override
-    public ResultSequence constructor(ResultSequence arg) throws RuntimeException {
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
-        }
+    /**
+     * A method to cast a value to a xs:int value.
+     * 
+     * @throws TransformerException    if the supplied value cannot be cast
+     *                                 to a xs:int value.
+     */
+    @Override
+    public XSInt cast(XSAnyType xsAnyType) throws TransformerException {
+        XSInt xsInt = XPath3CastTable.castToInt(xsAnyType);
         
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-
-        try {
-            BigInteger bigInt = new BigInteger(xsAnyType.stringValue());          
-
-            if (bigInt.compareTo(MIN_INCLUSIVE) == -1 || 
-                                            bigInt.compareTo(MAX_INCLUSIVE) == 1) {
-                throw new RuntimeException("An instance of type xs:int cannot be created. The numeric argument "
-                                                                           + "'" + xsAnyType.stringValue() + "' provided is out of range for type xs:int.");  
+        if (xsInt == null) {
+            String strVal = xsAnyType.stringValue();
+            
+            if (isIntegerLexicalValue(trimWhitespace(strVal))) {
+               throw new TransformerException("FORG0001 : An instance of type xs:int cannot be created. The numeric "
+                                                          + "argument '" + strVal + "' provided is out of range for type xs:int.");
             }
             
-            resultSeq.add(new XSInt(bigInt));
-        } catch (NumberFormatException ex) {
-            throw new RuntimeException(ex.getMessage());
+            throw new TransformerException("FORG0001 : An instance of type xs:int cannot be created. The argument '" 
+                                                          + strVal + "' provided is not a valid xs:int value.");
         }
         
-        return resultSeq;
+        return xsInt;
     }
 	
+	@Override
+	public XSCtrType tryParse(String strVal) {
+	    return tryParseInt(strVal);
+	}
+	
+	/*
+	 * Parse the supplied string value, as an xs:int lexical value. This
+	 * method returns null, if the string value is not a valid xs:int
+	 * lexical value.
+	 */
+	static XSInt tryParseInt(String strVal) {
+	    String trimmedStr = trimWhitespace(strVal);
+	    
+	    XSInt xsInt = null;
+	    if (isIntegerLexicalValue(trimmedStr)) {
+	       xsInt = new XSInt(trimmedStr);
+	       if (!xsInt.isLongValue() || (xsInt.longValue() < MIN_INCLUSIVE) || (xsInt.longValue() > MAX_INCLUSIVE)) {
+	          xsInt = null;
+	       }
+	    }
+	    
+	    return xsInt;
+	}
+	
 	public String stringType() {
 		return XS_INT;
 	}
@@ -87,15 +117,15 @@ public class XSInt extends XSLong {
 	}
 	
 	public boolean equals(XSInt xsInt) {
-        return _value.equals(xsInt.intValue()); 
+        return compareValue(xsInt) == 0; 
     }
 	
 	public boolean lt(XSInt xsInt) {
-	    return _value.compareTo(xsInt.intValue()) < 0; 
+	    return compareValue(xsInt) < 0; 
     }
 	
 	public boolean gt(XSInt xsInt) {
-	    return _value.compareTo(xsInt.intValue()) > 0; 
+	    return compareValue(xsInt) > 0; 
     }
 	
     public int getType() {
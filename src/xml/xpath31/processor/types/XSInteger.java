@@ -16,42 +16,160 @@ package xml.xpath31.processor.types;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
-import org.apache.xpath.objects.ResultSequence;
+import javax.xml.transform.TransformerException;
+
+import org.apache.xml.utils.FastStringBuffer;
 
 /**
  * An XML Schema data type representation, of the xs:integer datatype.
+ * 
+ * An xs:integer value within the range of Java primitive type long, is
+ * stored as a primitive long value. Only the values outside that range
+ * (either supplied at construction, or produced by an arithmetic operation
+ * that overflows) are stored as java.math.BigInteger values.
  */
 public class XSInteger extends XSDecimal {
 
     private static final long serialVersionUID = -4634168510820898744L;
 
     private static final String XS_INTEGER = "xs:integer";
+    
+    // the maximum number of decimal digits, that may always be parsed
+    // to a Java long value without an overflow.
+    private static final int MAX_LONG_SAFE_DIGITS = 18;
+    
+    /**
+     * The name of the system property, that configures the largest xs:integer 
+     * value for which the method valueOf returns a shared XSInteger object. The
+     * value of this property cannot be less than 127.
+     */
+    public static final String CACHE_HIGH_PROPERTY = "xml.xpath31.processor.types.XSInteger.cacheHigh";
+    
+    // the range of xs:integer values, for which the method valueOf returns 
+    // shared XSInteger objects.
+    private static final int CACHE_LOW = -128;
+    private static final int DEFAULT_CACHE_HIGH = 1024;
+    private static final int MAX_CACHE_HIGH = 1 << 20;
+    private static final int CACHE_HIGH = getCacheHigh();
+    
+    private static final XSInteger[] INTEGER_CACHE = new XSInteger[(CACHE_HIGH - CACHE_LOW) + 1];
+    
+    static {
+        for (int idx = 0; idx < INTEGER_CACHE.length; idx++) {
+           INTEGER_CACHE[idx] = new XSInteger((long)(CACHE_LOW + idx)); 
+        }
+    }
 	
-    // the underlying java.math.BigInteger value, representing 
-    // this XML Schema datatype value. 
-	protected BigInteger _value;
+    // the primitive long value representing this XML Schema datatype value,
+    // when the value is within the range of Java long type.
+    private long _longValue;
+    
+    // the underlying java.math.BigInteger value representing this XML Schema 
+    // datatype value, when the value is outside the range of Java long type. 
+    // This is null otherwise.
+    private BigInteger _bigValue;
 
 	/*
 	 * Class constructor.
 	 */
 	public XSInteger() {
-		this(BigInteger.valueOf(0));
+		this(0L);
+	}
+	
+	/*
+     * Class constructor.
+     */
+	public XSInteger(long val) {
+	    // the numeric value is stored by this class, and not by the 
+	    // superclass XSDecimal.
+	    super();
+	    _longValue = val;
 	}
 
 	/*
      * Class constructor.
      */
 	public XSInteger(BigInteger val) {
-		super(new BigDecimal(val));
-		_value = val;
+		super();
+		if (val.bitLength() < 64) {
+		   _longValue = val.longValue();  
+		}
+		else {
+		   _bigValue = val;
+		}
 	}
 
 	/*
      * Class constructor.
      */
 	public XSInteger(String val) {
-		super(new BigDecimal(val));
-		_value = new BigInteger(val);
+		super();
+		
+		int strLength = val.length();
+		int idx = 0;
+		boolean isNegative = false;
+		if ((strLength > 0) && ((val.charAt(0) == '-') || (val.charAt(0) == '+'))) {
+		   isNegative = (val.charAt(0) == '-');
+		   idx = 1;
+		}
+		
+		boolean isLongParsed = (idx < strLength) && ((strLength - idx) <= MAX_LONG_SAFE_DIGITS);
+		long longValue = 0;
+		for (; isLongParsed && (idx < strLength); idx++) {
+		   char chr = val.charAt(idx);
+		   if ((chr >= '0') && (chr <= '9')) {
+		      longValue = (longValue * 10) + (chr - '0');
+		   }
+		   else {
+		      isLongParsed = false; 
+		   }
+		}
+		
+		if (isLongParsed) {
+		   _longValue = (isNegative ? -longValue : longValue);
+		}
+		else {
+		   // too many digits for the fast path, or an invalid literal. The
+		   // java.math.BigInteger class either parses the value, or throws 
+		   // java.lang.NumberFormatException.
+		   BigInteger bigInteger = new BigInteger(val);
+		   if (bigInteger.bitLength() < 64) {
+		      _longValue = bigInteger.longValue();  
+		   }
+		   else {
+		      _bigValue = bigInteger;
+		   }
+		}
+	}
+
+	/**
+	 * Get an XSInteger object, representing the supplied integer value. For
+	 * the small integer values (by default, within the range -128 to 1024) 
+	 * this method returns shared XSInteger objects, instead of constructing 
+	 * new objects.
+	 * 
+	 * @param val    the integer value
+	 * 
+	 * @return       an XSInteger object representing the supplied value
+	 */
+	public static XSInteger valueOf(long val) {
+	    if ((val >= CACHE_LOW) && (val <= CACHE_HIGH)) {
+	       return INTEGER_CACHE[(int)val - CACHE_LOW]; 
+	    }
+	    
+	    return new XSInteger(val);
+	}
+	
+	/**
+	 * Get an XSInteger object, representing the supplied integer value. For
+	 * the small integer values, this method returns shared XSInteger objects.
+	 * 
+	 * @param val    the integer value
+	 * 
+	 * @return       an XSInteger object representing the supplied value
+	 */
+	public static XSInteger valueOf(BigInteger val) {
+	    return (val.bitLength() < 64) ? valueOf(val.longValue()) : new XSInteger(val);
 	}
 
 	public String stringType() {
@@ -69,7 +187,17 @@ public class XSInteger extends XSDecimal {
 	 * @return   string representation of the integer value stored
 	 */
 	public String stringValue() {
-		return _value.toString();
+		return (_bigValue != null) ? _bigValue.toString() : Long.toString(_longValue);
+	}
+	
+	@Override
+	public void appendToFsb(FastStringBuffer fsb) {
+	    if (_bigValue != null) {
+	       fsb.append(_bigValue.toString());
+	    }
+	    else {
+	       appendDigits(fsb, _longValue, 1);
+	    }
 	}
 
 	/**
@@ -79,27 +207,53 @@ public class XSInteger extends XSDecimal {
      *            false otherwise.
      */
 	public boolean zero() {
-		return (_value.compareTo(BigInteger.ZERO) == 0);
+		return (_bigValue == null) && (_longValue == 0);
 	}
 
-	public ResultSequence constructor(ResultSequence arg) {
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
-        }
-        
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-        
-        try {
-            BigInteger bigInteger = castToInteger(xsAnyType);            
-            resultSeq.add(new XSInteger(bigInteger));            
-        } catch (NumberFormatException e) {
-            // to do
-            return null;
-        }
-        
-        return resultSeq;
+	@Override
+	public XSCtrType tryParse(String strVal) {
+	    return tryParseInteger(strVal);
+	}
+	
+	/*
+	 * Parse the supplied string value, as an xs:integer lexical value. This
+	 * method returns null, if the string value is not a valid xs:integer
+	 * lexical value.
+	 */
+	static XSInteger tryParseInteger(String strVal) {
+	    String trimmedStr = trimWhitespace(strVal);
+	    
+	    XSInteger xsInteger = null;
+	    if (isIntegerLexicalValue(trimmedStr)) {
+	       char firstChr = trimmedStr.charAt(0);
+	       int digitCount = trimmedStr.length() - (((firstChr == '-') || (firstChr == '+')) ? 1 : 0);
+	       // the method valueOf returns a shared XSInteger object, for a small value
+	       xsInteger = (digitCount <= MAX_LONG_SAFE_DIGITS) ? valueOf(Long.parseLong(trimmedStr)) : 
+	                                                                   valueOf(new BigInteger(trimmedStr));
+	    }
+	    
+	    return xsInteger;
+	}
+
+	/**
+     * A method to cast a value to a xs:integer value.
+     * 
+     * @throws TransformerException    if the supplied value cannot be cast
+     *                                 to a xs:integer value.
+     */
+	@Override
+	public XSInteger cast(XSAnyType xsAnyType) throws TransformerException {
+	    XSInteger xsInteger = null;
+	    
+	    try {
+	       xsInteger = XPath3CastTable.castToInteger(xsAnyType);
+	    }
+	    catch (NumberFormatException ex) {
+	       throw new TransformerException("FORG0001 : The supplied value '" + xsAnyType.stringValue() + "' "
+	                                                                           + "cannot be cast to a xs:integer value.");
+	    }
+	    
+	    return xsInteger;
 	}
 
 	/**
@@ -109,61 +263,161 @@ public class XSInteger extends XSDecimal {
      * @return   the actual value of the number stored
      */
 	public BigInteger intValue() {
-		return _value;
+		return (_bigValue != null) ? _bigValue : BigInteger.valueOf(_longValue);
 	}
-
+	
 	/**
-     * Set the numeric integer value, within this object.
-     * 
-     * @param val    number to be stored
-     */
-	public void setInt(BigInteger val) {
-		_value = val;
+	 * Check whether, the integer value stored within this object is
+	 * within the range of Java primitive type long.
+	 * 
+	 * @return   true if the value stored is within the range of Java 
+	 *           long type. false otherwise.
+	 */
+	public boolean isLongValue() {
+	    return (_bigValue == null);
 	}
 	
+	/**
+	 * Get the integer value stored within this object, as a primitive
+	 * long value. The result is meaningful only when the method 
+	 * isLongValue() returns true.
+	 * 
+	 * @return   the integer value stored, as a primitive long value 
+	 */
+	public long longValue() {
+	    return (_bigValue != null) ? _bigValue.longValue() : _longValue;
+	}
+	
+	public BigDecimal getValue() {
+	    return (_bigValue != null) ? new BigDecimal(_bigValue) : BigDecimal.valueOf(_longValue);
+	}
+	
+	public double doubleValue() {
+	    return (_bigValue != null) ? _bigValue.doubleValue() : (double)_longValue;
+	}
+
 	public boolean equals(XSInteger xsInteger) {
-        return _value.equals(xsInteger.intValue()); 
+        return compareValue(xsInteger) == 0; 
     }
 	
 	public boolean lt(XSInteger xsInteger) {
-	    return (intValue()).compareTo(xsInteger.intValue()) < 0; 
+	    return compareValue(xsInteger) < 0; 
     }
 	
 	public boolean gt(XSInteger xsInteger) {
-	    return (intValue()).compareTo(xsInteger.intValue()) > 0; 
+	    return compareValue(xsInteger) > 0; 
     }
 	
+	/**
+	 * Add an XSInteger value to this XSInteger value, and return the result
+	 * as an XSInteger value.
+	 */
+	public XSInteger add(XSInteger xsInteger) {
+	    if ((_bigValue == null) && (xsInteger._bigValue == null)) {
+	       long x = _longValue;
+	       long y = xsInteger._longValue;
+	       long result = x + y;
+	       if (((x ^ result) & (y ^ result)) >= 0) {
+	          return valueOf(result);  
+	       }
+	    }
+	    
+	    return valueOf((intValue()).add(xsInteger.intValue()));
+	}
+	
+	/**
+	 * Subtract an XSInteger value from this XSInteger value, and return the 
+	 * result as an XSInteger value.
+	 */
+	public XSInteger subtract(XSInteger xsInteger) {
+	    if ((_bigValue == null) && (xsInteger._bigValue == null)) {
+	       long x = _longValue;
+	       long y = xsInteger._longValue;
+	       long result = x - y;
+	       if (((x ^ y) & (x ^ result)) >= 0) {
+	          return valueOf(result);  
+	       }
+	    }
+	    
+	    return valueOf((intValue()).subtract(xsInteger.intValue()));
+	}
+	
+	/**
+	 * Multiply this XSInteger value with another XSInteger value, and return 
+	 * the result as an XSInteger value.
+	 */
 	public XSInteger multiply(XSInteger xsInteger) {
-	    return new XSInteger((intValue()).multiply(xsInteger.intValue()));   
+	    if ((_bigValue == null) && (xsInteger._bigValue == null)) {
+	       long x = _longValue;
+	       long y = xsInteger._longValue;
+	       long result = x * y;
+	       long absX = Math.abs(x);
+	       long absY = Math.abs(y);
+	       // the product cannot overflow, when both the operands fit within 31 bits
+	       if ((((absX | absY) >>> 31) == 0) || (((y == 0) || ((result / y) == x)) && 
+	                                                           !((x == Long.MIN_VALUE) && (y == -1)))) {
+	          return valueOf(result);  
+	       }
+	    }
+	    
+	    return valueOf((intValue()).multiply(xsInteger.intValue()));   
 	}
 	
     public int getType() {
         return CLASS_XS_INTEGER;
     }
-	
-	/*
-     * Cast an object of type XSAnyType, to an object of type 
-     * java.math.BigInteger.  
+    
+    protected boolean isCompactValue() {
+        // the compact form of XSDecimal never has the unscaled value 
+        // Long.MIN_VALUE (whose magnitude is not a long value), and the 
+        // XSDecimal arithmetic relies on that.
+        return (_bigValue == null) && (_longValue != Long.MIN_VALUE);
+    }
+    
+    protected long getUnscaledValue() {
+        return _longValue;
+    }
+    
+    protected int getCompactScale() {
+        return 0;
+    }
+    
+    /**
+     * Compare the integer value stored within this object, with the one
+     * stored within another XSInteger object.
+     * 
+     * @return  a negative integer, zero, or a positive integer as this value
+     *          is less than, equal to, or greater than the supplied value.
      */
-    private BigInteger castToInteger(XSAnyType xsAnyType) {
-        
-        if (xsAnyType instanceof XSBoolean) {
-            if ((xsAnyType.stringValue()).equals("true")) {
-                return BigInteger.ONE;
-            } 
-            else {
-                return BigInteger.ZERO;
-            }
+    protected int compareValue(XSInteger xsInteger) {
+        if ((_bigValue == null) && (xsInteger._bigValue == null)) {
+           return Long.compare(_longValue, xsInteger._longValue);
         }
         
-        if ((xsAnyType instanceof XSDecimal) || (xsAnyType instanceof XSFloat) ||
-                                                (xsAnyType instanceof XSDouble)) {
-           BigDecimal bigDecimal =  new BigDecimal(xsAnyType.stringValue());
-           
-           return bigDecimal.toBigInteger();
+        return (intValue()).compareTo(xsInteger.intValue());
+    }
+    
+    /*
+     * Get the largest xs:integer value, for which the method valueOf returns a
+     * shared XSInteger object.
+     */
+    private static int getCacheHigh() {
+        int cacheHigh = DEFAULT_CACHE_HIGH;
+        
+        try {
+           String propValue = System.getProperty(CACHE_HIGH_PROPERTY);
+           if (propValue != null) {
+              cacheHigh = Math.min(Math.max(Integer.parseInt(propValue.trim()), 127), MAX_CACHE_HIGH);
+           }
+        }
+        catch (SecurityException ex) {
+           // the default value is used
+        }
+        catch (NumberFormatException ex) {
+           // the default value is used
         }
         
-        return new BigInteger(xsAnyType.stringValue());
+        return cacheHigh;
     }
 
 }
@@ -15,7 +15,8 @@ package xml.xpath31.processor.types;
 
 import java.math.BigInteger;
 
-import org.apache.xpath.objects.ResultSequence;
+import javax.xml.transform.TransformerException;
+
 
 /**
  * An XML Schema data type representation, of the xs:long datatype.
@@ -25,10 +26,6 @@ public class XSLong extends XSInteger {
     private static final long serialVersionUID = -1030394161532436404L;
     
     private static final String XS_LONG = "xs:long";
-    
-    private static BigInteger MIN_INCLUSIVE = BigInteger.valueOf(-9223372036854775808L);
-    
-    private static BigInteger MAX_INCLUSIVE = BigInteger.valueOf(9223372036854775807L);
 
 	/*
 	 * Class constructor.
@@ -50,34 +47,63 @@ public class XSLong extends XSInteger {
     public XSLong(String val) {
         super(val);
     }
+    
+    /*
+     * Class constructor.
+     */
+    public XSLong(long val) {
+        super(val);
+    }
 	
-	@Override
-    public ResultSequence constructor(ResultSequence arg) throws RuntimeException {
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
-        }
+    /**
+     * A method to cast a value to a xs:long value.
+     * 
+     * @throws TransformerException    if the supplied value cannot be cast
+     *                                 to a xs:long value.
+     */
+    @Override
+    public XSLong cast(XSAnyType xsAnyType) throws TransformerException {
+        XSLong xsLong = XPath3CastTable.castToLong(xsAnyType);
         
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-
-        try {
-            BigInteger bigInt = new BigInteger(xsAnyType.stringValue());     
-
-            if (bigInt.compareTo(MIN_INCLUSIVE) == -1 || 
-                                         bigInt.compareTo(MAX_INCLUSIVE) == 1) {
-                throw new RuntimeException("An instance of type xs:long cannot be created. The numeric argument "
-                                                                     + "'" + xsAnyType.stringValue() + "' provided is out of range for type xs:long.");  
+        if (xsLong == null) {
+            String strVal = xsAnyType.stringValue();
+            
+            if (isIntegerLexicalValue(trimWhitespace(strVal))) {
+               throw new TransformerException("FORG0001 : An instance of type xs:long cannot be created. The numeric "
+                                                          + "argument '" + strVal + "' provided is out of range for type xs:long.");
             }
             
-            resultSeq.add(new XSLong(bigInt));
-        } catch (NumberFormatException ex) {
-            throw new RuntimeException(ex.getMessage());
+            throw new TransformerException("FORG0001 : An instance of type xs:long cannot be created. The argument '" 
+                                                          + strVal + "' provided is not a valid xs:long value.");
         }
         
-        return resultSeq;
+        return xsLong;
     }
 	
+	@Override
+	public XSCtrType tryParse(String strVal) {
+	    return tryParseLong(strVal);
+	}
+	
+	/*
+	 * Parse the supplied string value, as an xs:long lexical value. This
+	 * method returns null, if the string value is not a valid xs:long
+	 * lexical value.
+	 */
+	static XSLong tryParseLong(String strVal) {
+	    String trimmedStr = trimWhitespace(strVal);
+	    
+	    XSLong xsLong = null;
+	    if (isIntegerLexicalValue(trimmedStr)) {
+	       xsLong = new XSLong(trimmedStr);
+	       if (!xsLong.isLongValue()) {
+	          xsLong = null;
+	       }
+	    }
+	    
+	    return xsLong;
+	}
+	
 	public String stringType() {
 		return XS_LONG;
 	}
@@ -87,15 +113,15 @@ public class XSLong extends XSInteger {
 	}
 	
 	public boolean equals(XSLong xsLong) {
-        return _value.equals(xsLong.intValue()); 
+        return compareValue(xsLong) == 0; 
     }
 	
 	public boolean lt(XSLong xsLong) {
-	    return _value.compareTo(xsLong.intValue()) < 0; 
+	    return compareValue(xsLong) < 0; 
     }
 	
 	public boolean gt(XSLong xsLong) {
-	    return _value.compareTo(xsLong.intValue()) > 0; 
+	    return compareValue(xsLong) > 0; 
     }
 	
     public int getType() {
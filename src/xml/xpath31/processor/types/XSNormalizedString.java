@@ -11,8 +11,6 @@
 
 package xml.xpath31.processor.types;
 
-import org.apache.xpath.objects.ResultSequence;
-
 /**
  * A representation of the xs:normalizedString datatype.
  */
@@ -67,35 +65,30 @@ public class XSNormalizedString extends XSString {
 	}
 
 	/**
-	 * Creates a new ResultSequence object, consisting of the string value
-	 * within the supplied ResultSequence.
+	 * Creates a new XSNormalizedString object, having the string value
+	 * of the supplied value.
 	 * 
-	 * @param arg    the ResultSequence from which to get the string
+	 * @param xsAnyType    the value from which to get the string
 	 * 
-	 * @return       new ResultSequence consisting of the supplied string
+	 * @return             new XSNormalizedString object having the supplied
+	 *                     string
 	 * 
 	 * @throws       javax.xml.transform.TransformerException
 	 */
-	public ResultSequence constructor(ResultSequence arg) throws javax.xml.transform.TransformerException {
-		ResultSequence resultSeq = new ResultSequence();
-
-		if (arg.size() == 0) {
-		   return resultSeq;
-		}
-
-		XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-
-		String srcString = xsAnyType.stringValue();
-		if (!isSatisfiesConstraints(srcString)) {
+	public XSNormalizedString cast(XSAnyType xsAnyType) throws javax.xml.transform.TransformerException {
+		XSNormalizedString xsNormalizedString = (XSNormalizedString)tryParse(xsAnyType.stringValue());
+		if (xsNormalizedString == null) {
 		   throw new javax.xml.transform.TransformerException("FORG0006 : The supplied string value cannot be used to construct "
 		   		                                                          + "xs:normalizedString value, since the input string contains prohibited "
 		   		                                                          + "characters for a xs:normalizedString value.");	
 		}
-		else {
-		   resultSeq.add(new XSNormalizedString(srcString));	
-		}
 
-		return resultSeq;
+		return xsNormalizedString;
+	}
+	
+	@Override
+	public XSCtrType tryParse(String strVal) {
+		return ((strVal != null) && isSatisfiesConstraints(strVal)) ? new XSNormalizedString(strVal) : null;
 	}
 	
 	/*
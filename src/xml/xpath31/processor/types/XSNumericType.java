@@ -15,8 +15,6 @@ package xml.xpath31.processor.types;
 
 import javax.xml.transform.TransformerException;
 
-import org.apache.xpath.objects.ResultSequence;
-
 /**
  * This class serves as base type, of all the XML Schema built-in 
  * numeric types.
@@ -26,7 +24,7 @@ public class XSNumericType extends XSCtrType {
     private static final long serialVersionUID = 6842313858622701811L;
 
     @Override
-    public ResultSequence constructor(ResultSequence arg) throws TransformerException {
+    public XSAnyAtomicType cast(XSAnyType xsAnyType) throws TransformerException {
         return null;
     }
 
@@ -44,5 +42,112 @@ public class XSNumericType extends XSCtrType {
     public String stringValue() {
         return null;
     }
+    
+    @Override
+    public XSCtrType tryParse(String strVal) {
+        return null;
+    }
+    
+    /*
+     * Check whether, a string value is a valid lexical representation of the 
+     * datatype xs:integer, i.e (\+|-)?[0-9]+
+     */
+    protected static boolean isIntegerLexicalValue(String strVal) {
+        if (strVal == null) {
+           return false; 
+        }
+        
+        int idx = skipSign(strVal, 0);
+        int digitEnd = skipDigits(strVal, idx);
+        
+        return (digitEnd > idx) && (digitEnd == strVal.length());
+    }
+    
+    /*
+     * Check whether, a string value is a valid lexical representation of the 
+     * datatype xs:decimal, i.e (\+|-)?([0-9]+(\.[0-9]*)?|\.[0-9]+)
+     */
+    protected static boolean isDecimalLexicalValue(String strVal) {
+        if (strVal == null) {
+           return false; 
+        }
+        
+        int idx = skipSign(strVal, 0);
+        
+        return (scanDecimalDigits(strVal, idx) == strVal.length());
+    }
+    
+    /*
+     * Check whether, a string value is a valid lexical representation of the 
+     * datatypes xs:double and xs:float, i.e 
+     * (\+|-)?([0-9]+(\.[0-9]*)?|\.[0-9]+)([Ee](\+|-)?[0-9]+)?|(\+|-)?INF|NaN
+     */
+    protected static boolean isFloatingPointLexicalValue(String strVal) {
+        boolean isValid = false;
+        
+        if (strVal == null) {
+           return isValid; 
+        }
+        
+        int idx = skipSign(strVal, 0);
+        if ("NaN".equals(strVal) || (strVal.startsWith("INF", idx) && ((idx + 3) == strVal.length()))) {
+           isValid = true; 
+        }
+        else {
+           int mantissaEnd = scanDecimalDigits(strVal, idx);
+           if ((mantissaEnd != -1) && (mantissaEnd < strVal.length())) {
+              char chr = strVal.charAt(mantissaEnd);
+              if ((chr == 'E') || (chr == 'e')) {
+                 int exponentStart = skipSign(strVal, mantissaEnd + 1);
+                 int exponentEnd = skipDigits(strVal, exponentStart);
+                 isValid = (exponentEnd > exponentStart) && (exponentEnd == strVal.length());
+              }
+           }
+           else {
+              isValid = (mantissaEnd != -1); 
+           }
+        }
+        
+        return isValid;
+    }
+    
+    /*
+     * Scan the characters [0-9]+(\.[0-9]*)?|\.[0-9]+ of a string value starting 
+     * at the specified position, and return the position after them. This method 
+     * returns -1, if the characters don't have this form.
+     */
+    private static int scanDecimalDigits(String strVal, int idx) {
+        int intDigitEnd = skipDigits(strVal, idx);
+        int endIdx = intDigitEnd;
+        
+        if ((intDigitEnd < strVal.length()) && (strVal.charAt(intDigitEnd) == '.')) {
+           endIdx = skipDigits(strVal, intDigitEnd + 1);
+           if ((intDigitEnd == idx) && (endIdx == (intDigitEnd + 1))) {
+              // the string '.' without any digits
+              endIdx = -1;
+           }
+        }
+        else if (intDigitEnd == idx) {
+           endIdx = -1; 
+        }
+        
+        return endIdx;
+    }
+    
+    private static int skipSign(String strVal, int idx) {
+        if ((idx < strVal.length()) && ((strVal.charAt(idx) == '+') || (strVal.charAt(idx) == '-'))) {
+           idx++; 
+        }
+        
+        return idx;
+    }
+    
+    private static int skipDigits(String strVal, int idx) {
+        while ((idx < strVal.length()) && (strVal.charAt(idx) >= '0') && (strVal.charAt(idx) <= '9')) {
+           idx++; 
+        }
+        
+        return idx;
+    }
 
 }
@@ -15,7 +15,7 @@ package xml.xpath31.processor.types;
 
 import javax.xml.transform.TransformerException;
 
-import org.apache.xpath.objects.ResultSequence;
+import org.apache.xml.utils.XML11Char;
 
 /**
  * An XML Schema data type representation, of the xs:QName datatype.
@@ -26,19 +26,19 @@ public class XSQName extends XSCtrType {
 	
 	private static final String XS_QNAME = "xs:QName";
 	
-	private String prefix;
+	private final String prefix;
 	
-	private String localPart;
+	private final String localPart;
 	
-	private String namespaceUri;		
+	private final String namespaceUri;		
 	
-	private boolean _expanded;
+	private final boolean _expanded;
 	
 	/**
 	 * Default class constructor.
 	 */
 	public XSQName() { 
-	   // no op
+	   this(null, null, null);
 	}
 	
 	/**
@@ -47,86 +47,98 @@ public class XSQName extends XSCtrType {
 	public XSQName(String prefix, String localPart, String namespaceUri) {
 	   this.prefix = prefix;
 	   this.localPart = localPart;
-	   if (namespaceUri != null) {
-	      this.namespaceUri = namespaceUri;
-	      _expanded = true;
-	   }
+	   this.namespaceUri = namespaceUri;
+	   _expanded = (namespaceUri != null);
 	}
 	
 	/**
 	 * Class constructor.
 	 */
 	public XSQName(String prefix, String localPart) {	   
-	   this.prefix = prefix;
-	   this.localPart = localPart;
-	   _expanded = false;
+	   this(prefix, localPart, null);
 	}
 	
 	/**
 	 * Class constructor.
 	 */
 	public XSQName(String localPart) {
-	   this.localPart = localPart;
+	   this(null, localPart, null);
 	}		
 	
 	@Override
-	public ResultSequence constructor(ResultSequence arg) throws TransformerException {
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
-        }
-        
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
+	public XSQName cast(XSAnyType xsAnyType) throws TransformerException {
+        XSQName xsQName = null;
         
         if ((xsAnyType instanceof XSString) || (xsAnyType instanceof XSQName)) {
-        	XSQName xsQName = parseQName(xsAnyType.stringValue());
-        	if (xsQName != null) {
-        	   resultSeq.add(xsQName);
-        	}
+        	xsQName = parseQName(xsAnyType.stringValue());
         }
         else {
         	throw new TransformerException("FORG0006 : A xs:QName value can be constructed "
         			                            + "either using xs:string or an xs:QName value");
         }
            
-        return resultSeq;
+        return xsQName;
+	}
+
+	@Override
+	public XSCtrType tryParse(String strVal) {
+		if (strVal == null) {
+		   return null;	
+		}
+		
+		XSQName xsQName = parseQName(trimWhitespace(strVal));
+		if ((xsQName != null) && !(XML11Char.isXML11ValidNCName(xsQName.getLocalPart()) && 
+				                       ((xsQName.getPrefix() == null) || XML11Char.isXML11ValidNCName(xsQName.getPrefix())))) {
+		   // the prefix and the local part, must both be valid NCNames
+		   xsQName = null;	
+		}
+		
+		return xsQName;
 	}
 
 	public String getPrefix() {
 		return prefix;
 	}
 
-	public void setPrefix(String prefix) {
-		this.prefix = prefix;
+	/**
+	 * Get an xs:QName value, that is same as this xs:QName value except
+	 * that it has the supplied prefix.
+	 */
+	public XSQName withPrefix(String prefix) {
+		return new XSQName(prefix, localPart, namespaceUri);
 	}
 	
 	public String getLocalPart() {
 		return localPart;
 	}
 
-	public void setLocalPart(String localPart) {
-		this.localPart = localPart;
+	/**
+	 * Get an xs:QName value, that is same as this xs:QName value except
+	 * that it has the supplied local part.
+	 */
+	public XSQName withLocalPart(String localPart) {
+		return new XSQName(prefix, localPart, namespaceUri);
 	}
 	
 	public String getNamespaceUri() {
 		return namespaceUri;
 	}
 
-	public void setNamespaceUri(String namespaceUri) {
-		this.namespaceUri = namespaceUri;
+	/**
+	 * Get an xs:QName value, that is same as this xs:QName value except
+	 * that it has the supplied namespace uri.
+	 */
+	public XSQName withNamespaceUri(String namespaceUri) {
+		return new XSQName(prefix, localPart, namespaceUri);
 	}
 	
 	@Override
     public int hashCode() {
-	   // We need to form somewhat like below, xs:QName object's
-	   // sufficiently unique string value and get the corresponding 
-	   // hashCode value thereafter.
-	   String uniqueStrValue = "{" + prefix + ":" + 
-                                     namespaceUri + "}" + 
-                                     localPart;
+	   // the prefix is not used, since the xs:QName values are compared
+	   // only by their namespace uri and local part.
+	   int hashCode = (localPart != null) ? localPart.hashCode() : 0;
 	   
-	   return uniqueStrValue.hashCode();
+	   return (31 * hashCode) + ((namespaceUri != null) ? namespaceUri.hashCode() : 0);
 	}
 	
 	@Override
@@ -15,9 +15,7 @@ package xml.xpath31.processor.types;
 
 import javax.xml.transform.TransformerException;
 
-import org.apache.xpath.XPathCollationSupport;
 import org.apache.xpath.XPathContext;
-import org.apache.xpath.objects.ResultSequence;
 
 /**
  * An XML Schema data type representation, of the xs:string datatype.
@@ -28,11 +26,7 @@ public class XSString extends XSCtrType {
 
     private static final String XS_STRING = "xs:string";
     
-    private String _value;
-    
-    private XPathContext fXctxt = new XPathContext();
-    
-    private XPathCollationSupport fXpathCollationSupport = fXctxt.getXPathCollationSupport();
+    private final String _value;
     
     /*
      * Class constructor.
@@ -49,18 +43,13 @@ public class XSString extends XSCtrType {
     }
 
     @Override
-    public ResultSequence constructor(ResultSequence arg) throws javax.xml.transform.TransformerException {        
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
-        }
-        
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-        
-        resultSeq.add(new XSString(xsAnyType.stringValue()));
-           
-        return resultSeq;        
+    public XSString cast(XSAnyType xsAnyType) throws javax.xml.transform.TransformerException {        
+        return new XSString(xsAnyType.stringValue());        
+    }
+
+    @Override
+    public XSCtrType tryParse(String strVal) {
+        return (strVal != null) ? new XSString(strVal) : null;
     }
 
     @Override
@@ -89,36 +78,100 @@ public class XSString extends XSCtrType {
     
     /**
      * This function implements the semantics of XPath 3.1 'eq' operator,
-     * on xs:string values.
+     * on xs:string values, using the XPath 3.1 default collation.
      */
     public boolean equals(XSString xsStr) throws TransformerException {
-        int comparisonResult = fXpathCollationSupport.compareStringsUsingCollation(_value, xsStr.stringValue(), 
-                                                                                                       fXctxt.getDefaultCollation());
-        return (comparisonResult == 0); 
+        return (compareUsingDefaultCollation(xsStr) == 0); 
+    }
+    
+    /**
+     * This function implements the semantics of XPath 3.1 'eq' operator,
+     * on xs:string values, using the default collation of the supplied 
+     * XPath evaluation context.
+     */
+    public boolean equals(XSString xsStr, XPathContext xctxt) throws TransformerException {
+        return (compareUsingDefaultCollation(xsStr, xctxt) == 0); 
+    }
+    
+    /**
+     * This function implements the semantics of XPath 3.1 'eq' operator,
+     * on xs:string values, using the supplied resolved collation.
+     */
+    public boolean equals(XSString xsStr, XPathCollation collation) {
+        return collation.isEqual(_value, xsStr.stringValue()); 
     }
     
     /**
      * This function implements the semantics of XPath 3.1 'lt' operator,
-     * on xs:string values.
+     * on xs:string values, using the XPath 3.1 default collation.
      */
     public boolean lt(XSString xsStr) throws TransformerException {
-        int comparisonResult = fXpathCollationSupport.compareStringsUsingCollation(_value, xsStr.stringValue(), 
-                                                                                                       fXctxt.getDefaultCollation());
-        return (comparisonResult < 0);  
+        return (compareUsingDefaultCollation(xsStr) < 0);  
+    }
+    
+    /**
+     * This function implements the semantics of XPath 3.1 'lt' operator,
+     * on xs:string values, using the default collation of the supplied 
+     * XPath evaluation context.
+     */
+    public boolean lt(XSString xsStr, XPathContext xctxt) throws TransformerException {
+        return (compareUsingDefaultCollation(xsStr, xctxt) < 0);  
+    }
+    
+    /**
+     * This function implements the semantics of XPath 3.1 'lt' operator,
+     * on xs:string values, using the supplied resolved collation.
+     */
+    public boolean lt(XSString xsStr, XPathCollation collation) {
+        return (collation.compare(_value, xsStr.stringValue()) < 0);  
     }
     
     /**
      * This function implements the semantics of XPath 3.1 'gt' operator,
-     * on xs:string values.
+     * on xs:string values, using the XPath 3.1 default collation.
      */
     public boolean gt(XSString xsStr) throws TransformerException {
-        int comparisonResult = fXpathCollationSupport.compareStringsUsingCollation(_value, xsStr.stringValue(), 
-                                                                                                       fXctxt.getDefaultCollation());
-        return (comparisonResult > 0);  
+        return (compareUsingDefaultCollation(xsStr) > 0);  
+    }
+    
+    /**
+     * This function implements the semantics of XPath 3.1 'gt' operator,
+     * on xs:string values, using the default collation of the supplied 
+     * XPath evaluation context.
+     */
+    public boolean gt(XSString xsStr, XPathContext xctxt) throws TransformerException {
+        return (compareUsingDefaultCollation(xsStr, xctxt) > 0);  
+    }
+    
+    /**
+     * This function implements the semantics of XPath 3.1 'gt' operator,
+     * on xs:string values, using the supplied resolved collation.
+     */
+    public boolean gt(XSString xsStr, XPathCollation collation) {
+        return (collation.compare(_value, xsStr.stringValue()) > 0);  
     }
     
     public int getType() {
         return CLASS_STRING;
     }
+    
+    /*
+     * Compare this xs:string value with another one, using the shared 
+     * collation support object having XPath 3.1 default collation.
+     */
+    private int compareUsingDefaultCollation(XSString xsStr) throws TransformerException {
+        XPathCollation defaultCollation = (XPathCollationSupport.getDefaultCollationSupport()).getDefaultCollation();
+        
+        return defaultCollation.compare(_value, xsStr.stringValue());
+    }
+    
+    /*
+     * Compare this xs:string value with another one, using the default collation 
+     * of the supplied XPath evaluation context.
+     */
+    private int compareUsingDefaultCollation(XSString xsStr, XPathContext xctxt) throws TransformerException {
+        return (xctxt.getXPathCollationSupport()).compareStringsUsingCollation(_value, xsStr.stringValue(), 
+                                                                               xctxt.getDefaultCollation());
+    }
 
 }
@@ -19,7 +19,7 @@ import java.util.TimeZone;
 
 import javax.xml.transform.TransformerException;
 
-import org.apache.xpath.objects.ResultSequence;
+import org.apache.xml.utils.FastStringBuffer;
 import org.apache.xpath.objects.XObject;
 
 /**
@@ -31,17 +31,33 @@ public class XSTime extends XSCalendarType {
     
     private static final String XS_TIME = "xs:time";
     
-    private Calendar _calendar;
+    // the day 1972-12-31 (as number of days from 1970-01-01), which is the 
+    // reference date on which xs:time values are compared, as per XPath 3.1 
+    // spec.
+    private static final long REFERENCE_EPOCH_DAY = 1095L;
     
-    private boolean _timezoned;
+    // the time of day, as number of nanoseconds
+    private final long _nanoOfDay;
     
-    private XSDuration _tz;
+    private final boolean _timezoned;
+    
+    // the timezone offset as number of minutes, when this value 
+    // has a timezone.
+    private final int _tzOffsetMinutes;
+    
+    // the UTC normalized instant of this time on the reference date (as a 
+    // day, and a time of day within that day), by which the XSTime values 
+    // are ordered.
+    private final long _utcEpochDay;
+    
+    private final long _utcNanoOfDay;
     
     /**
      * The value of this class field, stores the fact that whether this
      * XSTime object is constructed via XPath function call fn:current-time().
+     * This flag doesn't affect the comparisons of XSTime values.
      */
-    private boolean isPopulatedFromFnCurrentTime = false;
+    private final boolean isPopulatedFromFnCurrentTime;
     
     /**
      * Class constructor.
@@ -54,15 +70,37 @@ public class XSTime extends XSCalendarType {
      *              XSTime object.
      */
     public XSTime(Calendar cal, XSDuration tz) {
-        _calendar = cal;
-        _tz = tz;
-        
-        if (tz == null) {
-           _timezoned = false;
-        }
-        else {
-           _timezoned = true;
-        }
+        this(getNanoOfDay(cal), (tz != null), (tz != null) ? getTimezoneOffsetMinutes(tz) : 0);
+    }
+    
+    /**
+     * Class constructor.
+     * 
+     * Construct an XSTime object, with the provided time and timezone 
+     * values.
+     * 
+     * @param nanoOfDay          the time of day, as number of nanoseconds
+     * @param timezoned          true if this value has a timezone. false otherwise.
+     * @param tzOffsetMinutes    the timezone offset as number of minutes (this is
+     *                           ignored, if the argument timezoned is false)
+     */
+    public XSTime(long nanoOfDay, boolean timezoned, int tzOffsetMinutes) {
+        this(nanoOfDay, timezoned, tzOffsetMinutes, false);
+    }
+    
+    /*
+     * Class constructor, that also sets the 'populated from fn:current-time' 
+     * flag value.
+     */
+    private XSTime(long nanoOfDay, boolean timezoned, int tzOffsetMinutes, 
+                                                                     boolean isPopulatedFromFnCurrentTime) {
+        _nanoOfDay = nanoOfDay;
+        _timezoned = timezoned;
+        _tzOffsetMinutes = (timezoned ? tzOffsetMinutes : 0);
+        int utcOffsetMinutes = getNormalizingOffsetMinutes(timezoned, tzOffsetMinutes);
+        _utcEpochDay = getUtcEpochDay(REFERENCE_EPOCH_DAY, nanoOfDay, utcOffsetMinutes);
+        _utcNanoOfDay = getUtcNanoOfDay(nanoOfDay, utcOffsetMinutes);
+        this.isPopulatedFromFnCurrentTime = isPopulatedFromFnCurrentTime;
     }
 
     /**
@@ -75,19 +113,8 @@ public class XSTime extends XSCalendarType {
     }
 
     @Override
-    public ResultSequence constructor(ResultSequence arg) throws TransformerException {
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
-        }
-        
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);        
-        XSTime xsTime = castToTime(xsAnyType);
-        
-        resultSeq.add(xsTime);
-        
-        return resultSeq;
+    public XSTime cast(XSAnyType xsAnyType) throws TransformerException {
+        return XPath3CastTable.castToTime(xsAnyType);
     }
     
     /**
@@ -96,15 +123,40 @@ public class XSTime extends XSCalendarType {
      */
     public static XSTime parseTime(String strVal) throws TransformerException {
 
-        String refDate = "1955-07-12T";
+        XSTime xsTime = tryParseTime(strVal);
         
-        XSDateTime xsDateTime = XSDateTime.parseDateTime(refDate + strVal);
-        if (xsDateTime == null) {
+        if (xsTime == null) {
            throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
                                                                        + "cannot be parsed to a xs:time value.");
         }
 
-        return new XSTime(xsDateTime.getCalendar(), xsDateTime.getTimezone());
+        return xsTime;
+    }
+    
+    /*
+     * Parse a string representation of a time value, and construct an new 
+     * XSTime object. This method returns null, if the supplied string is not
+     * a valid xs:time lexical value.
+     */
+    private static XSTime tryParseTime(String strVal) {
+
+        if (strVal == null) {
+           return null; 
+        }
+        
+        XPath3DateTimeParser timeParser = new XPath3DateTimeParser(trimWhitespace(strVal));
+        
+        if (!timeParser.parseTime()) {
+           return null;
+        }
+
+        return new XSTime(timeParser.getNanoOfDay(), timeParser.isTimezoned(), 
+                                                                     timeParser.getTimezoneOffsetMinutes());
+    }
+    
+    @Override
+    public XSCtrType tryParse(String strVal) {
+        return tryParseTime(strVal);
     }
     
     /**
@@ -129,16 +181,17 @@ public class XSTime extends XSCalendarType {
     
     /**
      * Get a java.util.Calendar representation of an time value stored, 
-     * within this XSTime object.
+     * within this XSTime object. A new Calendar object (having the date
+     * 1970-01-01) is constructed, on each call of this method.
      * 
      * @return    Calendar representation of the time stored
      */
     public Calendar getCalendar() {
-        return _calendar;
+        return toCalendar(1970, 1, 1, _nanoOfDay);
     }
     
     public XSDuration getTimezone() {
-        return _tz;
+        return _timezoned ? toTimezoneDuration(_tzOffsetMinutes) : null;
     }
     
     /**
@@ -148,7 +201,7 @@ public class XSTime extends XSCalendarType {
      * @return   the hour value stored
      */
     public int hour() {
-        return _calendar.get(Calendar.HOUR_OF_DAY);
+        return (int)(_nanoOfDay / NANOS_PER_HOUR);
     }
 
     /**
@@ -158,7 +211,7 @@ public class XSTime extends XSCalendarType {
      * @return   the minute value stored
      */
     public int minute() {
-        return _calendar.get(Calendar.MINUTE);
+        return (int)((_nanoOfDay / NANOS_PER_MINUTE) % 60);
     }
     
     /**
@@ -168,13 +221,28 @@ public class XSTime extends XSCalendarType {
      * @return    the seconds value stored
      */
     public double second() {
-        double secondVal = _calendar.get(Calendar.SECOND);
-        double millisecVal = _calendar.get(Calendar.MILLISECOND);
-
-        millisecVal /= 1000;
-        secondVal += millisecVal;
-        
-        return secondVal;
+        return (double)(_nanoOfDay % NANOS_PER_MINUTE) / NANOS_PER_SECOND;
+    }
+    
+    /**
+     * Get the time of day stored within this XSTime object, as number 
+     * of nanoseconds.
+     * 
+     * @return   the time of day, as number of nanoseconds
+     */
+    public long nanoOfDay() {
+        return _nanoOfDay;
+    }
+    
+    /**
+     * Get the timezone offset of this XSTime object, as number of minutes. 
+     * The result is meaningful only when the method isTimetimezoned() 
+     * returns true.
+     * 
+     * @return   the timezone offset, as number of minutes
+     */
+    public int timezoneOffset() {
+        return _tzOffsetMinutes;
     }
     
     /**
@@ -189,78 +257,28 @@ public class XSTime extends XSCalendarType {
 
     @Override
     public String stringValue() {
-        String returnVal = "";
-        
-        Calendar calendarVal = getCalendar();
-        returnVal += XSDateTime.padInt(calendarVal.get(Calendar.HOUR_OF_DAY), 2);
-        
-        returnVal += ":";
-        returnVal += XSDateTime.padInt(calendarVal.get(Calendar.MINUTE), 2);
-        
+        FastStringBuffer fsb = new FastStringBuffer(STRING_VALUE_CHUNK_BITS);
+        appendToFsb(fsb);
 
-        returnVal += ":";
-        int intSec = (int) second();
-        double doubleSec = second();
+        return fsb.toString();
+    }
+    
+    @Override
+    public void appendToFsb(FastStringBuffer fsb) {
+        appendTimeOfDay(fsb, _nanoOfDay);
 
-        if ((doubleSec - intSec) == 0.0) {
-            returnVal += XSDateTime.padInt(intSec, 2);
+        if (_timezoned) {
+           appendTimezone(fsb, _tzOffsetMinutes);
         }
-        else {
-            if (doubleSec < 10.0) {
-               returnVal += "0" + doubleSec;
-            }
-            else {
-               returnVal += doubleSec;
-            }
-        }
-
-        if (isTimetimezoned()) {
-            int hrs = _tz.hours();
-            int min = _tz.minutes();
-            double secs = _tz.seconds();
-            if (hrs == 0 && min == 0 && secs == 0) {
-               returnVal += "Z";
-            }
-            else {
-               String timezoneStr = "";
-               if (_tz.negative()) {
-                  timezoneStr += "-";  
-               }
-               else {
-                  timezoneStr += "+"; 
-               }
-               timezoneStr += XSDateTime.padInt(hrs, 2);  
-               timezoneStr += ":";
-               timezoneStr += XSDateTime.padInt(min, 2);
-              
-               returnVal += timezoneStr;
-            }
-         }
-
-         return returnVal;
     }
     
     /**
-     * Determine whether, two XSTime objects are equal.
+     * Determine whether, two XSTime objects are equal. Two values are equal, 
+     * when they represent the same instant on the reference date (i.e, their 
+     * timezones may be different).
      */
     public boolean equals(XSTime xsTime) {
-        boolean isXsTimeEqual = false;
-        
-        int hour1 = hour();
-        int mins1 = minute();
-        double secs1 = second();
-        
-        int hour2 = xsTime.hour();
-        int mins2 = xsTime.minute();
-        double secs2 = xsTime.second();
-        XSDuration tz1 = getTimezone();
-        XSDuration tz2 = xsTime.getTimezone();
-        
-        isXsTimeEqual = ((hour1 == hour2) && (mins1 == mins2) && (secs1 == secs2)) && 
-                                                            isTimezoneEqual(tz1, tz2, isPopulatedFromFnCurrentTime, 
-                                                                            xsTime.isPopulatedFromFnCurrentTime());
-        
-        return isXsTimeEqual;
+        return compare(xsTime) == 0;
     }
     
     @Override
@@ -275,10 +293,10 @@ public class XSTime extends XSCalendarType {
     }
     
     @Override
-    public int hashCode() {       
-       String strVal = stringValue();       
+    public int hashCode() {
+       long hash = (31L * _utcEpochDay) + _utcNanoOfDay;
        
-       return strVal.hashCode();
+       return (int)(hash ^ (hash >>> 32));
     }
     
     /**
@@ -286,31 +304,7 @@ public class XSTime extends XSCalendarType {
      * object provided as an argument to this method. 
      */
     public boolean lt(XSTime xsTime) {
-       boolean isTimeBefore = false;
-       
-       int hour1 = hour();
-       int mins1 = minute();
-       double secs1 = second();
-       
-       int hour2 = xsTime.hour();
-       int mins2 = xsTime.minute();
-       double secs2 = xsTime.second();
-       
-       if (hour1 < hour2) {
-    	  isTimeBefore = true; 
-       }
-       else if (hour1 == hour2) {
-          if (mins1 < mins2) {
-        	 isTimeBefore = true;  
-          }
-          else if (mins1 == mins2) {
-             if (secs1 < secs2) {
-            	isTimeBefore = true;  
-             }
-          }
-       }
-    
-       return isTimeBefore;
+       return compare(xsTime) < 0;
     }
     
     /**
@@ -318,31 +312,20 @@ public class XSTime extends XSCalendarType {
      * XSTime object provided as an argument to this method. 
      */
     public boolean gt(XSTime xsTime) {
-    	boolean isTimeAfter = false;
-        
-        int hour1 = hour();
-        int mins1 = minute();
-        double secs1 = second();
-        
-        int hour2 = xsTime.hour();
-        int mins2 = xsTime.minute();
-        double secs2 = xsTime.second();
-        
-        if (hour1 > hour2) {
-        	isTimeAfter = true; 
-        }
-        else if (hour1 == hour2) {
-           if (mins1 > mins2) {
-        	   isTimeAfter = true;  
-           }
-           else if (mins1 == mins2) {
-              if (secs1 > secs2) {
-            	  isTimeAfter = true;  
-              }
-           }
-        }
-     
-        return isTimeAfter;
+       return compare(xsTime) > 0;
+    }
+    
+    /**
+     * Compare this XSTime object with the supplied XSTime object, by the 
+     * instants (normalized to UTC) that the values represent on the reference
+     * date 1972-12-31. A value without a timezone, is taken to be in 
+     * the implicit timezone.
+     * 
+     * @return  a negative integer, zero, or a positive integer as this value
+     *          is before, at the same instant as, or after the supplied value.
+     */
+    public int compare(XSTime xsTime) {
+       return compareInstant(_utcEpochDay, _utcNanoOfDay, xsTime._utcEpochDay, xsTime._utcNanoOfDay);
     }
     
     /**
@@ -359,10 +342,8 @@ public class XSTime extends XSCalendarType {
          }
          
          XSDayTimeDuration argVal = (XSDayTimeDuration)xObject;
-         double argValSecs = argVal.value();
-         Calendar cal1 = (Calendar)((getCalendar()).clone());
-         cal1.setTimeInMillis(cal1.getTimeInMillis() + ((((long)argValSecs * 1000))));
-         result = new XSTime(cal1, getTimezone());
+         long nanoOfDay = getShiftedNanoOfDay(_nanoOfDay, argVal.totalSeconds(), argVal.nanoOfSecond());
+         result = new XSTime(nanoOfDay, _timezoned, _tzOffsetMinutes);
          
          return result;
     }
@@ -383,17 +364,13 @@ public class XSTime extends XSCalendarType {
           }
           
           if (xObject instanceof XSTime) {
-             Calendar cal1 = getCalendar();
-             Calendar cal2 = ((XSTime)xObject).getCalendar();
-             long diffDurationMilliSecs = cal1.getTimeInMillis() - cal2.getTimeInMillis();
-             result = new XSDayTimeDuration(diffDurationMilliSecs / 1000);
+             XSTime argVal = (XSTime)xObject;
+             result = getInstantDifference(_utcEpochDay, _utcNanoOfDay, argVal._utcEpochDay, argVal._utcNanoOfDay);
           }          
           else if (xObject instanceof XSDayTimeDuration) {
              XSDayTimeDuration argVal = (XSDayTimeDuration)xObject;
-             double argValSecs = argVal.value();
-             Calendar cal1 = (Calendar)((getCalendar()).clone());
-             cal1.setTimeInMillis(cal1.getTimeInMillis() + ((((long)argValSecs * 1000)) * -1));
-             result = new XSTime(cal1, getTimezone());
+             long nanoOfDay = getShiftedNanoOfDay(_nanoOfDay, -argVal.totalSeconds(), -argVal.nanoOfSecond());
+             result = new XSTime(nanoOfDay, _timezoned, _tzOffsetMinutes);
           }
           
           return result;
@@ -407,29 +384,12 @@ public class XSTime extends XSCalendarType {
 		return isPopulatedFromFnCurrentTime;
 	}
 
-	public void setPopulatedFromFnCurrentTime(boolean isPopulatedFromFnCurrentTime) {
-		this.isPopulatedFromFnCurrentTime = isPopulatedFromFnCurrentTime;
-	}
-
 	/**
-     * Do a data type cast, of an XSAnyType argument passed to this method, to
-     * an XSTime object.
-     */
-    private XSTime castToTime(XSAnyType xsAnyType) throws TransformerException {        
-        XSTime xsTime = null;
-        
-        if (xsAnyType instanceof XSTime) {
-           xsTime = (XSTime)xsAnyType;
-        }        
-        else if (xsAnyType instanceof XSDateTime) {
-           XSDateTime xsDateTime = (XSDateTime)xsAnyType;
-           xsTime = new XSTime(xsDateTime.getCalendar(), xsDateTime.getTimezone());
-        }
-        else {
-           xsTime = parseTime(xsAnyType.stringValue());
-        }
-        
-        return xsTime;
-    }
+	 * Get an xs:time value, that is same as this xs:time value except that it
+	 * has the supplied 'populated from fn:current-time' flag value.
+	 */
+	public XSTime withPopulatedFromFnCurrentTime(boolean isPopulatedFromFnCurrentTime) {
+		return new XSTime(_nanoOfDay, _timezoned, _tzOffsetMinutes, isPopulatedFromFnCurrentTime);
+	}
 
 }
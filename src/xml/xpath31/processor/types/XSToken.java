@@ -11,8 +11,6 @@
 
 package xml.xpath31.processor.types;
 
-import org.apache.xpath.objects.ResultSequence;
-
 /**
  * A representation of the xs:token datatype.
  */
@@ -57,35 +55,29 @@ public class XSToken extends XSNormalizedString {
 	}
 
 	/**
-	 * Creates a new ResultSequence consisting of the extractable String in the
-	 * supplied ResultSequence
+	 * Creates a new XSToken consisting of the extractable String in the
+	 * supplied value
 	 * 
-	 * @param arg
-	 *            The ResultSequence from which to extract the String
-	 * @return New ResultSequence consisting of the supplied String
+	 * @param xsAnyType
+	 *            The value from which to extract the String
+	 * @return New XSToken consisting of the supplied String
 	 * @throws DynamicError
 	 */
-	public ResultSequence constructor(ResultSequence arg) throws javax.xml.transform.TransformerException {
-		ResultSequence resultSeq = new ResultSequence();
-
-		if (arg.size() == 0) {
-		   return resultSeq;
-		}
-
-		XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-
-		String srcString = xsAnyType.stringValue();
+	public XSToken cast(XSAnyType xsAnyType) throws javax.xml.transform.TransformerException {
+		XSToken xsToken = (XSToken)tryParse(xsAnyType.stringValue());
 		
-		if (!isSatisfiesConstraints(srcString)) {
+		if (xsToken == null) {
 			throw new javax.xml.transform.TransformerException("FORG0006 : The supplied string value cannot be used to construct "
                                                                              + "xs:token value, since the input string contains prohibited "
                                                                              + "characters for a xs:token value.");	
 		}
-		else {
-			resultSeq.add(new XSToken(srcString));
-		}
 
-		return resultSeq;
+		return xsToken;
+	}
+	
+	@Override
+	public XSCtrType tryParse(String strVal) {
+		return ((strVal != null) && isSatisfiesConstraints(strVal)) ? new XSToken(strVal) : null;
 	}
 	
 	/*
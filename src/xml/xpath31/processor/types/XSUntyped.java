@@ -30,7 +30,7 @@ public class XSUntyped extends XSAnyType {
     
     private static final String XS_UNTYPED = "xs:untyped";
     
-    private String _value;
+    private final String _value;
     
     public XSUntyped() {
         this(null);
@@ -110,5 +110,25 @@ public class XSUntyped extends XSAnyType {
          
        return isEquals;
     }
+    
+    /*
+     * Check equality between this XSUntyped value and an XObject value, using the
+     * supplied resolved collation for string comparison. 
+     */
+    public boolean equals(XObject xObject, XPathCollation collation) {
+       boolean isEquals = false;
+        
+       if (xObject instanceof XSUntyped) {
+          isEquals = collation.isEqual(_value, ((XSUntyped)xObject).stringValue()); 
+       }
+       else if (xObject instanceof XSUntypedAtomic) {
+          isEquals = collation.isEqual(_value, ((XSUntypedAtomic)xObject).stringValue());  
+       }
+       else {
+          isEquals = collation.isEqual(_value, XslTransformEvaluationHelper.getStrVal(xObject)); 
+       }
+        
+       return isEquals;
+    }
 
 }
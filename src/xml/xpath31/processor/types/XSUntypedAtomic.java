@@ -33,7 +33,7 @@ public class XSUntypedAtomic extends XSCtrType {
     
     private static final String XS_UNTYPED_ATOMIC = "xs:untypedAtomic";
     
-    private String _value;
+    private final String _value;
     
     public XSUntypedAtomic() {
         this(null);
@@ -51,12 +51,20 @@ public class XSUntypedAtomic extends XSCtrType {
            return resultSeq;     
         }
         
-        XSAnyAtomicType xsAnyAtomicType = (XSAnyAtomicType)arg.item(0);
-        
-        resultSeq.add(new XSUntypedAtomic(xsAnyAtomicType.stringValue()));
+        resultSeq.add(cast((XSAnyAtomicType)arg.item(0)));
         
         return resultSeq;
     }
+    
+    @Override
+    public XSUntypedAtomic cast(XSAnyType xsAnyType) {
+        return new XSUntypedAtomic(xsAnyType.stringValue());
+    }
+
+    @Override
+    public XSCtrType tryParse(String strVal) {
+        return (strVal != null) ? new XSUntypedAtomic(strVal) : null;
+    }
 
     @Override
     public String typeName() {
@@ -129,5 +137,25 @@ public class XSUntypedAtomic extends XSCtrType {
         
         return isEquals;
     }
+    
+    /*
+     * Check equality between this XSUntypedAtomic value and an XObject value, using
+     * the supplied resolved collation for string comparison. 
+     */
+    public boolean equals(XObject xObject, XPathCollation collation) {
+        boolean isEquals = false;
+        
+        if (xObject instanceof XSUntypedAtomic) {
+           isEquals = collation.isEqual(_value, ((XSUntypedAtomic)xObject).stringValue()); 
+        }
+        else if (xObject instanceof XSUntyped) {
+           isEquals = collation.isEqual(_value, ((XSUntyped)xObject).stringValue());  
+        }
+        else {
+           isEquals = collation.isEqual(_value, XslTransformEvaluationHelper.getStrVal(xObject)); 
+        }
+        
+        return isEquals;
+    }
 
 }
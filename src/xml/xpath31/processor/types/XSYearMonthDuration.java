@@ -17,7 +17,7 @@ import java.math.BigDecimal;
 
 import javax.xml.transform.TransformerException;
 
-import org.apache.xpath.objects.ResultSequence;
+import org.apache.xml.utils.FastStringBuffer;
 
 /**
  * An XML Schema data type representation, of the xs:yearMonthDuration 
@@ -47,7 +47,7 @@ public class XSYearMonthDuration extends XSDuration {
      * @param months  number of months in the duration of time
      */
     public XSYearMonthDuration(int months) {
-        this(0, Math.abs(months), months < 0);
+        super(Math.abs((long)months), 0L, 0L, months < 0);
     }
 
     /**
@@ -67,123 +67,41 @@ public class XSYearMonthDuration extends XSDuration {
      *                   duration of time supplied.
      */
     public static XSDuration parseYearMonthDuration(String strVal) throws TransformerException {
-        
-        boolean isDurationNegative = false;
-        
-        int year = 0;
-        int month = 0;
-
-        int moveAheadIndication = 0;
-
-        String digits = "";
-        
-        try {
-            for (int idx = 0; idx < strVal.length(); idx++) {
-                char charVal = strVal.charAt(idx);
-    
-                switch (moveAheadIndication) {
-                case 0:
-                    if (charVal == '-') {
-                       isDurationNegative = true;
-                       moveAheadIndication = 4;
-                    } else if (charVal == 'P') {
-                       moveAheadIndication = 5;
-                    }
-                    else {
-                       throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                          + "cannot be parsed to a xs:yearMonthDuration value.");
-                    }
-                    break;
-                case 4:
-                    if (charVal == 'P') {
-                       moveAheadIndication = 5;
-                    }
-                    else {
-                       throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                      + "cannot be parsed to a xs:yearMonthDuration value.");
-                    }
-                    break;
-                case 5:
-                    if ('0' <= charVal && charVal <= '9') {
-                       digits += charVal;
-                    }
-                    else if (charVal == 'Y') {
-                        if (digits.length() == 0) {
-                           throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                         + "cannot be parsed to a xs:yearMonthDuration value.");
-                        }
-                        year = Integer.parseInt(digits);
-                        digits = "";
-                        moveAheadIndication = 6;
-                    } else if (charVal == 'M') {
-                        if (digits.length() == 0) {
-                           throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                         + "cannot be parsed to a xs:yearMonthDuration value.");
-                        }
-                        month = Integer.parseInt(digits);
-                        moveAheadIndication = 7;
-                    } else {
-                        throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                      + "cannot be parsed to a xs:yearMonthDuration value.");
-                    }
-                    break;
-                case 6:
-                   if ('0' <= charVal && charVal <= '9') {
-                      digits += charVal;
-                   }
-                   else if (charVal == 'M') {
-                      if (digits.length() == 0) {
-                         throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                        + "cannot be parsed to a xs:yearMonthDuration value.");
-                      }
-                      month = Integer.parseInt(digits);
-                      moveAheadIndication = 7;
-                    } else {
-                        throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                      + "cannot be parsed to a xs:yearMonthDuration value.");
-                    }
-                    break;
-                case 7:
-                    throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                  + "cannot be parsed to a xs:yearMonthDuration value.");
-                default:
-                    throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
-                                                                                                  + "cannot be parsed to a xs:yearMonthDuration value.");
-                }
-            }
-        }
-        catch (TransformerException ex) {
-           throw ex;  
-        }
-        catch (Exception ex) {
+        XSDuration xsDuration = tryParseYearMonthDuration(strVal);
+        if (xsDuration == null) {
            throw new TransformerException("XTTE0570 : The supplied string value '" + strVal + "' "
                                                                                          + "cannot be parsed to a xs:yearMonthDuration value."); 
         }
 
-        return new XSYearMonthDuration(year, month, isDurationNegative);
+        return xsDuration;
+    }
+    
+    /**
+     * Creates a new XSYearMonthDuration object, by parsing the supplied
+     * string representing the duration value.
+     * 
+     * @param   strVal   String representation of the duration value
+     * @return           new XSYearMonthDuration object, representing the
+     *                   duration of time supplied, or null if the supplied
+     *                   string is not a valid xs:yearMonthDuration lexical
+     *                   value.
+     */
+    static XSDuration tryParseYearMonthDuration(String strVal) {
+        return XPath3DurationLexer.parse(strVal, XPath3DurationLexer.YEAR_MONTH_DURATION);
+    }
+    
+    @Override
+    public XSCtrType tryParse(String strVal) {
+        return tryParseYearMonthDuration(strVal);
     }
 
     /**
-     * A method to construct an xdm sequence comprising a
-     * xs:yearMonthDuration value, given input data as argument
-     * to this method.
+     * A method to cast a value to a xs:yearMonthDuration value.
      * 
      * @throws TransformerException 
      */
-	public ResultSequence constructor(ResultSequence arg) throws TransformerException {
-        ResultSequence resultSeq = new ResultSequence();
-        
-        if (arg.size() == 0) {
-           return resultSeq;     
-        }
-        
-        XSAnyType xsAnyType = (XSAnyType)arg.item(0);
-        
-        XSDuration xsDuration = castToYearMonthDuration(xsAnyType);
-        
-        resultSeq.add(xsDuration);
-
-        return resultSeq;	
+	public XSDuration cast(XSAnyType xsAnyType) throws TransformerException {
+        return XPath3CastTable.castToYearMonthDuration(xsAnyType);	
 	}
 
 	/**
@@ -196,17 +114,6 @@ public class XSYearMonthDuration extends XSDuration {
 		return "yearMonthDuration";
 	}
 	
-	/**
-     * Check whether, this duration value represents a backward passage
-     * through time.
-     * 
-     * @return 'true' if this duration value represents a backward passage
-     *         through time. 'false' otherwise.
-     */
-    public boolean negative() {
-        return _negative;
-    }
-	
 	/**
      * Get a string representation, of the duration value represented
      * by this object.
@@ -215,29 +122,31 @@ public class XSYearMonthDuration extends XSDuration {
      *           by this object. 
      */
     public String stringValue() {
-        String strVal = "";
+        FastStringBuffer fsb = new FastStringBuffer(STRING_VALUE_CHUNK_BITS);
+        appendToFsb(fsb);
 
+        return fsb.toString();
+    }
+    
+    @Override
+    public void appendToFsb(FastStringBuffer fsb) {
         if (negative()) {
-           strVal += "-";
+           fsb.append('-');
         }
 
-        strVal += "P";
+        fsb.append('P');
 
         int years = year();
         if (years != 0) {
-           strVal += years + "Y";
+           appendDigits(fsb, years, 1);
+           fsb.append('Y');
         }
 
         int months = month();
-        if (months == 0) {
-           if (years == 0) {
-              strVal += months + "M";
-           }
-        } else {
-           strVal += months + "M";
+        if ((months != 0) || (years == 0)) {
+           appendDigits(fsb, months, 1);
+           fsb.append('M');
         }
-
-        return strVal;
     }
 
 	/**
@@ -257,13 +166,7 @@ public class XSYearMonthDuration extends XSDuration {
      *           represented by this object.
      */
     public int monthValue() {
-       int retVal = (year() * 12) + month();
-
-       if (negative()) {
-          retVal *= -1;
-       }
-
-       return retVal;
+       return totalMonths();
     }
     
     /**
@@ -271,10 +174,7 @@ public class XSYearMonthDuration extends XSDuration {
      * another XSYearMonthDuration value. 
      */
     public boolean equals(XSYearMonthDuration xsYearMonthDuration) {
-       double val1 = monthValue();
-       double val2 = xsYearMonthDuration.monthValue();
-       
-       return val1 == val2;
+       return monthValue() == xsYearMonthDuration.monthValue();
     }
     
     /**
@@ -282,10 +182,7 @@ public class XSYearMonthDuration extends XSDuration {
      * less than another one.  
      */
     public boolean lt(XSYearMonthDuration xsYearMonthDuration) {
-       double val1 = monthValue();
-       double val2 = xsYearMonthDuration.monthValue();
-       
-       return val1 < val2;
+       return monthValue() < xsYearMonthDuration.monthValue();
     }
     
     /**
@@ -293,10 +190,7 @@ public class XSYearMonthDuration extends XSDuration {
      * greater than another one.  
      */
     public boolean gt(XSYearMonthDuration xsYearMonthDuration) {
-       double val1 = monthValue();
-       double val2 = xsYearMonthDuration.monthValue();
-       
-       return val1 > val2;
+       return monthValue() > xsYearMonthDuration.monthValue();
     }
     
     /**
@@ -392,22 +286,5 @@ public class XSYearMonthDuration extends XSDuration {
     public int getType() {
         return CLASS_XS_YEARMONTH_DURATION;
     }
-    
-    /**
-     * Do a data type cast, of a XSAnyType value to an XSDuration
-     * value.
-     *  
-     * @throws TransformerException 
-     */
-    private XSDuration castToYearMonthDuration(XSAnyType xsAnyType) throws TransformerException {
-        if (xsAnyType instanceof XSDuration) {
-           XSDuration xsDuration = (XSDuration) xsAnyType;
-           
-           return new XSYearMonthDuration(xsDuration.year(), xsDuration.month(), 
-                                          xsDuration.negative());
-        }
-        
-        return parseYearMonthDuration(xsAnyType.stringValue());
-    }
-	
+
 }
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Mukul Gandhi, and others
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Contributors:
+ *     Mukul Gandhi        -    initial API and implementation
+ *******************************************************************************/
+
+package xml.xpath31.processor.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Regression tests for the xs:decimal arithmetic and comparisons, done on 
+ * the compact (unscaled long) form. An xs:integer operand may hold the value
+ * Long.MIN_VALUE, whose magnitude is not a long value.
+ */
+public class XSDecimalArithmeticTest {
+
+    private static final XSInteger LONG_MIN = new XSInteger(Long.MIN_VALUE);
+
+    @Test
+    public void addFractionToLongMinValue() {
+       XSDecimal result = LONG_MIN.add(new XSDecimal("0.5"));
+
+       assertEquals("-9223372036854775807.5", result.stringValue());
+    }
+
+    @Test
+    public void multiplyLongMinValueByMinusOne() {
+       XSDecimal result = LONG_MIN.multiply((XSDecimal)new XSDecimal("-1"));
+
+       assertEquals("9223372036854775808", result.stringValue());
+    }
+
+    @Test
+    public void compareLongMinValueWithFraction() {
+       XSDecimal xsDecimal = new XSDecimal("-1.5");
+
+       assertTrue(LONG_MIN.lt(xsDecimal));
+       assertFalse(LONG_MIN.gt(xsDecimal));
+       assertTrue(xsDecimal.gt(LONG_MIN));
+    }
+
+}